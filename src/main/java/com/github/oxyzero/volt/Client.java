@@ -3,6 +3,17 @@ package com.github.oxyzero.volt;
 import com.github.oxyzero.volt.support.Task;
 import com.github.oxyzero.volt.support.TaskManager;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 /**
@@ -22,6 +33,21 @@ public abstract class Client extends TaskManager {
      * Client port.
      */
     private final int port;
+
+    /**
+     * If the client is bound once and kept open between sends.
+     */
+    private volatile boolean persistent;
+
+    /**
+     * Guards the opening and closing of the client.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Targets whose last request was not answered.
+     */
+    private final Set<String> unresponsive = ConcurrentHashMap.newKeySet();
     
     /**
      * Creates a new Client.
@@ -48,6 +74,61 @@ public abstract class Client extends TaskManager {
         return this.client;
     }
     
+    /**
+     * Returns if the client is bound once and kept open between sends.
+     *
+     * @return True if the client is persistent, false otherwise.
+     */
+    public boolean isPersistent() {
+        return this.persistent;
+    }
+
+    /**
+     * Sets if the client is bound once, on the first send, and reuses its
+     * socket for every send until it is stopped or destroyed. Otherwise the
+     * client is booted and shut down on every send.
+     *
+     * @param persistent If the client is persistent.
+     * @return self
+     */
+    public Client persistent(boolean persistent) {
+        this.persistent = persistent;
+
+        if (! persistent) {
+            this.close();
+        }
+
+        return this;
+    }
+
+    /**
+     * Boots the client, unless it is already open.
+     *
+     * @return True if the client was booted, false if it was already open.
+     */
+    protected boolean open() {
+        synchronized (this.lock) {
+            if (this.client.isActive()) {
+                return false;
+            }
+
+            this.client.boot(this.port);
+
+            return true;
+        }
+    }
+
+    /**
+     * Shuts the client down, if it is open.
+     */
+    protected void close() {
+        synchronized (this.lock) {
+            if (this.client.isActive()) {
+                this.client.shutdown();
+            }
+        }
+    }
+
     /**
      * Sends a message, interpreted by a given route, for a target.
      * 
@@ -60,9 +141,53 @@ public abstract class Client extends TaskManager {
         Task request = new Task() {
             @Override
             public void fire() {
-                client.boot(port);
-                client.send(route, target, message);
-                client.shutdown();
+                if (persistent) {
+                    open();
+                    client.send(route, target, message);
+                } else {
+                    client.boot(port);
+                    client.send(route, target, message);
+                    client.shutdown();
+                }
+
+                if (! isResponsive(target)) {
+                    this.congested();
+                }
+            }
+        };
+
+        super.fire(request);
+
+        return this;
+    }
+
+    /**
+     * Sends the same message, interpreted by a given route, to many targets.
+     * The message is encoded once for every target.
+     *
+     * @param route Route the message is targeted for.
+     * @param targets IPv4:Port of each target.
+     * @param message Message.
+     * @return self
+     */
+    public Client send(String route, Collection<String> targets, String message) {
+        final List<String> copy = new ArrayList<>(targets);
+
+        Task request = new Task() {
+            @Override
+            public void fire() {
+                if (persistent) {
+                    open();
+                    client.send(route, copy, message);
+                } else {
+                    client.boot(port);
+                    client.send(route, copy, message);
+                    client.shutdown();
+                }
+
+                if (! copy.isEmpty() && unresponsive.containsAll(copy)) {
+                    this.congested();
+                }
             }
         };
 
@@ -71,6 +196,63 @@ public abstract class Client extends TaskManager {
         return this;
     }
 
+    /**
+     * Sends a request to the target and waits asynchronously for its reply.
+     *
+     * @param route Route the request is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     * @return Future completed with the reply, or failed if no reply arrives in time.
+     */
+    public CompletableFuture<Request> request(String route, String target, String message) {
+        return this.request(route, target, message, Server.REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Sends a request to the target and waits asynchronously for its reply.
+     *
+     * @param route Route the request is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     * @param timeout Seconds to wait for the reply.
+     * @return Future completed with the reply, or failed if the timeout expires.
+     */
+    public abstract CompletableFuture<Request> request(String route, String target, String message, int timeout);
+
+    /**
+     * Returns if the last request sent to a target was answered. The periodic
+     * sends to a target that stopped answering are congested, so their
+     * period widens if they back off. Only requests update it, plain sends
+     * do not report their failures.
+     *
+     * @param target IPv4:Port of the target.
+     * @return False if the last request to the target failed, true otherwise.
+     */
+    public boolean isResponsive(String target) {
+        return ! this.unresponsive.contains(target);
+    }
+
+    /**
+     * Keeps track of whether a target answers a request.
+     *
+     * @param target IPv4:Port of the target.
+     * @param future Future of the request.
+     * @return The same future.
+     */
+    protected CompletableFuture<Request> watch(String target, CompletableFuture<Request> future) {
+        future.whenComplete((reply, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+
+            if (cause == null) {
+                this.unresponsive.remove(target);
+            } else if (cause instanceof TimeoutException || cause instanceof IOException) {
+                this.unresponsive.add(target);
+            }
+        });
+
+        return future;
+    }
+
     public abstract Client send(String headers, String target, Connection connection);
 
     public abstract Client send(String headers, String target, Consumer<Request> action);
@@ -101,6 +283,20 @@ public abstract class Client extends TaskManager {
         return ip + ":" + port;
     }
 
+    /**
+     * Destroys the client, failing the requests still waiting for a reply.
+     */
+    @Override
+    public void destroy() {
+        super.destroy();
+
+        if (this.persistent) {
+            this.close();
+        }
+
+        this.client.closeRequests();
+    }
+
     @Override
     public Client after(int seconds) {
         super.after(seconds);
@@ -108,6 +304,20 @@ public abstract class Client extends TaskManager {
         return this;
     }
 
+    @Override
+    public Client after(long delay, TimeUnit unit) {
+        super.after(delay, unit);
+
+        return this;
+    }
+
+    @Override
+    public Client after(Duration delay) {
+        super.after(delay);
+
+        return this;
+    }
+
     @Override
     public Client every(int seconds) {
         super.every(seconds);
@@ -115,4 +325,73 @@ public abstract class Client extends TaskManager {
         return this;
     }
 
+    @Override
+    public Client every(long period, TimeUnit unit) {
+        super.every(period, unit);
+
+        return this;
+    }
+
+    @Override
+    public Client every(Duration period) {
+        super.every(period);
+
+        return this;
+    }
+
+    @Override
+    public Client jitter(double jitter) {
+        super.jitter(jitter);
+
+        return this;
+    }
+
+    @Override
+    public Client randomPhase() {
+        super.randomPhase();
+
+        return this;
+    }
+
+    /**
+     * Widens the period of the next send when it is congested. A send does
+     * not know if it was delivered, as UDP has no acknowledgements and TCP
+     * sends drop connection errors, so the sends to a target are only
+     * congested once a request to it, sent with request(), went unanswered,
+     * or when they start late. Periodic sends back off on a dead target only
+     * if the target is probed with requests.
+     *
+     * @param factor Factor by which the period widens, greater than 1.
+     * @param max Maximum period.
+     * @return self
+     * @see #isResponsive(String)
+     */
+    @Override
+    public Client backoff(double factor, Duration max) {
+        super.backoff(factor, max);
+
+        return this;
+    }
+
+    @Override
+    public Client backoff(double factor, long max, TimeUnit unit) {
+        super.backoff(factor, max, unit);
+
+        return this;
+    }
+
+    @Override
+    public Client fixedRate() {
+        super.fixedRate();
+
+        return this;
+    }
+
+    @Override
+    public Client fixedDelay() {
+        super.fixedDelay();
+
+        return this;
+    }
+
 }
@@ -0,0 +1,92 @@
+package com.github.oxyzero.volt;
+
+/**
+ * How many requests of a route may be handled at the same time.
+ *
+ * @see Server#listen(String, Connection, Concurrency)
+ */
+public final class Concurrency {
+
+    /**
+     * Maximum number of requests handled at the same time, or 0 if unbounded.
+     */
+    private final int limit;
+
+    /**
+     * If the requests of each requester are handled one at a time, in order.
+     */
+    private final boolean ordered;
+
+    private Concurrency(int limit, boolean ordered) {
+        this.limit = limit;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Handles one request of the route at a time.
+     *
+     * @return Serial concurrency.
+     */
+    public static Concurrency serial() {
+        return new Concurrency(1, false);
+    }
+
+    /**
+     * Handles up to the given number of requests of the route at a time.
+     *
+     * @param limit Maximum number of requests handled at the same time.
+     * @return Bounded concurrency.
+     */
+    public static Concurrency bounded(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The concurrency limit must be greater than 0.");
+        }
+
+        return new Concurrency(limit, false);
+    }
+
+    /**
+     * Handles every request of the route as soon as it arrives.
+     *
+     * @return Unbounded concurrency.
+     */
+    public static Concurrency unbounded() {
+        return new Concurrency(0, false);
+    }
+
+    /**
+     * Handles the requests of each requester one at a time, in the order
+     * they reach the route, while requests of different requesters still
+     * run concurrently.
+     *
+     * @return Same concurrency, ordered per requester.
+     */
+    public Concurrency ordered() {
+        return new Concurrency(this.limit, true);
+    }
+
+    /**
+     * Gets the maximum number of requests handled at the same time.
+     *
+     * @return Limit, or 0 if unbounded.
+     */
+    public int limit() {
+        return this.limit;
+    }
+
+    /**
+     * Returns if the requests of each requester are handled in order.
+     *
+     * @return True if ordered per requester, false otherwise.
+     */
+    public boolean isOrdered() {
+        return this.ordered;
+    }
+
+    @Override
+    public String toString() {
+        String type = this.limit == 0 ? "unbounded" : this.limit == 1 ? "serial" : "bounded(" + this.limit + ")";
+
+        return "Concurrency{" + type + (this.ordered ? ", ordered" : "") + "}";
+    }
+}
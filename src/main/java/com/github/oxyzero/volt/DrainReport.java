@@ -0,0 +1,47 @@
+package com.github.oxyzero.volt;
+
+/**
+ * Outcome of draining a server.
+ *
+ * @see Server#drain(long)
+ */
+public class DrainReport {
+
+    /**
+     * Number of requests completed while draining.
+     */
+    private final long completed;
+
+    /**
+     * Number of requests aborted when the deadline was reached.
+     */
+    private final long aborted;
+
+    public DrainReport(long completed, long aborted) {
+        this.completed = completed;
+        this.aborted = aborted;
+    }
+
+    /**
+     * Gets the number of requests that were completed while draining.
+     *
+     * @return Number of completed requests.
+     */
+    public long completed() {
+        return this.completed;
+    }
+
+    /**
+     * Gets the number of requests that were still pending at the deadline.
+     *
+     * @return Number of aborted requests.
+     */
+    public long aborted() {
+        return this.aborted;
+    }
+
+    @Override
+    public String toString() {
+        return "DrainReport{completed=" + this.completed + ", aborted=" + this.aborted + "}";
+    }
+}
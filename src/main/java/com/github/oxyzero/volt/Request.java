@@ -1,15 +1,18 @@
 package com.github.oxyzero.volt;
 
+import com.github.oxyzero.volt.support.LocalAddresses;
+import com.github.oxyzero.volt.support.RoutePattern;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.NetworkInterface;
 import java.net.Socket;
-import java.net.SocketException;
-import java.util.Enumeration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * A class that handles the request received by a communications protocol.
@@ -17,21 +20,141 @@ import java.util.Map;
  * @author Renato Machado
  */
 public class Request {
-    
+
     /**
-     * The arguments to build up the request.
+     * Targeted route.
      */
-    private final Map<String, Object> args;
+    private final String route;
+
+    /**
+     * Message received.
+     */
+    private String message;
+
+    /**
+     * Length of the original received message.
+     */
+    private int length;
 
     /**
      * Requester.
      */
     private final Requester requester;
 
-    public Request(Map<String, Object> args) 
+    /**
+     * Number of packets that carried the message.
+     */
+    private int packets;
+
+    /**
+     * TCP socket.
+     */
+    private Socket socket;
+
+    /**
+     * TCP socket input stream.
+     */
+    private BufferedReader input;
+
+    /**
+     * TCP socket output stream.
+     */
+    private PrintWriter output;
+
+    /**
+     * Sends the reply of a correlated request.
+     */
+    private Consumer<String> responder;
+
+    /**
+     * Route variables of the message.
+     */
+    private RoutePattern.Variables variables;
+
+    /**
+     * Custom headers, created only if the request has any.
+     */
+    private Map<String, String> headers;
+
+    /**
+     * Variable values put into the request, created only if any is put.
+     */
+    private Map<String, List<String>> values;
+
+    /**
+     * Request scoped and pooled services resolved for the request, created when the first is bound.
+     */
+    private Map<String, Object> scoped;
+
+    public Request(String route, String message, Requester requester)
     {
-        this.args = args;
-        this.requester = new Requester(args);
+        this.route = route;
+        this.message = message;
+        this.length = message == null ? 0 : message.length();
+        this.requester = requester == null ? new Requester(null, null) : requester;
+    }
+
+    /**
+     * Creates a request from the "volt-*" arguments used before requests had
+     * typed fields. Any other argument is kept as a custom header or variable.
+     *
+     * @param args Request arguments.
+     */
+    public Request(Map<String, Object> args)
+    {
+        this((String) args.get("volt-route"), (String) args.get("volt-message"), new Requester(args));
+
+        Object length = args.get("volt-length");
+        Object packets = args.get("volt-packets");
+
+        if (length != null) {
+            this.length = Integer.parseInt(String.valueOf(length));
+        }
+
+        if (packets != null) {
+            this.packets = Integer.parseInt(String.valueOf(packets));
+        }
+
+        this.socket = (Socket) args.get("volt-socket");
+        this.input = (BufferedReader) args.get("volt-input");
+        this.output = (PrintWriter) args.get("volt-output");
+        this.responder = responder(args.get("volt-responder"));
+        this.variables = (RoutePattern.Variables) args.get("volt-variables");
+
+        for (Map.Entry<String, Object> arg : args.entrySet()) {
+            if (arg.getKey().startsWith("volt-")) {
+                continue;
+            }
+
+            if (arg.getValue() instanceof List) {
+                List<String> values = new ArrayList<>();
+
+                for (Object value : (List<?>) arg.getValue()) {
+                    values.add(value == null ? null : String.valueOf(value));
+                }
+
+                this.put(arg.getKey(), values);
+            } else if (arg.getValue() != null) {
+                this.header(arg.getKey(), String.valueOf(arg.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Gets the responder given in the "volt-*" arguments.
+     *
+     * @param responder Responder argument.
+     * @return Responder, or null if none was given.
+     */
+    @SuppressWarnings("unchecked")
+    private static Consumer<String> responder(Object responder)
+    {
+        if (responder != null && ! (responder instanceof Consumer)) {
+            throw new IllegalArgumentException("The volt-responder argument must be a Consumer<String>.");
+        }
+
+        // The type of the values is erased, every responder of the arguments is given strings.
+        return (Consumer<String>) responder;
     }
     
     /**
@@ -41,8 +164,8 @@ public class Request {
      */
     public void message(String message)
     {
-        this.args.put("volt-message", message);
-        this.args.put("volt-length", ((String) this.args.get("volt-message")).length());
+        this.message = message;
+        this.length = message.length();
     }
     
     /**
@@ -52,7 +175,7 @@ public class Request {
      */
     public String message()
     {
-        return (String) this.args.get("volt-message");
+        return this.message;
     }
     
     /**
@@ -62,7 +185,20 @@ public class Request {
      */
     public int length()
     {
-        return (Integer) this.args.get("volt-length");
+        return this.length;
+    }
+
+    /**
+     * Sets the length of the original received message.
+     *
+     * @param length Message length.
+     * @return self
+     */
+    public Request length(int length)
+    {
+        this.length = length;
+
+        return this;
     }
 
     /**
@@ -82,7 +218,31 @@ public class Request {
      */
     public String route()
     {
-        return (String) this.args.get("volt-route");
+        return this.route;
+    }
+
+    /**
+     * Gets the number of packets that carried the message. This method
+     * should be used for UDP requests only.
+     *
+     * @return Number of packets, or 0 if unknown.
+     */
+    public int packets()
+    {
+        return this.packets;
+    }
+
+    /**
+     * Sets the number of packets that carried the message.
+     *
+     * @param packets Number of packets.
+     * @return self
+     */
+    public Request packets(int packets)
+    {
+        this.packets = packets;
+
+        return this;
     }
 
     /**
@@ -93,7 +253,20 @@ public class Request {
      */
     public Socket socket()
     {
-        return (Socket) this.args.get("volt-socket");
+        return this.socket;
+    }
+
+    /**
+     * Sets the TCP socket.
+     *
+     * @param socket TCP Socket.
+     * @return self
+     */
+    public Request socket(Socket socket)
+    {
+        this.socket = socket;
+
+        return this;
     }
 
     /**
@@ -104,7 +277,20 @@ public class Request {
      */
     public BufferedReader input()
     {
-        return (BufferedReader) this.args.get("volt-input");
+        return this.input;
+    }
+
+    /**
+     * Sets the input stream from the socket.
+     *
+     * @param input Input Stream from the socket.
+     * @return self
+     */
+    public Request input(BufferedReader input)
+    {
+        this.input = input;
+
+        return this;
     }
 
     /**
@@ -115,7 +301,98 @@ public class Request {
      */
     public PrintWriter output()
     {
-        return (PrintWriter) this.args.get("volt-output");
+        return this.output;
+    }
+
+    /**
+     * Sets the output stream from the socket.
+     *
+     * @param output Output Stream from the socket.
+     * @return self
+     */
+    public Request output(PrintWriter output)
+    {
+        this.output = output;
+
+        return this;
+    }
+
+    /**
+     * Gets how the reply of a correlated request is sent back.
+     *
+     * @return Responder, or null if replies are written to the output stream.
+     */
+    public Consumer<String> responder()
+    {
+        return this.responder;
+    }
+
+    /**
+     * Sets how the reply of a correlated request is sent back.
+     *
+     * @param responder Sends the reply.
+     * @return self
+     */
+    public Request responder(Consumer<String> responder)
+    {
+        this.responder = responder;
+
+        return this;
+    }
+
+    /**
+     * Sets the route variables of the message.
+     *
+     * @param variables Route variables.
+     * @return self
+     */
+    public Request variables(RoutePattern.Variables variables)
+    {
+        this.variables = variables;
+
+        return this;
+    }
+
+    /**
+     * Gets a custom header of the request.
+     *
+     * @param name Header name.
+     * @return Header value, or null if the request does not have the header.
+     */
+    public String header(String name)
+    {
+        return this.headers == null ? null : this.headers.get(name);
+    }
+
+    /**
+     * Sets a custom header of the request.
+     *
+     * @param name Header name.
+     * @param value Header value.
+     * @return self
+     */
+    public Request header(String name, String value)
+    {
+        if (this.headers == null) {
+            this.headers = new HashMap<>();
+        }
+
+        this.headers.put(name, value);
+
+        return this;
+    }
+
+    /**
+     * Sets the custom headers of the request. The map is used as is.
+     *
+     * @param headers Custom headers.
+     * @return self
+     */
+    public Request headers(Map<String, String> headers)
+    {
+        this.headers = headers;
+
+        return this;
     }
     
     /**
@@ -125,7 +402,11 @@ public class Request {
      * @param values Variable values.
      */
     public void put(String variable, List<String> values) {
-        this.args.put(variable, values);
+        if (this.values == null) {
+            this.values = new HashMap<>();
+        }
+
+        this.values.put(variable, values);
     }
     
     /**
@@ -135,13 +416,47 @@ public class Request {
      * On a route such as ":username|:password"
      * Doing request.get("username") would return all usernames.
      * Doing request.get("password") would return all passwords.
+     *
+     * The values are only extracted from the message when this method is called.
      * 
      * @param variable Variable name identified in the route (starts with :)
      * @return List of values from the variable name.
      */
     public List<String> get(String variable)
     {
-        return (List<String>) this.args.get(variable);
+        if (this.values != null && this.values.containsKey(variable)) {
+            return this.values.get(variable);
+        }
+
+        List<CharSequence> values = this.variable(variable);
+
+        if (values == null) {
+            return null;
+        }
+
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return values.get(index).toString();
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
+    }
+
+    /**
+     * Gets the values of a route variable as views over the received message,
+     * without copying them.
+     *
+     * @param variable Variable name identified in the route (starts with :)
+     * @return Values of the variable, or null if the route does not have it.
+     */
+    public List<CharSequence> variable(String variable)
+    {
+        return this.variables == null ? null : this.variables.get(variable);
     }
 
     public String listen() {
@@ -150,13 +465,67 @@ public class Request {
         try {
             this.socket().getInputStream().read(response);
         } catch (IOException e) {
-            throw new IllegalArgumentException("IO Exception.");
+            throw new IllegalArgumentException("IO Exception.", e);
         }
 
         return new String(response).trim();
     }
 
+    /**
+     * Gets a service instance bound to the request.
+     *
+     * @param key Service key.
+     * @return Instance, or null if none is bound.
+     */
+    public synchronized Object scoped(String key)
+    {
+        return this.scoped == null ? null : this.scoped.get(key);
+    }
+
+    /**
+     * Binds a service instance to the request, until the request is released.
+     *
+     * @param key Service key.
+     * @param instance Instance.
+     * @return self
+     */
+    public synchronized Request scoped(String key, Object instance)
+    {
+        if (this.scoped == null) {
+            this.scoped = new HashMap<>();
+        }
+
+        this.scoped.put(key, instance);
+
+        return this;
+    }
+
+    /**
+     * Unbinds every service instance of the request.
+     *
+     * @return Instances that were bound, by key, or null if none.
+     */
+    public synchronized Map<String, Object> release()
+    {
+        Map<String, Object> scoped = this.scoped;
+        this.scoped = null;
+
+        return scoped;
+    }
+
+    /**
+     * Replies to the request. If the requester is waiting for the reply of a
+     * correlated request, the reply is sent back with its correlation ID,
+     * otherwise it is written to the output stream of the socket.
+     *
+     * @param value Reply.
+     */
     public <V> void reply(V value) {
+        if (this.responder != null) {
+            this.responder.accept(String.valueOf(value));
+            return;
+        }
+
         this.output().println(value);
     }
 
@@ -168,23 +537,12 @@ public class Request {
      */
     public boolean same()
     {
-        String requester = this.requester().from();
-        
-        try {
-            Enumeration e = NetworkInterface.getNetworkInterfaces();
-            while (e.hasMoreElements()) {
-                NetworkInterface n = (NetworkInterface) e.nextElement();
-                Enumeration ee = n.getInetAddresses();
-                while (ee.hasMoreElements()) {
-                    InetAddress i = (InetAddress) ee.nextElement();
-                    
-                    if (requester.equals(i.getHostAddress())) {
-                        return true;
-                    }
-                }
-            }
-        } catch (SocketException ignored) {}
-        
-        return false;
+        Requester requester = this.requester();
+
+        if (requester.address() != null) {
+            return LocalAddresses.isLocal(requester.address());
+        }
+
+        return LocalAddresses.isLocal(requester.from());
     }
 }
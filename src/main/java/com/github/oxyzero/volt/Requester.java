@@ -5,7 +5,7 @@ import java.util.Map;
 
 /**
  * This class represents a requester in a connection.
- * 
+ *
  * @author Renato Machado
  */
 public class Requester {
@@ -13,27 +13,51 @@ public class Requester {
     /**
      * The IPv4:Port of the requester.
      */
-    private String target;
+    private final String target;
+
+    /**
+     * The IPv4 of the requester.
+     */
+    private final String from;
+
+    /**
+     * The port of the requester, or -1 if the target does not have one.
+     */
+    private final int port;
 
     /**
      * The address of the requester.
      */
-    private InetAddress address;
+    private final InetAddress address;
 
     /**
-     * The hostname of the requester.
+     * The hostname of the requester, resolved when it is first needed.
      */
-    private String hostname;
+    private volatile String hostname;
 
     public Requester(String target, InetAddress address) {
+        this(target, address, null);
+    }
+
+    public Requester(String target, InetAddress address, String hostname) {
         this.target = target;
         this.address = address;
+        this.hostname = hostname;
+
+        // The target is only parsed once, every accessor reads the parsed fields.
+        int separator = target == null ? -1 : target.indexOf(':');
+
+        if (separator < 0) {
+            this.from = target;
+            this.port = -1;
+        } else {
+            this.from = target.substring(0, separator);
+            this.port = this.parsePort(target, separator + 1);
+        }
     }
 
     public Requester(Map<String, Object> args) {
-        this.target = (String) args.get("volt-target");
-        this.address = (InetAddress) args.get("volt-address");
-        this.hostname = (String) args.get("volt-hostname");
+        this((String) args.get("volt-target"), (InetAddress) args.get("volt-address"), (String) args.get("volt-hostname"));
     }
 
     public String id() {
@@ -47,7 +71,7 @@ public class Requester {
      */
     public String from()
     {
-        return this.target.split(":")[0];
+        return this.from;
     }
 
     /**
@@ -56,7 +80,11 @@ public class Requester {
      * @return The port of the requester.
      */
     public int port() {
-        return Integer.valueOf(target.split(":")[1]);
+        if (this.port < 0) {
+            throw new NumberFormatException("The requester target \"" + this.target + "\" does not have a port.");
+        }
+
+        return this.port;
     }
 
     /**
@@ -83,11 +111,49 @@ public class Requester {
 
     /**
      * Gets the hostname that is associated to the requester address.
+     * The hostname is only looked up the first time it is asked for.
      *
      * @return Hostname based on the requester address.
      */
     public String hostname()
     {
+        if (this.hostname == null && this.address != null) {
+            this.hostname = this.address.getHostName();
+        }
+
         return this.hostname;
     }
+
+    /**
+     * Parses the port of the target, up to the next ':' if any.
+     *
+     * @param target IPv4:Port.
+     * @param start Position of the port.
+     * @return Port, or -1 if the target does not have a valid port.
+     */
+    private int parsePort(String target, int start) {
+        int end = target.indexOf(':', start);
+
+        if (end < 0) {
+            end = target.length();
+        }
+
+        if (start == end) {
+            return -1;
+        }
+
+        int port = 0;
+
+        for (int i = start; i < end; i++) {
+            char digit = target.charAt(i);
+
+            if (digit < '0' || digit > '9' || port > 65535) {
+                return -1;
+            }
+
+            port = port * 10 + (digit - '0');
+        }
+
+        return port;
+    }
 }
@@ -0,0 +1,146 @@
+package com.github.oxyzero.volt;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies the concurrency of a route to the threads handling its requests.
+ * The requests are handled in the thread that received them, which waits
+ * for its turn.
+ */
+class RouteExecutor {
+
+    /**
+     * Concurrency of the route.
+     */
+    private final Concurrency concurrency;
+
+    /**
+     * Turns of the route, or null if unbounded.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Lane of each requester with requests in the route, if ordered.
+     */
+    private final Map<String, Lane> lanes;
+
+    private final AtomicLong handled;
+
+    private final AtomicInteger waiting;
+
+    private final AtomicLong totalWait;
+
+    private final AtomicLong maxWait;
+
+    RouteExecutor(Concurrency concurrency) {
+        this.concurrency = concurrency;
+        // Fair, so the requests waiting for a turn are served in order.
+        this.permits = concurrency.limit() == 0 ? null : new Semaphore(concurrency.limit(), true);
+        this.lanes = new HashMap<>();
+        this.handled = new AtomicLong();
+        this.waiting = new AtomicInteger();
+        this.totalWait = new AtomicLong();
+        this.maxWait = new AtomicLong();
+    }
+
+    /**
+     * Handles a request when its turn comes.
+     *
+     * @param requester Requester IPv4:Port, used to order its requests.
+     * @param action Handles the request.
+     */
+    void execute(String requester, Runnable action) {
+        long start = System.nanoTime();
+        Lane lane = null;
+
+        this.waiting.incrementAndGet();
+
+        try {
+            if (this.concurrency.isOrdered()) {
+                lane = this.enter(requester);
+                lane.lock.lock();
+            }
+
+            if (this.permits != null) {
+                this.permits.acquireUninterruptibly();
+            }
+        } catch (RuntimeException | Error ex) {
+            this.leave(requester, lane);
+            this.waiting.decrementAndGet();
+            throw ex;
+        }
+
+        long wait = System.nanoTime() - start;
+
+        this.waiting.decrementAndGet();
+        this.handled.incrementAndGet();
+        this.totalWait.addAndGet(wait);
+        this.maxWait.accumulateAndGet(wait, Math::max);
+
+        try {
+            action.run();
+        } finally {
+            if (this.permits != null) {
+                this.permits.release();
+            }
+
+            this.leave(requester, lane);
+        }
+    }
+
+    /**
+     * Gets the statistics of the route.
+     *
+     * @param route Route.
+     * @return Route statistics.
+     */
+    RouteStats stats(String route) {
+        return new RouteStats(route, this.concurrency, this.handled.get(), this.waiting.get(), this.totalWait.get(), this.maxWait.get());
+    }
+
+    private Lane enter(String requester) {
+        synchronized (this.lanes) {
+            Lane lane = this.lanes.get(requester);
+
+            if (lane == null) {
+                lane = new Lane();
+                this.lanes.put(requester, lane);
+            }
+
+            lane.users++;
+
+            return lane;
+        }
+    }
+
+    private void leave(String requester, Lane lane) {
+        if (lane == null) {
+            return;
+        }
+
+        if (lane.lock.isHeldByCurrentThread()) {
+            lane.lock.unlock();
+        }
+
+        synchronized (this.lanes) {
+            if (--lane.users == 0) {
+                this.lanes.remove(requester);
+            }
+        }
+    }
+
+    /**
+     * Requests of a requester, handled one at a time in the order they arrive.
+     */
+    private static class Lane {
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        private int users;
+    }
+}
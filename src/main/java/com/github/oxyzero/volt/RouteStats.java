@@ -0,0 +1,113 @@
+package com.github.oxyzero.volt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of the requests handled by a route.
+ *
+ * @see Server#stats(String)
+ */
+public class RouteStats {
+
+    /**
+     * Route.
+     */
+    private final String route;
+
+    /**
+     * Concurrency of the route.
+     */
+    private final Concurrency concurrency;
+
+    /**
+     * Number of requests handled.
+     */
+    private final long handled;
+
+    /**
+     * Number of requests waiting to be handled.
+     */
+    private final int waiting;
+
+    /**
+     * Total time the handled requests waited, in nanoseconds.
+     */
+    private final long totalWait;
+
+    /**
+     * Longest time a request waited, in nanoseconds.
+     */
+    private final long maxWait;
+
+    public RouteStats(String route, Concurrency concurrency, long handled, int waiting, long totalWait, long maxWait) {
+        this.route = route;
+        this.concurrency = concurrency;
+        this.handled = handled;
+        this.waiting = waiting;
+        this.totalWait = totalWait;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Gets the route.
+     *
+     * @return Route.
+     */
+    public String route() {
+        return this.route;
+    }
+
+    /**
+     * Gets the concurrency of the route.
+     *
+     * @return Concurrency.
+     */
+    public Concurrency concurrency() {
+        return this.concurrency;
+    }
+
+    /**
+     * Gets the number of requests that started being handled.
+     *
+     * @return Number of handled requests.
+     */
+    public long handled() {
+        return this.handled;
+    }
+
+    /**
+     * Gets the number of requests waiting for their turn.
+     *
+     * @return Number of waiting requests.
+     */
+    public int waiting() {
+        return this.waiting;
+    }
+
+    /**
+     * Gets the average time a request waited for its turn.
+     *
+     * @param unit Time unit.
+     * @return Average queue wait.
+     */
+    public long averageWait(TimeUnit unit) {
+        return this.handled == 0 ? 0 : unit.convert(this.totalWait / this.handled, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the longest time a request waited for its turn.
+     *
+     * @param unit Time unit.
+     * @return Maximum queue wait.
+     */
+    public long maxWait(TimeUnit unit) {
+        return unit.convert(this.maxWait, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "RouteStats{route=" + this.route + ", " + this.concurrency + ", handled=" + this.handled
+                + ", waiting=" + this.waiting + ", averageWait=" + this.averageWait(TimeUnit.MICROSECONDS)
+                + "us, maxWait=" + this.maxWait(TimeUnit.MICROSECONDS) + "us}";
+    }
+}
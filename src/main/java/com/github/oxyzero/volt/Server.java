@@ -1,17 +1,44 @@
 package com.github.oxyzero.volt;
 
+import com.github.oxyzero.volt.middleware.AsyncMiddleware;
 import com.github.oxyzero.volt.middleware.Middleware;
+import com.github.oxyzero.volt.middleware.ResponseCacheMiddleware;
+import com.github.oxyzero.volt.support.Compressor;
 import com.github.oxyzero.volt.support.Container;
+import com.github.oxyzero.volt.support.Correlator;
+import com.github.oxyzero.volt.support.RoutePattern;
 import com.github.oxyzero.volt.support.ServiceProvider;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  *
  * @author Renato Machado
  */
 public abstract class Server {
+
+    /**
+     * Seconds to wait for the reply of a request, by default.
+     */
+    public static final int REQUEST_TIMEOUT = 5;
+
+    /**
+     * Server whose routes, middleware and services are used. The server
+     * itself, unless it serves one of the protocols of another server.
+     */
+    private final Server owner;
     
     /**
      * Dependency Injection.
@@ -24,26 +51,121 @@ public abstract class Server {
     protected final Map<String, List<Middleware>> middlewares;
 
     /**
-     * Routes.
+     * Compiled middleware chains, replaced whenever the middleware changes.
+     */
+    private volatile Pipeline pipeline;
+
+    /**
+     * Routes, replaced as a whole whenever they change.
+     */
+    private volatile RouteTable routes;
+
+    /**
+     * Concurrency of each route.
+     */
+    private final Map<String, RouteExecutor> executors;
+
+    /**
+     * Continues the requests whose asynchronous middleware completed in
+     * another thread, so the action never runs in a thread of the middleware.
+     */
+    private final Executor dispatcher;
+
+    /**
+     * Serializes the changes of the routes and of their concurrency.
+     */
+    private final Object routeLock;
+
+    /**
+     * Requests waiting for a reply.
      */
-    protected final Map<String, Connection> routes;
+    protected final Correlator correlator;
+
+    /**
+     * Compression of the messages sent.
+     */
+    protected final Compressor compressor;
 
     /**
      * Server connected port.
      */
-    protected int connectedPort;
+    protected volatile int connectedPort;
     
     /**
      * If the server is active.
      */
     protected boolean active;
 
+    /**
+     * If the server stopped accepting new requests and is finishing the pending ones.
+     */
+    protected volatile boolean draining;
+
+    /**
+     * Number of requests currently being handled.
+     */
+    private final AtomicInteger inFlight;
+
+    /**
+     * Number of requests handled to completion.
+     */
+    private final AtomicLong completed;
+
+    /**
+     * Notified when pending requests finish while the server is draining.
+     */
+    private final Object drained;
+
+    /**
+     * Number of times the pending requests changed while draining, guarded by drained.
+     */
+    private long changes;
+
     protected Server() {
+        this.owner = this;
         this.services = new Container();
         this.middlewares = new HashMap<>();
         this.active = false;
+        this.draining = false;
+        this.connectedPort = -1;
+        this.routes = new RouteTable(Collections.emptyMap());
+        this.executors = new ConcurrentHashMap<>();
+        this.dispatcher = dispatcher();
+        this.routeLock = new Object();
+        this.correlator = new Correlator();
+        this.compressor = new Compressor();
+        this.compile();
+        this.inFlight = new AtomicInteger();
+        this.completed = new AtomicLong();
+        this.drained = new Object();
+    }
+
+    /**
+     * Creates a server that shares the routes, middleware, concurrency,
+     * compression and services of another server, while replies and
+     * pending requests are kept apart.
+     *
+     * @param owner Server to share the routes with.
+     */
+    protected Server(Server owner) {
+        if (owner == null) {
+            throw new IllegalArgumentException("The server to share the routes with cannot be null.");
+        }
+
+        this.owner = owner.owner;
+        this.services = owner.services;
+        this.middlewares = owner.middlewares;
+        this.active = false;
+        this.draining = false;
         this.connectedPort = -1;
-        this.routes = new HashMap<>();
+        this.executors = owner.executors;
+        this.dispatcher = owner.dispatcher;
+        this.routeLock = owner.routeLock;
+        this.correlator = new Correlator();
+        this.compressor = owner.compressor;
+        this.inFlight = new AtomicInteger();
+        this.completed = new AtomicLong();
+        this.drained = new Object();
     }
 
     /**
@@ -67,15 +189,384 @@ public abstract class Server {
      */
     public abstract void stream(int port);
 
-    public abstract void listen(String route, Connection action);
+    /**
+     * Expects for a request to ask for this route.
+     *
+     * @param route Route.
+     * @param action Action to execute if the request matches this route.
+     */
+    public void listen(String route, Connection action)
+    {
+        if (route == null || action == null) {
+            throw new IllegalArgumentException("The route and its action cannot be null.");
+        }
+
+        synchronized (this.routeLock) {
+            Map<String, Connection> routes = this.routes();
+            routes.put(route, action);
+
+            this.owner.routes = new RouteTable(routes);
+        }
+    }
+
+    /**
+     * Expects for a request to ask for this route.
+     *
+     * @param route Route.
+     * @param action Action to execute if the request matches this route.
+     */
+    public void listen(String route, Consumer<Request> action)
+    {
+        this.listen(route, new Connection() {
+            @Override
+            public void run(Request request) {
+                action.accept(request);
+            }
+        });
+    }
+
+    /**
+     * Expects for a request to ask for this route, handling its requests
+     * with the given concurrency.
+     *
+     * @param route Route.
+     * @param action Action to execute if the request matches this route.
+     * @param concurrency How many requests of the route are handled at the same time.
+     */
+    public void listen(String route, Connection action, Concurrency concurrency)
+    {
+        if (concurrency == null) {
+            throw new IllegalArgumentException("The concurrency of a route cannot be null.");
+        }
+
+        synchronized (this.routeLock) {
+            this.executors.put(route, new RouteExecutor(concurrency));
+            this.listen(route, action);
+        }
+    }
+
+    /**
+     * Expects for a request to ask for this route, handling its requests
+     * with the given concurrency.
+     *
+     * @param route Route.
+     * @param action Action to execute if the request matches this route.
+     * @param concurrency How many requests of the route are handled at the same time.
+     */
+    public void listen(String route, Consumer<Request> action, Concurrency concurrency)
+    {
+        this.listen(route, new Connection() {
+            @Override
+            public void run(Request request) {
+                action.accept(request);
+            }
+        }, concurrency);
+    }
+
+    /**
+     * Neglects an expected route.
+     *
+     * @param route Route to be neglected.
+     */
+    public void forget(String route)
+    {
+        synchronized (this.routeLock) {
+            Map<String, Connection> routes = this.routes();
+            routes.remove(route);
+
+            this.owner.routes = new RouteTable(routes);
+            this.executors.remove(route);
+        }
+
+        this.dropMiddlewares(route);
+    }
+
+    /**
+     * Replaces every route at once. Requests being received keep being
+     * handled, each by either the previous or the new routes. The middleware
+     * of the routes is kept, the concurrency of the routes that were removed
+     * is dropped.
+     *
+     * @param routes Actions by route.
+     */
+    public void reload(Map<String, Connection> routes)
+    {
+        for (Map.Entry<String, Connection> route : routes.entrySet()) {
+            if (route.getKey() == null || route.getValue() == null) {
+                throw new IllegalArgumentException("The route and its action cannot be null.");
+            }
+        }
+
+        synchronized (this.routeLock) {
+            this.owner.routes = new RouteTable(routes);
+            this.executors.keySet().retainAll(routes.keySet());
+        }
+    }
+
+    /**
+     * Gets all of the routes.
+     *
+     * @return Copy of the actions by route.
+     */
+    public Map<String, Connection> routes()
+    {
+        Map<String, Connection> routes = new HashMap<>();
+
+        for (Route route : this.owner.routes.byName.values()) {
+            routes.put(route.name, route.action);
+        }
+
+        return routes;
+    }
+
+    /**
+     * Finds a route by its name, without locking.
+     *
+     * @param name Route.
+     * @return Route, or null if the server does not listen to it.
+     */
+    protected Route route(String name)
+    {
+        return this.owner.routes.byName.get(name);
+    }
+
+    /**
+     * Finds a route by the checksum that identifies it in the UDP packets,
+     * without locking.
+     *
+     * @param checksum CRC32 of the route.
+     * @return Route, or null if the server does not listen to it.
+     */
+    protected Route routeByChecksum(String checksum)
+    {
+        return this.owner.routes.byChecksum.get(checksum);
+    }
+
+    /**
+     * Gets the concurrency of the routes listened without one.
+     *
+     * @return Default concurrency.
+     */
+    protected Concurrency concurrency()
+    {
+        return Concurrency.unbounded();
+    }
+
+    /**
+     * Runs the action of a request once the concurrency of its route allows.
+     *
+     * @param action Action of the route.
+     * @param request Request to handle.
+     */
+    protected void execute(Connection action, Request request)
+    {
+        RouteExecutor executor = this.executors.computeIfAbsent(request.route(), route -> new RouteExecutor(this.owner.concurrency()));
+
+        executor.execute(request.requester().target(), () -> action.run(request));
+    }
 
-    public abstract void listen(String route, Consumer<Request> action);
+    /**
+     * Gets the statistics of a route, including how long its requests wait
+     * for their turn.
+     *
+     * @param route Route.
+     * @return Route statistics, or null if the route did not handle requests yet.
+     */
+    public RouteStats stats(String route)
+    {
+        RouteExecutor executor = this.executors.get(route);
 
-    public abstract void forget(String route);
+        return executor == null ? null : executor.stats(route);
+    }
     
     public abstract void send(String route, String target, String message);
+
+    /**
+     * Sends the same message to many targets. The protocols run the before
+     * middleware and encode the message only once for every target.
+     *
+     * @param route Route the message is targeted for.
+     * @param targets IPv4:Port of each target.
+     * @param message Message.
+     */
+    public void send(String route, Collection<String> targets, String message) {
+        for (String target : targets) {
+            this.send(route, target, message);
+        }
+    }
+
+    /**
+     * Sends a request to the target and waits asynchronously for its reply.
+     * The reply is given by the target route through Request.reply.
+     *
+     * @param route Route the request is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     * @param timeout Seconds to wait for the reply.
+     * @return Future completed with the reply, or failed if the timeout expires.
+     */
+    public abstract CompletableFuture<Request> request(String route, String target, String message, int timeout);
+
+    /**
+     * Sends a request to the target and waits asynchronously for its reply.
+     *
+     * @param route Route the request is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     * @return Future completed with the reply, or failed if no reply arrives in time.
+     */
+    public CompletableFuture<Request> request(String route, String target, String message) {
+        return this.request(route, target, message, REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Fails every request that is waiting for a reply.
+     */
+    protected void closeRequests() {
+        this.correlator.close();
+    }
     
     public abstract void shutdown();
+
+    /**
+     * Stops accepting new requests, while the pending ones keep being served.
+     */
+    protected abstract void stopAccepting();
+
+    /**
+     * Aborts every request that is still pending.
+     */
+    protected abstract void abortPending();
+
+    /**
+     * Gets the number of requests that are still pending.
+     *
+     * @return Number of pending requests.
+     */
+    protected int pending() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Marks the start of the handling of a request.
+     */
+    protected void requestStarted() {
+        this.inFlight.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of the handling of a request.
+     *
+     * @param completed True if the request was handled to completion.
+     */
+    protected void requestFinished(boolean completed) {
+        if (completed) {
+            this.completed.incrementAndGet();
+        }
+
+        this.inFlight.decrementAndGet();
+
+        this.pendingChanged();
+    }
+
+    /**
+     * Wakes up the drain, if any, to check the pending requests again. Must
+     * be called whenever requests stop being pending.
+     */
+    protected void pendingChanged() {
+        if (! this.draining) {
+            return;
+        }
+
+        synchronized (this.drained) {
+            this.changes++;
+            this.drained.notifyAll();
+        }
+    }
+
+    /**
+     * Shuts the server down gracefully. The server stops accepting new
+     * requests and keeps serving the pending ones until they finish or the
+     * deadline is reached, after which the remaining ones are aborted.
+     *
+     * @param timeout Milliseconds to wait for the pending requests.
+     * @return Number of requests completed and aborted while draining.
+     */
+    public DrainReport drain(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The drain timeout cannot be negative.");
+        }
+
+        long before = this.completed.get();
+        long deadline = System.currentTimeMillis() + timeout;
+
+        this.draining = true;
+        this.stopAccepting();
+
+        // Woken up by pendingChanged, so the drain ends as soon as the last request does.
+        while (this.awaitPending(deadline)) {
+            // Checks the pending requests again.
+        }
+
+        long aborted = this.pending();
+
+        if (aborted > 0) {
+            this.abortPending();
+        }
+
+        this.shutdown();
+        this.draining = false;
+
+        return new DrainReport(this.completed.get() - before, aborted);
+    }
+
+    /**
+     * Waits for the pending requests to change. The pending requests are not
+     * counted while holding the monitor, since counting them may take the
+     * locks of the protocol that call pendingChanged.
+     *
+     * @param deadline Time to stop waiting at, in milliseconds.
+     * @return True if there are still pending requests to wait for, false otherwise.
+     */
+    private boolean awaitPending(long deadline) {
+        long seen;
+
+        synchronized (this.drained) {
+            seen = this.changes;
+        }
+
+        if (this.pending() == 0) {
+            return false;
+        }
+
+        synchronized (this.drained) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                return false;
+            }
+
+            try {
+                if (this.changes == seen) {
+                    this.drained.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns if the server is currently draining.
+     *
+     * @return True if the server is draining, false otherwise.
+     */
+    public boolean isDraining() {
+        return this.draining;
+    }
     
     /**
      * Returns if the server is currently working.
@@ -86,6 +577,16 @@ public abstract class Server {
         return this.active;
     }
     
+    /**
+     * Gets the compression settings of the messages sent by the server.
+     * Compressed messages are always decompressed when received.
+     *
+     * @return Compression settings.
+     */
+    public Compressor compression() {
+        return this.compressor;
+    }
+
     /**
      * Registers a service that Volt can use.
      * 
@@ -113,6 +614,56 @@ public abstract class Server {
     }
 
 
+    /**
+     * Registers a service that Volt can use, with the given lifetime.
+     * Request scoped services are resolved with their request.
+     *
+     * @param key Service key.
+     * @param provider Service Provider.
+     * @param scope Lifetime of the service. Pooled services are registered with pooled.
+     */
+    public void register(String key, ServiceProvider<Object> provider, Container.Scope scope) {
+        if (scope == null) {
+            throw new IllegalArgumentException("The service scope cannot be null.");
+        }
+
+        switch (scope) {
+            case SINGLETON:
+                this.services.singleton(key, provider);
+                break;
+            case REQUEST:
+                this.services.scoped(key, provider);
+                break;
+            case POOLED:
+                throw new IllegalArgumentException("Pooled services need a pool size, register them with pooled.");
+            default:
+                this.services.register(key, provider);
+        }
+    }
+
+    /**
+     * Registers a pooled service that Volt can use. The instances resolved
+     * for a request are reset and returned to the pool once the request is
+     * handled.
+     *
+     * @param key Service key.
+     * @param provider Service Provider.
+     * @param size Maximum number of idle instances kept.
+     * @param reset Resets an instance before it returns to the pool, or null.
+     */
+    public void pooled(String key, ServiceProvider<Object> provider, int size, Consumer<Object> reset) {
+        this.services.pooled(key, provider, size, reset);
+    }
+
+    /**
+     * Freezes the service container once every service is registered, so
+     * the services are resolved from an immutable table.
+     */
+    public void freezeServices()
+    {
+        this.services.freeze();
+    }
+
     /**
      * Resolves the given key from the service container.
      * 
@@ -123,6 +674,20 @@ public abstract class Server {
     {
         return this.services.resolve(key);
     }
+
+    /**
+     * Resolves the given key from the service container, for a request.
+     * Request scoped and pooled services are released once the request is
+     * handled.
+     *
+     * @param key Service key.
+     * @param request Request being handled.
+     * @return Service result.
+     */
+    public Object resolve(String key, Request request)
+    {
+        return this.services.resolve(key, request);
+    }
     
     /**
      * Creates a new middleware for a given route.
@@ -139,24 +704,103 @@ public abstract class Server {
             }
 
             this.middlewares.get(route).addAll(Arrays.asList(middlewares));
+
+            this.compile();
         }
     }
-    
+
     /**
-     * Gets the middleware of a route.
-     * 
-     * @param route Route.
-     * @return Routes middleware, or null if no route was found.
+     * Drops all the middleware of a given route.
+     *
+     * @param route Route that have middleware associated.
+     */
+    protected void dropMiddlewares(String route)
+    {
+        synchronized (this.middlewares) {
+            this.middlewares.remove(route);
+
+            this.compile();
+        }
+    }
+
+    /**
+     * Compiles the middleware chain of every route and publishes it. Each
+     * chain holds, in order, the wildcard middleware, the route middleware,
+     * the global wildcard middleware and the global route middleware.
+     * Routes without middleware of their own share the wildcard chain.
      */
-    private List<Middleware> getRouteMiddleware(String route)
+    private void compile()
     {
         synchronized (this.middlewares) {
-            if (this.middlewares.containsKey(route)) {
-                return this.middlewares.get(route);
+            long version = Volt.middlewareVersion();
+            Map<String, List<Middleware>> global = Volt.middlewares();
+
+            Set<String> routes = new HashSet<>(this.middlewares.keySet());
+            routes.addAll(global.keySet());
+            routes.remove("*");
+
+            Map<String, Middleware[]> chains = new HashMap<>();
+
+            for (String route : routes) {
+                chains.put(route, this.chain(route, global));
             }
+
+            this.owner.pipeline = new Pipeline(version, chains, this.chain("*", global));
+        }
+    }
+
+    /**
+     * Builds the middleware chain of a route.
+     *
+     * @param route Route.
+     * @param global Global middleware.
+     * @return Middleware chain.
+     */
+    private Middleware[] chain(String route, Map<String, List<Middleware>> global)
+    {
+        List<Middleware> chain = new ArrayList<>();
+
+        this.append(chain, this.middlewares.get("*"));
+
+        if (! route.equals("*")) {
+            this.append(chain, this.middlewares.get(route));
+        }
+
+        this.append(chain, global.get("*"));
+
+        if (! route.equals("*")) {
+            this.append(chain, global.get(route));
+        }
+
+        return chain.toArray(new Middleware[chain.size()]);
+    }
+
+    private void append(List<Middleware> chain, List<Middleware> middlewares)
+    {
+        if (middlewares != null) {
+            chain.addAll(middlewares);
+        }
+    }
+
+    /**
+     * Gets the compiled middleware chain of a route. The chains are
+     * recompiled only if the global middleware changed since they were built.
+     *
+     * @param route Route.
+     * @return Middleware chain.
+     */
+    protected Middleware[] pipeline(String route)
+    {
+        Pipeline pipeline = this.owner.pipeline;
+
+        if (pipeline.version != Volt.middlewareVersion()) {
+            this.compile();
+            pipeline = this.owner.pipeline;
         }
-        
-        return null;
+
+        Middleware[] chain = pipeline.chains.get(route);
+
+        return chain == null ? pipeline.wildcard : chain;
     }
     
     /**
@@ -166,87 +810,348 @@ public abstract class Server {
      */
     protected void executeBeforeMiddlewares(Request request)
     {
-        synchronized (this.middlewares) {
-            List<Middleware> middlewares = getRouteMiddleware("*");
-            
-            if (middlewares != null) {
-                // Execute all of the wildcard middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.before(request, services);
-                }
+        for (Middleware middleware : this.pipeline(request.route())) {
+            middleware.before(request, services);
+        }
+    }
+    
+    /**
+     * Executes the before middleware of a received reply, waiting for the
+     * asynchronous ones.
+     *
+     * @param reply Received reply.
+     * @return True if the reply went through every middleware, false if one stopped it.
+     */
+    protected boolean executeReplyMiddlewares(Request reply)
+    {
+        try {
+            return this.before(reply, this.pipeline(reply.route()), 0).toCompletableFuture().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
-            
-            middlewares = getRouteMiddleware(request.route());
-            
-            if (middlewares != null) {
-                // Execute all the before middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.before(request, services);
-                }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Executes all after middleware.
+     *
+     * @param request Request data.
+     */
+    protected void executeAfterMiddlewares(Request request) {
+        try {
+            for (Middleware middleware : this.pipeline(request.route())) {
+                middleware.after(request, services);
             }
-            
-            middlewares = Volt.getRouteMiddlewares("*");
+        } finally {
+            this.services.release(request);
+        }
+    }
 
-            if (middlewares != null) {
-                // Execute all of the global wildcard middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.before(request, services);
-                }
+    /**
+     * Returns if any middleware of a route changes the messages sent
+     * depending on their target.
+     *
+     * @param route Route.
+     * @return True if the messages of the route must be built for each target.
+     */
+    protected boolean isTargeted(String route)
+    {
+        for (Middleware middleware : this.pipeline(route)) {
+            if (middleware.isTargeted()) {
+                return true;
             }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sends a message to each target at the same time, for the routes whose
+     * messages are built for each target. A target that fails, such as one
+     * that does not answer a handshake, does not stop the others.
+     *
+     * @param targets Targets defined by IPv4:Port.
+     * @param send Sends the message to one target.
+     * @throws IllegalArgumentException If the message could not be sent to some target.
+     */
+    protected void sendEach(Collection<String> targets, Consumer<String> send)
+    {
+        Map<String, CompletableFuture<Void>> sends = new LinkedHashMap<>();
 
-            middlewares = Volt.getRouteMiddlewares(request.route());
+        for (String target : targets) {
+            sends.put(target, CompletableFuture.runAsync(() -> send.accept(target), this.dispatcher));
+        }
+
+        IllegalArgumentException failure = null;
 
-            if (middlewares != null) {
-                // Execute all the before global middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.before(request, services);
+        for (Map.Entry<String, CompletableFuture<Void>> entry : sends.entrySet()) {
+            try {
+                entry.getValue().join();
+            } catch (CompletionException ex) {
+                if (failure == null) {
+                    failure = new IllegalArgumentException("The message could not be sent to " + entry.getKey() + ".", ex.getCause());
+                } else {
+                    failure.addSuppressed(ex.getCause());
                 }
             }
         }
+
+        if (failure != null) {
+            throw failure;
+        }
     }
-    
+
     /**
-     * Executes all after middleware.
+     * Removes the cached replies of a route from every response cache
+     * applied to it.
      *
-     * @param request Request data.
+     * @param route Route.
      */
-    protected void executeAfterMiddlewares(Request request) {
-        synchronized (this.middlewares) {
-            List<Middleware> middlewares = getRouteMiddleware("*");
+    public void invalidate(String route)
+    {
+        for (Middleware middleware : this.pipeline(route)) {
+            if (middleware instanceof ResponseCacheMiddleware) {
+                ((ResponseCacheMiddleware) middleware).invalidate(route);
+            }
+        }
+    }
 
-            if (middlewares != null) {
-                // Execute all of the wildcard middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.after(request, services);
-                }
+    /**
+     * Removes the cached reply of a request from every response cache
+     * applied to its route.
+     *
+     * @param route Route.
+     * @param key Message, or the values of the key variables separated by "|".
+     */
+    public void invalidate(String route, String key)
+    {
+        for (Middleware middleware : this.pipeline(route)) {
+            if (middleware instanceof ResponseCacheMiddleware) {
+                ((ResponseCacheMiddleware) middleware).invalidate(route, key);
             }
+        }
+    }
+
+    /**
+     * Handles a received request: executes the before middleware, the action
+     * of the route and the after middleware. Asynchronous middleware are
+     * chained without blocking the calling thread, so the request may still
+     * be handled after this method returns, in a thread of the server.
+     *
+     * @param action Action of the route.
+     * @param request Received request.
+     * @return Future completed with true once the request was handled, or
+     * false if a middleware stopped it.
+     */
+    protected CompletableFuture<Boolean> dispatch(Connection action, Request request)
+    {
+        Middleware[] chain = this.pipeline(request.route());
 
-            middlewares = getRouteMiddleware(request.route());
+        try {
+            CompletableFuture<Boolean> before = this.before(request, chain, 0).toCompletableFuture();
 
-            if (middlewares != null) {
-                // Execute all the after middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.after(request, services);
+            Function<Boolean, CompletionStage<Boolean>> handle = proceed -> {
+                if (! proceed) {
+                    return CompletableFuture.completedFuture(false);
                 }
+
+                this.execute(action, request);
+
+                return this.after(request, chain, 0).thenApply(done -> true);
+            };
+
+            // Pending middleware continue in the dispatcher, completed ones in this thread.
+            CompletableFuture<Boolean> handled = this.isDone(before)
+                    ? before.thenCompose(handle)
+                    : before.thenComposeAsync(handle, this.dispatcher);
+
+            return handled.whenComplete((result, error) -> this.services.release(request));
+        } catch (RuntimeException ex) {
+            this.services.release(request);
+
+            CompletableFuture<Boolean> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+
+            return failed;
+        }
+    }
+
+    /**
+     * Executes the before middleware, starting at the given position.
+     *
+     * @param request Request data.
+     * @param chain Middleware chain.
+     * @param from First middleware to execute.
+     * @return Stage completed with true to continue, or false to stop the request.
+     */
+    private CompletionStage<Boolean> before(Request request, Middleware[] chain, int from)
+    {
+        for (int i = from; i < chain.length; i++) {
+            if (! (chain[i] instanceof AsyncMiddleware)) {
+                chain[i].before(request, services);
+                continue;
             }
-            
-            middlewares = Volt.getRouteMiddlewares("*");
 
-            if (middlewares != null) {
-                // Execute all of the global wildcard middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.after(request, services);
+            CompletionStage<Boolean> stage = ((AsyncMiddleware) chain[i]).beforeAsync(request, services);
+
+            if (stage instanceof CompletableFuture && this.isDone((CompletableFuture<Boolean>) stage)) {
+                // Completed stages are followed in this thread, without chaining.
+                if (Boolean.FALSE.equals(((CompletableFuture<Boolean>) stage).join())) {
+                    return CompletableFuture.completedFuture(false);
                 }
+
+                continue;
             }
 
-            middlewares = Volt.getRouteMiddlewares(request.route());
+            final int next = i + 1;
 
-            if (middlewares != null) {
-                // Execute all the after global middleware.
-                for (Middleware middleware : middlewares) {
-                    middleware.after(request, services);
-                }
+            return stage.thenComposeAsync(proceed -> Boolean.FALSE.equals(proceed)
+                    ? CompletableFuture.completedFuture(false)
+                    : this.before(request, chain, next), this.dispatcher);
+        }
+
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * Executes the after middleware, starting at the given position.
+     *
+     * @param request Request data.
+     * @param chain Middleware chain.
+     * @param from First middleware to execute.
+     * @return Stage completed when every middleware is done.
+     */
+    private CompletionStage<Void> after(Request request, Middleware[] chain, int from)
+    {
+        for (int i = from; i < chain.length; i++) {
+            if (! (chain[i] instanceof AsyncMiddleware)) {
+                chain[i].after(request, services);
+                continue;
+            }
+
+            CompletionStage<Void> stage = ((AsyncMiddleware) chain[i]).afterAsync(request, services);
+
+            if (stage instanceof CompletableFuture && this.isDone((CompletableFuture<Void>) stage)) {
+                continue;
+            }
+
+            final int next = i + 1;
+
+            return stage.thenComposeAsync(done -> this.after(request, chain, next), this.dispatcher);
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private boolean isDone(CompletableFuture<?> future)
+    {
+        return future.isDone() && ! future.isCompletedExceptionally();
+    }
+
+    /**
+     * Creates the executor that continues the requests after their
+     * asynchronous middleware. Its threads are created on demand, as the
+     * actions may wait for the concurrency of their route, and end once idle.
+     *
+     * @return Dispatcher.
+     */
+    private static Executor dispatcher()
+    {
+        final AtomicInteger count = new AtomicInteger();
+
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+            Thread thread = new Thread(task, "volt-dispatch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    /**
+     * A route the server listens to.
+     */
+    protected static final class Route {
+
+        /**
+         * Route.
+         */
+        public final String name;
+
+        /**
+         * Action to execute if a request matches the route.
+         */
+        public final Connection action;
+
+        /**
+         * Compiled route.
+         */
+        public final RoutePattern pattern;
+
+        private Route(String name, Connection action) {
+            this.name = name;
+            this.action = action;
+            this.pattern = new RoutePattern(name);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the routes, read without locking.
+     */
+    private static final class RouteTable {
+
+        /**
+         * Routes by name.
+         */
+        private final Map<String, Route> byName;
+
+        /**
+         * Routes by checksum.
+         */
+        private final Map<String, Route> byChecksum;
+
+        private RouteTable(Map<String, Connection> actions) {
+            Map<String, Route> byName = new HashMap<>();
+            Map<String, Route> byChecksum = new HashMap<>();
+
+            for (Map.Entry<String, Connection> action : actions.entrySet()) {
+                Route route = new Route(action.getKey(), action.getValue());
+
+                byName.put(route.name, route);
+                byChecksum.put(route.pattern.checksum(), route);
             }
+
+            this.byName = byName;
+            this.byChecksum = byChecksum;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the middleware chains.
+     */
+    private static final class Pipeline {
+
+        /**
+         * Version of the global middleware used to build the chains.
+         */
+        private final long version;
+
+        /**
+         * Middleware chain by route.
+         */
+        private final Map<String, Middleware[]> chains;
+
+        /**
+         * Middleware chain of the routes without middleware of their own.
+         */
+        private final Middleware[] wildcard;
+
+        private Pipeline(long version, Map<String, Middleware[]> chains, Middleware[] wildcard) {
+            this.version = version;
+            this.chains = chains;
+            this.wildcard = wildcard;
         }
     }
     
@@ -1,7 +1,9 @@
 package com.github.oxyzero.volt;
 
 import com.github.oxyzero.volt.middleware.Middleware;
+import com.github.oxyzero.volt.protocols.dual.DualServer;
 import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.tls.TlsServer;
 import com.github.oxyzero.volt.protocols.udp.UdpServer;
 import com.github.oxyzero.volt.support.ClientFactory;
 import com.github.oxyzero.volt.support.ServerFactory;
@@ -10,7 +12,10 @@ import com.github.oxyzero.volt.support.TaskManager;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Volt allows to manage servers and extend them in the lifetime of a application.
@@ -20,21 +25,26 @@ import java.util.*;
 public class Volt {
     
     /**
-     * Current active Volt services.
+     * Current active Volt services, read without locking.
      */ 
-    private static final Map<Integer, Server> instances = new HashMap<>();
+    private static final Map<Integer, Server> instances = new ConcurrentHashMap<>();
 
     /**
      * Volt global middleware.
      */
     private final static Map<String, List<Middleware>> middlewares = new HashMap<>();
 
+    /**
+     * Version of the global middleware, increased on every change.
+     */
+    private static volatile long middlewareVersion = 0;
+
     /**
      * Generates a server based on its protocol.
      *
      * If the server was already instantiated, it returns the server.
      *
-     * @param protocol Server protocol.
+     * @param protocol Server protocol (udp, tcp, tls or dual, for udp and tcp on the same port).
      * @param port Server port.
      * @return Server
      */
@@ -44,25 +54,40 @@ public class Volt {
             throw new IllegalArgumentException("Invalid port was given.");
         }
 
-        if (instances.containsKey(port)) {
-            Server server = instances.get(port);
+        Server server = instances.get(port);
 
-            if (server instanceof UdpServer && protocol.equalsIgnoreCase("udp")) {
-                return server;
-            }
+        if (server == null) {
+            // Only one server may be created for each port.
+            synchronized (instances) {
+                server = instances.get(port);
 
-            if (server instanceof TcpServer && protocol.equalsIgnoreCase("tcp")) {
-                return server;
+                if (server == null) {
+                    server = new ServerFactory().make(protocol, port);
+
+                    instances.put(port, server);
+
+                    return server;
+                }
             }
+        }
+
+        if (server instanceof UdpServer && protocol.equalsIgnoreCase("udp")) {
+            return server;
+        }
 
-            throw new IllegalArgumentException("The port " + port + " is associated with another protocol.");
+        if (server instanceof TlsServer && protocol.equalsIgnoreCase("tls")) {
+            return server;
         }
 
-        Server server = new ServerFactory().make(protocol, port);
+        if (server instanceof TcpServer && ! (server instanceof TlsServer) && protocol.equalsIgnoreCase("tcp")) {
+            return server;
+        }
 
-        instances.put(port, server);
+        if (server instanceof DualServer && protocol.equalsIgnoreCase("dual")) {
+            return server;
+        }
 
-        return server;
+        throw new IllegalArgumentException("The port " + port + " is associated with another protocol.");
     }
 
     /**
@@ -95,13 +120,34 @@ public class Volt {
      */
     public static void stop(int port)
     {
-        synchronized (instances) {
-            if (! instances.containsKey(port)) {
-                throw new IllegalArgumentException("Volt does not know about any service running on port " + port);
-            }
-            
-            instances.get(port).shutdown();
+        Server server = instances.get(port);
+
+        if (server == null) {
+            throw new IllegalArgumentException("Volt does not know about any service running on port " + port);
+        }
+
+        server.shutdown();
+    }
+    
+    /**
+     * Drains a service on the given port, but maintains it's instance stored.
+     * The service stops accepting requests and finishes the pending ones
+     * before being stopped.
+     * If no service exists on the given port, it throws an exception.
+     *
+     * @param port Service port.
+     * @param timeout Milliseconds to wait for the pending requests.
+     * @return Number of requests completed and aborted while draining.
+     */
+    public static DrainReport drain(int port, long timeout)
+    {
+        Server server = instances.get(port);
+
+        if (server == null) {
+            throw new IllegalArgumentException("Volt does not know about any service running on port " + port);
         }
+
+        return server.drain(timeout);
     }
     
     /**
@@ -114,9 +160,7 @@ public class Volt {
     {
         Volt.stop(port);
         
-        synchronized (instances) {
-            instances.remove(port);
-        }
+        instances.remove(port);
     }
 
     /**
@@ -128,10 +172,37 @@ public class Volt {
      * @param after Number of seconds to kill the service.
      */
     public static void kill(int port, int after)
+    {
+        Volt.kill(port, after, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Kills a service on the given port, and deletes it's instance
+     * after the given period of time.
+     * If no service exists on the given port, it throws an exception.
+     *
+     * @param port Service port.
+     * @param after Time to kill the service.
+     */
+    public static void kill(int port, Duration after)
+    {
+        Volt.kill(port, after.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Kills a service on the given port, and deletes it's instance
+     * after the given period of time.
+     * If no service exists on the given port, it throws an exception.
+     *
+     * @param port Service port.
+     * @param after Time to kill the service.
+     * @param unit Time unit.
+     */
+    public static void kill(int port, long after, TimeUnit unit)
     {
         TaskManager tm = new TaskManager();
 
-        tm.after(after).once(new Task() {
+        tm.after(after, unit).once(new Task() {
             @Override
             public void fire() {
                 Volt.kill(port);
@@ -155,6 +226,8 @@ public class Volt {
             }
 
             Volt.middlewares.get(route).addAll(Arrays.asList(middlewares));
+
+            Volt.middlewareVersion++;
         }
     }
     
@@ -165,8 +238,12 @@ public class Volt {
      */
     public static void dropMiddlewares(String route)
     {
-        if (Volt.middlewares.containsKey(route)) {
-            Volt.middlewares.remove(route);
+        synchronized (Volt.middlewares) {
+            if (Volt.middlewares.containsKey(route)) {
+                Volt.middlewares.remove(route);
+
+                Volt.middlewareVersion++;
+            }
         }
     }
     
@@ -186,6 +263,33 @@ public class Volt {
         return null;
     }
     
+    /**
+     * Gets a copy of the global middleware of Volt.
+     *
+     * @return Global middleware by route.
+     */
+    static Map<String, List<Middleware>> middlewares() {
+        synchronized (Volt.middlewares) {
+            Map<String, List<Middleware>> copy = new HashMap<>();
+
+            for (Map.Entry<String, List<Middleware>> entry : Volt.middlewares.entrySet()) {
+                copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+
+            return copy;
+        }
+    }
+
+    /**
+     * Gets the version of the global middleware, which changes every time
+     * a global middleware is added or dropped.
+     *
+     * @return Global middleware version.
+     */
+    static long middlewareVersion() {
+        return Volt.middlewareVersion;
+    }
+    
     /**
      * Returns the current localhost IPv4.
      * 
@@ -0,0 +1,71 @@
+package com.github.oxyzero.volt.middleware;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.support.Container;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A middleware that filters the received requests asynchronously, such as
+ * one that asks a remote service if the requester is authorized.
+ *
+ * The server chains the stages returned by the middleware, so the thread that
+ * received the request is not blocked while they are pending. A middleware may
+ * also stop the request, rejecting it or replying to it by itself, in which
+ * case the action of the route is never executed.
+ *
+ * When the middleware is applied to a message being sent, its stages are
+ * waited for by the sending thread.
+ */
+public interface AsyncMiddleware extends Middleware {
+
+    /**
+     * Triggers before the execution of a request.
+     *
+     * @param request The received request.
+     * @param container The server dependencies.
+     * @return Stage completed with true to continue handling the request, or false to stop it.
+     */
+    CompletionStage<Boolean> beforeAsync(Request request, Container container);
+
+    /**
+     * Triggers after the execution of a request.
+     *
+     * @param request The received request.
+     * @param container The server dependencies.
+     * @return Stage completed when the middleware is done.
+     */
+    default CompletionStage<Void> afterAsync(Request request, Container container) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    default void before(Request request, Container container) {
+        this.beforeAsync(request, container).toCompletableFuture().join();
+    }
+
+    @Override
+    default void after(Request request, Container container) {
+        this.afterAsync(request, container).toCompletableFuture().join();
+    }
+
+    /**
+     * Continues handling the request.
+     *
+     * @return Completed stage.
+     */
+    static CompletionStage<Boolean> proceed() {
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * Stops the request, the action of the route and the remaining
+     * middleware are not executed.
+     *
+     * @return Completed stage.
+     */
+    static CompletionStage<Boolean> stop() {
+        return CompletableFuture.completedFuture(false);
+    }
+}
@@ -3,20 +3,47 @@ package com.github.oxyzero.volt.middleware;
 import com.github.oxyzero.volt.Request;
 import com.github.oxyzero.volt.support.Container;
 import com.github.oxyzero.volt.support.Encrypter;
+import com.github.oxyzero.volt.support.SessionKeys;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionStage;
 
 /**
  * This middleware allows the decryption of a message before the action is executed.
+ * Messages that cannot be decrypted, or fail authentication, are dropped
+ * before they reach the action.
  * 
  * @author Renato Machado
  */
-public class MessageDecryptionMiddleware implements Middleware {
+public class MessageDecryptionMiddleware implements AsyncMiddleware {
     
     /**
      * Encryption key.
      */
-    private final String key;
+    private final byte[] key;
+
+    /**
+     * Encrypter shared by every request.
+     */
+    private final Encrypter encrypter;
+
+    /**
+     * Session keys agreed with each peer, or null if every peer shares the key.
+     */
+    private final SessionKeys sessions;
 
     public MessageDecryptionMiddleware(String key) {
+        this(key, Encrypter.Mode.ECB);
+    }
+
+    /**
+     * Creates the middleware with the given cipher mode. Both ends must use
+     * the same mode.
+     *
+     * @param key Encryption key, with 16 characters.
+     * @param mode Cipher mode.
+     */
+    public MessageDecryptionMiddleware(String key, Encrypter.Mode mode) {
         if (key == null) {
             throw new IllegalArgumentException("The encryption key cannot be null.");
         }
@@ -25,22 +52,47 @@ public class MessageDecryptionMiddleware implements Middleware {
             throw new IllegalArgumentException("The encryption key must have 16 characters.");
         }
         
-        this.key = key;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        this.encrypter = new Encrypter(mode);
+        this.sessions = null;
+    }
+
+    /**
+     * Creates the middleware with a session key per peer, agreed on the
+     * first message exchanged with it. Both ends must use session keys.
+     *
+     * @param sessions Session keys of the server.
+     */
+    public MessageDecryptionMiddleware(SessionKeys sessions) {
+        if (sessions == null) {
+            throw new IllegalArgumentException("The session keys cannot be null.");
+        }
+
+        this.key = null;
+        this.encrypter = null;
+        this.sessions = sessions;
     }
 
     @Override
-    public void before(Request request, Container container) {
+    public CompletionStage<Boolean> beforeAsync(Request request, Container container) {
         String message = request.message();
+
+        if (SessionKeys.HANDSHAKE_ROUTE.equals(request.route()) && this.sessions != null) {
+            return AsyncMiddleware.proceed();
+        }
         
         try {
-            Encrypter encrypter = new Encrypter();
-
-            String decryptedMessage = encrypter.decrypt(message, key);
+            String decryptedMessage = this.sessions != null
+                    ? this.sessions.decrypt(request.requester(), message)
+                    : this.encrypter.decrypt(message, this.key);
 
             request.message(decryptedMessage);
         } catch (Exception e) {
-            // Ignore the exception and don't do anything with the message.
+            // The message was not encrypted for this server, or was tampered with.
+            return AsyncMiddleware.stop();
         }
+
+        return AsyncMiddleware.proceed();
     }
 
     @Override
@@ -3,6 +3,9 @@ package com.github.oxyzero.volt.middleware;
 import com.github.oxyzero.volt.Request;
 import com.github.oxyzero.volt.support.Container;
 import com.github.oxyzero.volt.support.Encrypter;
+import com.github.oxyzero.volt.support.SessionKeys;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * This middleware allows the encryption of a message before the action is executed.
@@ -14,9 +17,31 @@ public class MessageEncryptionMiddleware implements Middleware {
     /**
      * Encryption key.
      */
-    private final String key;
+    private final byte[] key;
+
+    /**
+     * Encrypter shared by every request.
+     */
+    private final Encrypter encrypter;
+
+    /**
+     * Session keys agreed with each peer, or null if every peer shares the key.
+     */
+    private final SessionKeys sessions;
     
     public MessageEncryptionMiddleware(String key)
+    {
+        this(key, Encrypter.Mode.ECB);
+    }
+
+    /**
+     * Creates the middleware with the given cipher mode. Both ends must use
+     * the same mode.
+     *
+     * @param key Encryption key, with 16 characters.
+     * @param mode Cipher mode.
+     */
+    public MessageEncryptionMiddleware(String key, Encrypter.Mode mode)
     {
         if (key == null) {
             throw new IllegalArgumentException("The encryption key cannot be null.");
@@ -26,17 +51,42 @@ public class MessageEncryptionMiddleware implements Middleware {
             throw new IllegalArgumentException("The encryption key must have 16 characters.");
         }
         
-        this.key = key;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        this.encrypter = new Encrypter(mode);
+        this.sessions = null;
+    }
+
+    /**
+     * Creates the middleware with a session key per peer, agreed on the
+     * first message exchanged with it. Both ends must use session keys.
+     *
+     * @param sessions Session keys of the server.
+     */
+    public MessageEncryptionMiddleware(SessionKeys sessions) {
+        if (sessions == null) {
+            throw new IllegalArgumentException("The session keys cannot be null.");
+        }
+
+        this.key = null;
+        this.encrypter = null;
+        this.sessions = sessions;
     }
     
     @Override
     public void before(Request request, Container container) {
         String message = request.message();
+
+        if (this.sessions != null) {
+            // The handshakes carry the public keys in the clear.
+            if (! SessionKeys.HANDSHAKE_ROUTE.equals(request.route())) {
+                request.message(this.sessions.encrypt(request.requester(), message));
+            }
+
+            return;
+        }
         
         try {
-            Encrypter encrypter = new Encrypter();
-
-            String encryptedMessage = encrypter.encrypt(message, key);
+            String encryptedMessage = this.encrypter.encrypt(message, this.key);
 
             request.message(encryptedMessage);
         } catch (Exception e) {
@@ -47,4 +97,14 @@ public class MessageEncryptionMiddleware implements Middleware {
     @Override
     public void after(Request request, Container container) {}
 
+    /**
+     * Session keys are agreed with each target, so each target gets its own message.
+     *
+     * @return True if the middleware uses session keys.
+     */
+    @Override
+    public boolean isTargeted() {
+        return this.sessions != null;
+    }
+
 }
@@ -29,4 +29,15 @@ public interface Middleware {
      * @param dependencies The server dependencies.
      */
     void after(Request request, Container container);
+
+    /**
+     * Returns if the middleware changes the messages sent depending on their
+     * target. A message sent to many targets then runs the middleware once
+     * for each target, instead of once for all of them.
+     *
+     * @return True if the middleware depends on the target.
+     */
+    default boolean isTargeted() {
+        return false;
+    }
 }
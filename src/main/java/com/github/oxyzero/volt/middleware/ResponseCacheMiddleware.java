@@ -0,0 +1,343 @@
+package com.github.oxyzero.volt.middleware;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.support.Container;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * This middleware caches the replies of idempotent routes. A request whose
+ * reply is cached is answered from the cache and the action of the route is
+ * not executed.
+ *
+ * Entries are keyed by the route and the message, or by the values of some
+ * route variables, and are evicted when they expire or when the cache is full,
+ * the least recently used first. Only the replies sent with Request.reply are
+ * cached.
+ *
+ * @see com.github.oxyzero.volt.Server#invalidate(String)
+ */
+public class ResponseCacheMiddleware implements AsyncMiddleware {
+
+    /**
+     * Default maximum size of a cached reply, in characters.
+     */
+    public static final int MAX_ENTRY_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of cached replies.
+     */
+    private final int maxEntries;
+
+    /**
+     * Nanoseconds a reply stays cached.
+     */
+    private final long ttl;
+
+    /**
+     * Cached replies, in access order.
+     */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /**
+     * Route variables that identify a request, or null to use the message.
+     */
+    private volatile String[] variables;
+
+    /**
+     * Replies bigger than this size are not cached.
+     */
+    private volatile int maxEntrySize = MAX_ENTRY_SIZE;
+
+    /**
+     * Increased on every invalidation, so replies of requests that started
+     * before it are not cached.
+     */
+    private long generation;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    public ResponseCacheMiddleware(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The cache must hold at least one entry.");
+        }
+
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("The time to live must be greater than 0.");
+        }
+
+        this.maxEntries = maxEntries;
+        this.ttl = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Keys the requests by the values of the given route variables instead
+     * of the whole message.
+     *
+     * @param variables Route variable names.
+     * @return self
+     */
+    public ResponseCacheMiddleware key(String... variables) {
+        this.variables = variables.length == 0 ? null : variables.clone();
+
+        return this;
+    }
+
+    /**
+     * Sets the size above which replies are not cached.
+     *
+     * @param maxEntrySize Maximum reply size in characters.
+     * @return self
+     */
+    public ResponseCacheMiddleware maxEntrySize(int maxEntrySize) {
+        if (maxEntrySize <= 0) {
+            throw new IllegalArgumentException("The maximum entry size must be greater than 0.");
+        }
+
+        this.maxEntrySize = maxEntrySize;
+
+        return this;
+    }
+
+    @Override
+    public CompletionStage<Boolean> beforeAsync(Request request, Container container) {
+        // Messages being sent, or that cannot be replied to, are not cached.
+        if (request.responder() == null && request.output() == null) {
+            return AsyncMiddleware.proceed();
+        }
+
+        Key key = new Key(request.route(), this.key(request));
+        String cached = this.get(key);
+
+        if (cached != null) {
+            this.hits.incrementAndGet();
+            request.reply(cached);
+
+            return AsyncMiddleware.stop();
+        }
+
+        this.misses.incrementAndGet();
+
+        long generation;
+
+        synchronized (this.entries) {
+            generation = this.generation;
+        }
+
+        Consumer<String> responder = request.responder();
+
+        request.responder(reply -> {
+            this.put(key, reply, generation);
+
+            if (responder != null) {
+                responder.accept(reply);
+            } else {
+                request.output().println(reply);
+            }
+        });
+
+        return AsyncMiddleware.proceed();
+    }
+
+    /**
+     * Removes every cached reply of a route.
+     *
+     * @param route Route.
+     */
+    public void invalidate(String route) {
+        synchronized (this.entries) {
+            this.generation++;
+
+            Iterator<Key> keys = this.entries.keySet().iterator();
+
+            while (keys.hasNext()) {
+                if (keys.next().route.equals(route)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the cached reply of a request.
+     *
+     * @param route Route.
+     * @param key Message, or the values of the key variables separated by "|".
+     */
+    public void invalidate(String route, String key) {
+        synchronized (this.entries) {
+            this.generation++;
+            this.entries.remove(new Key(route, key));
+        }
+    }
+
+    /**
+     * Removes every cached reply.
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.generation++;
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached replies, including the expired ones not yet evicted.
+     *
+     * @return Number of cached replies.
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Gets the number of requests answered from the cache.
+     *
+     * @return Number of hits.
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of requests that reached their route.
+     *
+     * @return Number of misses.
+     */
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Builds the key of a request.
+     *
+     * @param request Request.
+     * @return Message, or the values of the key variables separated by "|".
+     */
+    private String key(Request request) {
+        String[] variables = this.variables;
+
+        if (variables == null) {
+            return request.message();
+        }
+
+        StringBuilder key = new StringBuilder();
+
+        for (String variable : variables) {
+            List<CharSequence> values = request.variable(variable);
+
+            if (values == null) {
+                return request.message();
+            }
+
+            for (CharSequence value : values) {
+                if (key.length() > 0) {
+                    key.append('|');
+                }
+
+                key.append(value);
+            }
+        }
+
+        return key.toString();
+    }
+
+    private String get(Key key) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+
+            if (entry == null) {
+                return null;
+            }
+
+            if (System.nanoTime() - entry.expires >= 0) {
+                this.entries.remove(key);
+                return null;
+            }
+
+            return entry.reply;
+        }
+    }
+
+    private void put(Key key, String reply, long generation) {
+        if (reply.length() > this.maxEntrySize) {
+            return;
+        }
+
+        synchronized (this.entries) {
+            if (generation != this.generation) {
+                return;
+            }
+
+            this.entries.put(key, new Entry(reply, System.nanoTime() + this.ttl));
+
+            Iterator<Map.Entry<Key, Entry>> eldest = this.entries.entrySet().iterator();
+
+            while (this.entries.size() > this.maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Route and key of a cached reply.
+     */
+    private static class Key {
+
+        private final String route;
+
+        private final String key;
+
+        private Key(String route, String key) {
+            this.route = route;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (! (other instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) other;
+
+            return Objects.equals(this.route, that.route) && Objects.equals(this.key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(this.route) * 31 + Objects.hashCode(this.key);
+        }
+    }
+
+    /**
+     * A cached reply.
+     */
+    private static class Entry {
+
+        private final String reply;
+
+        private final long expires;
+
+        private Entry(String reply, long expires) {
+            this.reply = reply;
+            this.expires = expires;
+        }
+    }
+}
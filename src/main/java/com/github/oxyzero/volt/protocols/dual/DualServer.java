@@ -0,0 +1,305 @@
+package com.github.oxyzero.volt.protocols.dual;
+
+import com.github.oxyzero.volt.Concurrency;
+import com.github.oxyzero.volt.DrainReport;
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class represents a server that receives requests over UDP and TCP on
+ * the same port number. Both protocols share the routes, middleware and
+ * services of this server, so a route is listened only once.
+ *
+ * Messages up to the threshold are sent over UDP, bigger messages are sent
+ * over TCP. Replies are sent over the protocol the request arrived with.
+ */
+public class DualServer extends Server {
+
+    /**
+     * Default size above which messages are sent over TCP, in bytes.
+     */
+    public static final int UDP_THRESHOLD = 1024;
+
+    /**
+     * Milliseconds to wait for the TCP service to bind its port.
+     */
+    private static final long BOOT_TIMEOUT = 5000;
+
+    /**
+     * UDP service.
+     */
+    private final UdpServer udp;
+
+    /**
+     * TCP service.
+     */
+    private final TcpServer tcp;
+
+    /**
+     * Messages bigger than this size are sent over TCP.
+     */
+    private volatile int threshold;
+
+    public DualServer() {
+        super();
+
+        this.udp = new UdpServer(this);
+        this.tcp = new TcpServer(this);
+        this.threshold = UDP_THRESHOLD;
+    }
+
+    /**
+     * Gets the UDP service of the server.
+     *
+     * @return UDP server.
+     */
+    public UdpServer udp() {
+        return this.udp;
+    }
+
+    /**
+     * Gets the TCP service of the server, for example to change its
+     * connection limits.
+     *
+     * @return TCP server.
+     */
+    public TcpServer tcp() {
+        return this.tcp;
+    }
+
+    /**
+     * Gets the size above which messages are sent over TCP.
+     *
+     * @return Threshold in bytes.
+     */
+    public int threshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Sets the size above which messages are sent over TCP.
+     *
+     * @param threshold Threshold in bytes.
+     * @return self
+     */
+    public DualServer threshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The threshold cannot be negative.");
+        }
+
+        this.threshold = threshold;
+
+        return this;
+    }
+
+    /**
+     * The requests of a route are handled one at a time, as the UDP server
+     * does, whichever protocol carried them, unless the route was listened
+     * with another concurrency.
+     *
+     * @return Serial concurrency.
+     */
+    @Override
+    protected Concurrency concurrency() {
+        return Concurrency.serial();
+    }
+
+    /**
+     * Starts the TCP service in its own thread, and waits for it to bind
+     * its port, so the UDP service uses the same one. The server fails to
+     * boot if the TCP service cannot bind the port.
+     *
+     * @param port The port number.
+     */
+    @Override
+    protected void boot(int port) {
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Thread tcp = new Thread(() -> {
+            try {
+                this.tcp.stream(port);
+            } catch (RuntimeException ex) {
+                failure.set(ex);
+            }
+        });
+
+        tcp.start();
+
+        long deadline = System.currentTimeMillis() + BOOT_TIMEOUT;
+
+        while (this.tcp.getPort() <= 0 && tcp.isAlive() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        int bound = this.tcp.getPort();
+
+        if (bound <= 0) {
+            this.tcp.shutdown();
+
+            RuntimeException cause = failure.get();
+
+            throw new IllegalArgumentException(cause != null ? cause.getMessage()
+                    : "Could not initiate the TCP service on port " + port + ".");
+        }
+
+        super.connectedPort = bound;
+        super.active = true;
+    }
+
+    @Override
+    protected void restart(int port) {
+        this.shutdown();
+
+        new Thread(() -> this.stream(port)).start();
+    }
+
+    /**
+     * Streams the server in the given port. The UDP service is streamed in
+     * the calling thread.
+     *
+     * @param port The port number.
+     */
+    @Override
+    public void stream(int port) {
+        if (this.isActive()) {
+            return;
+        }
+
+        this.boot(port);
+
+        try {
+            this.udp.stream(super.connectedPort);
+        } catch (IllegalArgumentException e) {
+            this.shutdown();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a message to the target, over UDP if it fits the threshold or
+     * over TCP otherwise.
+     *
+     * @param route Route the message is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     */
+    @Override
+    public void send(String route, String target, String message) {
+        this.protocol(message).send(route, target, message);
+    }
+
+    /**
+     * Sends a message to every target, over UDP if it fits the threshold or
+     * over TCP otherwise.
+     *
+     * @param route Route the message is targeted for.
+     * @param targets IPv4:Port of each target.
+     * @param message Message.
+     */
+    @Override
+    public void send(String route, Collection<String> targets, String message) {
+        this.protocol(message).send(route, targets, message);
+    }
+
+    /**
+     * Sends a request to the target, over UDP if it fits the threshold or
+     * over TCP otherwise, and waits asynchronously for its reply.
+     *
+     * @param route Route the request is targeted for.
+     * @param target IPv4:Port of the target.
+     * @param message Message.
+     * @param timeout Seconds to wait for the reply.
+     * @return Future completed with the reply, or failed if the timeout expires.
+     */
+    @Override
+    public CompletableFuture<Request> request(String route, String target, String message, int timeout) {
+        return this.protocol(message).request(route, target, message, timeout);
+    }
+
+    /**
+     * Chooses the service that sends a message.
+     *
+     * @param message Message.
+     * @return UDP server for small messages, TCP server otherwise.
+     */
+    private Server protocol(String message) {
+        int threshold = this.threshold;
+
+        // A character takes at most 3 bytes, so most messages are not encoded twice.
+        if (message == null || message.length() * 3 <= threshold) {
+            return this.udp;
+        }
+
+        if (message.length() > threshold || message.getBytes(StandardCharsets.UTF_8).length > threshold) {
+            return this.tcp;
+        }
+
+        return this.udp;
+    }
+
+    @Override
+    public void shutdown() {
+        super.active = false;
+
+        if (this.udp.isActive()) {
+            this.udp.shutdown();
+        }
+
+        if (this.tcp.isActive()) {
+            this.tcp.shutdown();
+        }
+    }
+
+    /**
+     * Drains both services at the same time.
+     *
+     * @param timeout Milliseconds to wait for the pending requests.
+     * @return Number of requests completed and aborted by both services.
+     */
+    @Override
+    public DrainReport drain(long timeout) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("The drain timeout cannot be negative.");
+        }
+
+        CompletableFuture<DrainReport> udp = CompletableFuture.supplyAsync(() -> this.udp.drain(timeout));
+        DrainReport tcp = this.tcp.drain(timeout);
+        DrainReport report = udp.join();
+
+        super.active = false;
+
+        return new DrainReport(report.completed() + tcp.completed(), report.aborted() + tcp.aborted());
+    }
+
+    @Override
+    protected void stopAccepting() {
+        // Each service stops accepting requests when it is drained.
+    }
+
+    @Override
+    protected void abortPending() {
+        // Each service aborts its own requests when it is drained.
+    }
+
+    @Override
+    public boolean isDraining() {
+        return this.udp.isDraining() || this.tcp.isDraining();
+    }
+
+    @Override
+    public boolean isActive() {
+        return super.isActive() && this.udp.isActive() && this.tcp.isActive();
+    }
+}
@@ -0,0 +1,247 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import com.github.oxyzero.volt.support.Compressor;
+
+/**
+ * Limits that a TCP server applies to the connections it accepts.
+ *
+ * A limit set to 0 is disabled, except the frame size limits which are always applied.
+ */
+public class ConnectionLimits {
+
+    /**
+     * Maximum number of connections handled at the same time.
+     */
+    private volatile int maxConnections = 0;
+
+    /**
+     * Maximum number of connections handled at the same time for a single address.
+     */
+    private volatile int maxConnectionsPerAddress = 0;
+
+    /**
+     * Milliseconds to wait for the request headers.
+     */
+    private volatile int readTimeout = 0;
+
+    /**
+     * Milliseconds a connection may stay silent after its request was read.
+     */
+    private volatile int idleTimeout = 0;
+
+    /**
+     * Length of the queue of connections waiting to be accepted.
+     */
+    private volatile int backlog = 0;
+
+    /**
+     * Maximum size of the header block of a frame, in bytes.
+     */
+    private volatile int maxHeaderSize = HeaderParser.MAX_HEADER_SIZE;
+
+    /**
+     * Maximum size of the message of a frame, in bytes.
+     */
+    private volatile int maxMessageSize = Compressor.MAX_SIZE;
+
+    /**
+     * Maximum number of threads handling the frames of pooled connections.
+     */
+    private volatile int frameThreads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Gets the maximum number of concurrent connections.
+     *
+     * @return Maximum number of concurrent connections.
+     */
+    public int maxConnections() {
+        return this.maxConnections;
+    }
+
+    /**
+     * Sets the maximum number of concurrent connections. When the limit is
+     * reached the server stops accepting until a connection is released.
+     *
+     * @param maxConnections Maximum number of concurrent connections.
+     * @return self
+     */
+    public ConnectionLimits maxConnections(int maxConnections) {
+        this.maxConnections = this.validate(maxConnections);
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of concurrent connections of a single address.
+     *
+     * @return Maximum number of concurrent connections of a single address.
+     */
+    public int maxConnectionsPerAddress() {
+        return this.maxConnectionsPerAddress;
+    }
+
+    /**
+     * Sets the maximum number of concurrent connections of a single address.
+     * Connections above this limit are rejected.
+     *
+     * @param maxConnectionsPerAddress Maximum number of connections per address.
+     * @return self
+     */
+    public ConnectionLimits maxConnectionsPerAddress(int maxConnectionsPerAddress) {
+        this.maxConnectionsPerAddress = this.validate(maxConnectionsPerAddress);
+
+        return this;
+    }
+
+    /**
+     * Gets the read timeout in milliseconds.
+     *
+     * @return Read timeout.
+     */
+    public int readTimeout() {
+        return this.readTimeout;
+    }
+
+    /**
+     * Sets how long the server waits for the request headers.
+     *
+     * @param readTimeout Read timeout in milliseconds.
+     * @return self
+     */
+    public ConnectionLimits readTimeout(int readTimeout) {
+        this.readTimeout = this.validate(readTimeout);
+
+        return this;
+    }
+
+    /**
+     * Gets the idle timeout in milliseconds.
+     *
+     * @return Idle timeout.
+     */
+    public int idleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * Sets how long a connection may stay silent while its route is handling it.
+     *
+     * @param idleTimeout Idle timeout in milliseconds.
+     * @return self
+     */
+    public ConnectionLimits idleTimeout(int idleTimeout) {
+        this.idleTimeout = this.validate(idleTimeout);
+
+        return this;
+    }
+
+    /**
+     * Gets the accept queue length.
+     *
+     * @return Accept queue length.
+     */
+    public int backlog() {
+        return this.backlog;
+    }
+
+    /**
+     * Sets the accept queue length. It is applied when the server boots.
+     *
+     * @param backlog Accept queue length.
+     * @return self
+     */
+    public ConnectionLimits backlog(int backlog) {
+        this.backlog = this.validate(backlog);
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum size of the header block of a frame.
+     *
+     * @return Maximum header size in bytes.
+     */
+    public int maxHeaderSize() {
+        return this.maxHeaderSize;
+    }
+
+    /**
+     * Sets the maximum size of the header block of a frame. Connections
+     * sending bigger headers are closed.
+     *
+     * @param maxHeaderSize Maximum header size in bytes.
+     * @return self
+     */
+    public ConnectionLimits maxHeaderSize(int maxHeaderSize) {
+        if (maxHeaderSize <= 0) {
+            throw new IllegalArgumentException("The maximum header size must be greater than 0.");
+        }
+
+        this.maxHeaderSize = maxHeaderSize;
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum size of the message of a frame.
+     *
+     * @return Maximum message size in bytes.
+     */
+    public int maxMessageSize() {
+        return this.maxMessageSize;
+    }
+
+    /**
+     * Sets the maximum size of the message of a frame. Connections sending
+     * bigger messages are closed.
+     *
+     * @param maxMessageSize Maximum message size in bytes.
+     * @return self
+     */
+    public ConnectionLimits maxMessageSize(int maxMessageSize) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("The maximum message size must be greater than 0.");
+        }
+
+        this.maxMessageSize = maxMessageSize;
+
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of threads handling the frames of pooled
+     * connections.
+     *
+     * @return Maximum number of frame threads.
+     */
+    public int frameThreads() {
+        return this.frameThreads;
+    }
+
+    /**
+     * Sets the maximum number of threads handling the frames of pooled
+     * connections, shared by every connection of the server. When they are
+     * all busy, a connection handles its next frame itself and stops
+     * reading until it is done.
+     *
+     * @param frameThreads Maximum number of frame threads.
+     * @return self
+     */
+    public ConnectionLimits frameThreads(int frameThreads) {
+        if (frameThreads <= 0) {
+            throw new IllegalArgumentException("The number of frame threads must be greater than 0.");
+        }
+
+        this.frameThreads = frameThreads;
+
+        return this;
+    }
+
+    private int validate(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("A connection limit cannot be negative.");
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,462 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental parser of the header block of a TCP frame:
+ *
+ * :route 250\r\n
+ * Header: value\r\n
+ * \r\n
+ *
+ * The parser works directly on the bytes of a buffer and can be fed as the
+ * bytes arrive, resuming where the previous call stopped. The route and the
+ * headers are exposed as views over the buffer, which stay valid until the
+ * buffer is reused for the next frame.
+ */
+class HeaderParser {
+
+    /**
+     * Default maximum size of the header block, in bytes.
+     */
+    static final int MAX_HEADER_SIZE = 8192;
+
+    /**
+     * Default maximum number of headers.
+     */
+    static final int MAX_HEADERS = 64;
+
+    /**
+     * Parsing the first line, that holds the route and the message length.
+     */
+    private static final int FIRST_LINE = 0;
+
+    /**
+     * Parsing the header lines.
+     */
+    private static final int HEADER_LINE = 1;
+
+    /**
+     * The header block was parsed.
+     */
+    private static final int DONE = 2;
+
+    /**
+     * Maximum size of the header block.
+     */
+    private final int maxHeaderSize;
+
+    /**
+     * Maximum number of headers.
+     */
+    private final int maxHeaders;
+
+    /**
+     * Start and end of each header name and value, in this order.
+     */
+    private final int[] offsets;
+
+    /**
+     * Buffer being parsed.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Current state.
+     */
+    private int state;
+
+    /**
+     * Position where the header block starts.
+     */
+    private int start;
+
+    /**
+     * Position where the current line starts.
+     */
+    private int line;
+
+    /**
+     * Start and end of the route.
+     */
+    private int routeStart, routeEnd;
+
+    /**
+     * Message length.
+     */
+    private int length;
+
+    /**
+     * Number of headers parsed.
+     */
+    private int count;
+
+    HeaderParser() {
+        this(MAX_HEADER_SIZE, MAX_HEADERS);
+    }
+
+    HeaderParser(int maxHeaderSize, int maxHeaders) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxHeaders = maxHeaders;
+        this.offsets = new int[maxHeaders * 4];
+        this.reset();
+    }
+
+    /**
+     * Prepares the parser for a new header block.
+     */
+    void reset() {
+        this.buffer = null;
+        this.state = FIRST_LINE;
+        this.start = -1;
+        this.line = -1;
+        this.length = -1;
+        this.count = 0;
+    }
+
+    /**
+     * Parses the bytes between the position and the limit of the buffer.
+     * The position is left after the last byte consumed, which is the first
+     * byte of the message once the header block is complete. The buffer must
+     * keep the bytes already parsed between calls.
+     *
+     * @param buffer Buffer holding the header block.
+     * @return True if the header block is complete, false if more bytes are needed.
+     * @throws IOException If the header block is malformed or exceeds the limits.
+     */
+    boolean parse(ByteBuffer buffer) throws IOException {
+        if (this.state == DONE) {
+            return true;
+        }
+
+        if (this.buffer != null && this.buffer != buffer) {
+            throw new IllegalStateException("The header block must be parsed from a single buffer.");
+        }
+
+        this.buffer = buffer;
+
+        while (buffer.hasRemaining()) {
+            int position = buffer.position();
+            byte b = buffer.get();
+
+            if (this.line < 0) {
+                // Empty lines before the frame are ignored.
+                if (b == '\r' || b == '\n') {
+                    continue;
+                }
+
+                this.start = position;
+                this.line = position;
+            }
+
+            if (position - this.start >= this.maxHeaderSize) {
+                throw new IOException("The headers exceed " + this.maxHeaderSize + " bytes.");
+            }
+
+            if (b != '\n') {
+                continue;
+            }
+
+            int end = position;
+
+            if (end > this.line && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+
+            if (this.state == FIRST_LINE) {
+                this.firstLine(this.line, end);
+                this.state = HEADER_LINE;
+            } else if (end == this.line) {
+                this.state = DONE;
+                return true;
+            } else {
+                this.headerLine(this.line, end);
+            }
+
+            this.line = position + 1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Parses the first line, "route length".
+     */
+    private void firstLine(int from, int to) throws IOException {
+        int space = to - 1;
+
+        while (space > from && this.buffer.get(space) != ' ') {
+            space--;
+        }
+
+        if (space <= from || space == to - 1) {
+            throw new IOException("Malformed frame, the first line must contain the route and the length.");
+        }
+
+        long length = 0;
+
+        for (int i = space + 1; i < to; i++) {
+            byte digit = this.buffer.get(i);
+
+            if (digit < '0' || digit > '9' || length > Integer.MAX_VALUE) {
+                throw new IOException("Malformed frame, invalid message length.");
+            }
+
+            length = length * 10 + (digit - '0');
+        }
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Malformed frame, invalid message length.");
+        }
+
+        this.routeStart = from;
+        this.routeEnd = space;
+        this.length = (int) length;
+    }
+
+    /**
+     * Parses a header line, "name: value". The value is everything after the
+     * first colon, so it may contain colons itself.
+     */
+    private void headerLine(int from, int to) throws IOException {
+        if (this.count == this.maxHeaders) {
+            throw new IOException("The frame exceeds " + this.maxHeaders + " headers.");
+        }
+
+        int colon = from;
+
+        while (colon < to && this.buffer.get(colon) != ':') {
+            colon++;
+        }
+
+        int nameEnd = this.trimEnd(from, colon);
+        int valueStart = colon < to ? this.trimStart(colon + 1, to) : to;
+        int valueEnd = this.trimEnd(valueStart, to);
+
+        int i = this.count * 4;
+        this.offsets[i] = this.trimStart(from, nameEnd);
+        this.offsets[i + 1] = nameEnd;
+        this.offsets[i + 2] = valueStart;
+        this.offsets[i + 3] = valueEnd;
+
+        this.count++;
+    }
+
+    private int trimStart(int from, int to) {
+        while (from < to && this.buffer.get(from) == ' ') {
+            from++;
+        }
+
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && this.buffer.get(to - 1) == ' ') {
+            to--;
+        }
+
+        return to;
+    }
+
+    /**
+     * Returns if the header block is complete.
+     *
+     * @return True if the header block was parsed.
+     */
+    boolean isDone() {
+        return this.state == DONE;
+    }
+
+    /**
+     * Gets the targeted route.
+     *
+     * @return Route view.
+     */
+    View route() {
+        this.check();
+
+        return new View(this.buffer, this.routeStart, this.routeEnd);
+    }
+
+    /**
+     * Gets the message length declared in the first line.
+     *
+     * @return Message length in bytes.
+     */
+    int length() {
+        this.check();
+
+        return this.length;
+    }
+
+    /**
+     * Gets the number of headers, other than the route and length.
+     *
+     * @return Number of headers.
+     */
+    int count() {
+        this.check();
+
+        return this.count;
+    }
+
+    /**
+     * Gets the name of a header.
+     *
+     * @param index Header index.
+     * @return Name view.
+     */
+    View name(int index) {
+        return this.view(index, 0);
+    }
+
+    /**
+     * Gets the value of a header.
+     *
+     * @param index Header index.
+     * @return Value view.
+     */
+    View value(int index) {
+        return this.view(index, 2);
+    }
+
+    /**
+     * Gets the value of the first header with the given name, ignoring case.
+     *
+     * @param name Header name.
+     * @return Value view, or null if there is no such header.
+     */
+    View header(String name) {
+        this.check();
+
+        for (int i = 0; i < this.count; i++) {
+            if (this.name(i).equalsIgnoreCase(name)) {
+                return this.value(i);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Copies the header lines out of the buffer, so they outlive it. Only
+     * the bytes are copied, the names and values are decoded when read.
+     *
+     * @return Headers, other than the route and length.
+     */
+    TcpFrame.Headers headers() {
+        this.check();
+
+        if (this.count == 0) {
+            return new TcpFrame.Headers(new byte[0], new int[0], 0);
+        }
+
+        int from = this.offsets[0];
+        int to = this.offsets[this.count * 4 - 1];
+        byte[] block = new byte[to - from];
+        int[] offsets = new int[this.count * 4];
+
+        for (int i = 0; i < block.length; i++) {
+            block[i] = this.buffer.get(from + i);
+        }
+
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = this.offsets[i] - from;
+        }
+
+        return new TcpFrame.Headers(block, offsets, this.count);
+    }
+
+    private View view(int index, int field) {
+        this.check();
+
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("Header " + index + " does not exist.");
+        }
+
+        int i = index * 4 + field;
+
+        return new View(this.buffer, this.offsets[i], this.offsets[i + 1]);
+    }
+
+    private void check() {
+        if (this.state != DONE) {
+            throw new IllegalStateException("The header block was not completely parsed.");
+        }
+    }
+
+    /**
+     * A view over a range of bytes of the parsed buffer. Each byte is a char,
+     * toString decodes the range as UTF-8.
+     */
+    static class View implements CharSequence {
+
+        private final ByteBuffer buffer;
+
+        private final int start;
+
+        private final int end;
+
+        View(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+
+            return (char) (this.buffer.get(this.start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > this.length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+
+            return new View(this.buffer, this.start + start, this.start + end);
+        }
+
+        /**
+         * Compares the view with an ASCII string, ignoring case.
+         *
+         * @param value ASCII string.
+         * @return True if both have the same characters.
+         */
+        boolean equalsIgnoreCase(String value) {
+            if (value.length() != this.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.toLowerCase(this.charAt(i)) != Character.toLowerCase(value.charAt(i))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[this.length()];
+
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = this.buffer.get(this.start + i);
+            }
+
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
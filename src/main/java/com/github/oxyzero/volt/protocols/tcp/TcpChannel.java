@@ -0,0 +1,146 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A connection pooled for a target, that carries every request sent to it
+ * and receives their replies in any order.
+ */
+class TcpChannel {
+
+    /**
+     * Server that owns the connection.
+     */
+    private final TcpServer server;
+
+    /**
+     * Target IPv4:Port.
+     */
+    private final String target;
+
+    /**
+     * Connected socket.
+     */
+    private final Socket socket;
+
+    /**
+     * Socket output stream, shared by every request.
+     */
+    private final OutputStream output;
+
+    /**
+     * Correlation IDs of the requests waiting for a reply.
+     */
+    private final Set<Long> pending;
+
+    TcpChannel(TcpServer server, String target, Socket socket) throws IOException {
+        this.server = server;
+        this.target = target;
+        this.socket = socket;
+        this.output = socket.getOutputStream();
+        this.pending = ConcurrentHashMap.newKeySet();
+
+        final TcpFrameReader input = new TcpFrameReader(socket.getInputStream());
+
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                read(input);
+            }
+        };
+
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Writes a request. The request stops waiting for a reply on this
+     * connection once its future completes, so the requests that time out
+     * are not kept.
+     *
+     * @param id Correlation ID of the request.
+     * @param future Future of the request.
+     * @param frame Encoded request frame.
+     * @throws IOException If the request could not be written.
+     */
+    void write(long id, CompletableFuture<?> future, byte[] frame) throws IOException {
+        this.pending.add(id);
+
+        future.whenComplete((reply, error) -> this.pending.remove(id));
+
+        synchronized (this.output) {
+            this.output.write(frame);
+            this.output.flush();
+        }
+    }
+
+    /**
+     * Gets the number of requests waiting for a reply.
+     *
+     * @return Number of pending requests.
+     */
+    int pending() {
+        return this.pending.size();
+    }
+
+    /**
+     * Returns if the connection is still open.
+     *
+     * @return True if the connection is open, false otherwise.
+     */
+    boolean isOpen() {
+        return ! this.socket.isClosed();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    void close() {
+        try {
+            this.socket.close();
+        } catch (IOException ex) {
+            // Don't do anything.
+        }
+    }
+
+    /**
+     * Reads the replies until the connection is closed. The requests still
+     * waiting for a reply are then failed.
+     *
+     * @param input Reads the frames of the connection.
+     */
+    private void read(TcpFrameReader input) {
+        IOException cause = new IOException("The connection to " + this.target + " was closed.");
+
+        try {
+            TcpFrame frame;
+
+            while ((frame = input.read()) != null) {
+                String id = frame.header("Reply");
+
+                if (id != null) {
+                    try {
+                        this.pending.remove(Long.parseLong(id));
+                    } catch (NumberFormatException ex) {
+                        continue;
+                    }
+
+                    this.server.completeReply(this.socket, this.target, frame);
+                }
+            }
+        } catch (IOException ex) {
+            cause = ex;
+        } finally {
+            this.close();
+
+            for (Long id : this.pending) {
+                this.server.fail(id, cause);
+            }
+        }
+    }
+}
@@ -3,13 +3,13 @@ package com.github.oxyzero.volt.protocols.tcp;
 import com.github.oxyzero.volt.Client;
 import com.github.oxyzero.volt.Connection;
 import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
 import com.github.oxyzero.volt.support.Task;
 
 import java.io.*;
 import java.net.InetAddress;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -37,6 +37,16 @@ public class TcpClient extends Client {
     public TcpClient(int port) {
         super(new TcpServer(), port);
     }
+
+    /**
+     * Creates a new TCP Client on top of the given server.
+     *
+     * @param server Server used to open the connections.
+     * @param port Client port. Use 0 to use a dynamic port.
+     */
+    protected TcpClient(TcpServer server, int port) {
+        super(server, port);
+    }
     
     /**
      * Sends a given set of headers with a message to the given target.
@@ -58,6 +68,11 @@ public class TcpClient extends Client {
         return super.send(headers, target, message);
     }
 
+    @Override
+    public CompletableFuture<Request> request(String headers, String target, String message, int timeout) {
+        return this.watch(target, this.client().request(headers, target, message, timeout));
+    }
+
     @Override
     public Client send(String headers, String target, Connection connection) {
         Task request = new Task() {
@@ -67,44 +82,20 @@ public class TcpClient extends Client {
                 int port = Integer.valueOf(host[1]);
 
                 try {
-                    Socket socket = new Socket(host[0], port);
+                    Socket socket = ((TcpServer) client()).connect(host[0], port);
 
                     String message = "Direct-connection: open";
                     String data[] = headers.split(";");
-                    StringBuilder builder = new StringBuilder();
-
-                    builder.append(data[0]);
-                    builder.append(" ");
-                    builder.append(message.length());
-                    builder.append("\r\n");
-
-                    for (int i = 1; i < data.length; i++) {
-                        builder.append(data[i]);
-                        builder.append("\r\n");
-                    }
 
-                    builder.append("\r\n");
-                    builder.append(message);
-
-                    String finalProduct = builder.toString();
+                    byte[] finalProduct = ((TcpServer) client()).frame(data[0], TcpFrame.headers(headers), message);
 
                     BufferedReader input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
                     PrintWriter output = new PrintWriter(socket.getOutputStream(), true);
 
-                    Map<String, Object> args = new HashMap<>();
-                    args.put("volt-message", "");
-                    args.put("volt-length", 0);
-                    args.put("volt-route", data[0]);
-                    args.put("volt-target", target);
-
-                    String address = target.split(":")[0];
-                    args.put("volt-address", InetAddress.getByName(address));
-
-                    args.put("volt-socket", socket);
-                    args.put("volt-input", input);
-                    args.put("volt-output", output);
-
-                    Request request = new Request(args);
+                    Request request = new Request(data[0], "", new Requester(target, InetAddress.getByName(host[0])))
+                            .socket(socket)
+                            .input(input)
+                            .output(output);
 
                     reply(request, finalProduct);
 
@@ -0,0 +1,255 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A message of the TCP protocol. Its headers follow the HTTP format:
+ *
+ * :route 250\r\n
+ * Header: value\r\n
+ * \r\n
+ * Message with 250 bytes
+ *
+ * A message compressed with Deflate carries the header "Content-Encoding: deflate"
+ * and its length is the compressed length.
+ *
+ * @see TcpFrameReader
+ */
+class TcpFrame {
+
+    /**
+     * Targeted route.
+     */
+    final String route;
+
+    /**
+     * Headers, other than the route and length.
+     */
+    final Map<String, String> headers;
+
+    /**
+     * Message bytes.
+     */
+    final byte[] body;
+
+    TcpFrame(String route, Map<String, String> headers, byte[] body) {
+        this.route = route;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Gets the message of the frame.
+     *
+     * @return Message.
+     */
+    String message() {
+        return new String(this.body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets a header of the frame.
+     *
+     * @param name Header name.
+     * @return Header value, or null if the frame does not have the header.
+     */
+    String header(String name) {
+        return this.headers.get(name);
+    }
+
+    /**
+     * Encodes a frame.
+     *
+     * @param route Targeted route.
+     * @param headers Headers, other than the route and length.
+     * @param message Message.
+     * @return Encoded frame.
+     */
+    static byte[] encode(String route, Map<String, String> headers, String message) {
+        return encode(route, headers, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encodes a frame.
+     *
+     * @param route Targeted route.
+     * @param headers Headers, other than the route and length.
+     * @param body Message bytes.
+     * @return Encoded frame.
+     */
+    static byte[] encode(String route, Map<String, String> headers, byte[] body) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(route);
+        builder.append(" ");
+        builder.append(body.length);
+        builder.append("\r\n");
+
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            builder.append(header.getKey());
+            builder.append(": ");
+            builder.append(header.getValue());
+            builder.append("\r\n");
+        }
+
+        builder.append("\r\n");
+
+        byte[] head = builder.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[head.length + body.length];
+
+        System.arraycopy(head, 0, frame, 0, head.length);
+        System.arraycopy(body, 0, frame, head.length, body.length);
+
+        return frame;
+    }
+
+    /**
+     * Parses the headers given to the send methods, separated by ";".
+     *
+     * @param headers Headers, starting with the route.
+     * @return Headers other than the route.
+     */
+    static Map<String, String> headers(String headers) {
+        String[] data = headers.split(";");
+        Map<String, String> parsed = new LinkedHashMap<>();
+
+        for (int i = 1; i < data.length; i++) {
+            int colon = data[i].indexOf(':');
+
+            if (colon < 0) {
+                parsed.put(data[i].trim(), "");
+            } else {
+                parsed.put(data[i].substring(0, colon).trim(), data[i].substring(colon + 1).trim());
+            }
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Headers of a received frame. They keep the bytes of the header lines,
+     * single headers are found by comparing the bytes, and the names and
+     * values are only decoded into strings when the whole map is read or
+     * changed.
+     */
+    static final class Headers extends AbstractMap<String, String> {
+
+        /**
+         * Bytes of the header lines.
+         */
+        private final byte[] block;
+
+        /**
+         * Start and end of the name and of the value of each header in the block.
+         */
+        private final int[] offsets;
+
+        private final int count;
+
+        /**
+         * Decoded headers, built the first time the map is iterated or changed.
+         */
+        private volatile Map<String, String> decoded;
+
+        Headers(byte[] block, int[] offsets, int count) {
+            this.block = block;
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        @Override
+        public String get(Object key) {
+            if (! (key instanceof String)) {
+                return null;
+            }
+
+            Map<String, String> decoded = this.decoded;
+
+            if (decoded != null) {
+                return decoded.get(key);
+            }
+
+            String name = (String) key;
+
+            // The last header with the name wins, as in the decoded map.
+            for (int i = this.count - 1; i >= 0; i--) {
+                if (this.matches(i * 4, name)) {
+                    return this.decode(i * 4 + 2);
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return this.get(key) != null;
+        }
+
+        @Override
+        public String put(String key, String value) {
+            return this.decoded().put(key, value);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return this.decoded().entrySet();
+        }
+
+        @Override
+        public int size() {
+            return this.decoded().size();
+        }
+
+        private synchronized Map<String, String> decoded() {
+            if (this.decoded == null) {
+                Map<String, String> decoded = new LinkedHashMap<>();
+
+                for (int i = 0; i < this.count; i++) {
+                    decoded.put(this.decode(i * 4), this.decode(i * 4 + 2));
+                }
+
+                this.decoded = decoded;
+            }
+
+            return this.decoded;
+        }
+
+        /**
+         * Compares a name of the block with a string.
+         */
+        private boolean matches(int field, String name) {
+            int start = this.offsets[field];
+            int length = this.offsets[field + 1] - start;
+
+            if (length != name.length()) {
+                // Multibyte names have more bytes than chars.
+                return length > name.length() && name.equals(this.decode(field));
+            }
+
+            for (int i = 0; i < length; i++) {
+                char c = name.charAt(i);
+
+                if (c >= 0x80) {
+                    return name.equals(this.decode(field));
+                }
+
+                if (this.block[start + i] != c) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private String decode(int field) {
+            int start = this.offsets[field];
+
+            return new String(this.block, start, this.offsets[field + 1] - start, StandardCharsets.UTF_8);
+        }
+    }
+}
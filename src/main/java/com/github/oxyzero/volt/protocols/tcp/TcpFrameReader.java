@@ -0,0 +1,208 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import com.github.oxyzero.volt.support.Compressor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the frames of a connection. The header block of each frame is read in
+ * chunks into a buffer reused by every frame and parsed incrementally. Bytes
+ * read past the end of a frame are kept in the buffer, so they are available
+ * to the next frame or to the route that owns the connection.
+ */
+class TcpFrameReader {
+
+    /**
+     * Connection input stream.
+     */
+    private final InputStream input;
+
+    /**
+     * Stream that gives the bytes kept in the buffer before the connection ones.
+     */
+    private final InputStream stream;
+
+    /**
+     * Buffer holding the header block.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Header block parser.
+     */
+    private final HeaderParser parser;
+
+    /**
+     * Maximum size of a message.
+     */
+    private final int maxMessageSize;
+
+    /**
+     * Range of the buffer holding bytes read past the end of the last frame.
+     */
+    private int pending, pendingEnd;
+
+    TcpFrameReader(InputStream input) {
+        this(input, HeaderParser.MAX_HEADER_SIZE, Compressor.MAX_SIZE);
+    }
+
+    TcpFrameReader(InputStream input, int maxHeaderSize, int maxMessageSize) {
+        this.input = input;
+        this.stream = new Stream();
+        this.buffer = ByteBuffer.allocate(maxHeaderSize);
+        this.parser = new HeaderParser(maxHeaderSize, HeaderParser.MAX_HEADERS);
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /**
+     * Gets the stream from where the frames are read. Reading from it
+     * continues right after the last frame read.
+     *
+     * @return Input stream.
+     */
+    InputStream stream() {
+        return this.stream;
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @return Frame, or null if the stream ended before a frame started.
+     * @throws IOException If the frame is malformed, exceeds the limits or the
+     * stream ended in the middle of it.
+     */
+    TcpFrame read() throws IOException {
+        byte[] array = this.buffer.array();
+        int kept = this.pendingEnd - this.pending;
+
+        System.arraycopy(array, this.pending, array, 0, kept);
+
+        this.pending = 0;
+        this.pendingEnd = 0;
+
+        this.buffer.clear();
+        this.buffer.limit(kept);
+        this.parser.reset();
+
+        while (! this.parser.parse(this.buffer)) {
+            int limit = this.buffer.limit();
+
+            if (limit == this.buffer.capacity()) {
+                throw new IOException("The headers exceed " + limit + " bytes.");
+            }
+
+            int count = this.input.read(array, limit, this.buffer.capacity() - limit);
+
+            if (count < 0) {
+                if (this.parser.isDone() || this.buffer.position() == limit && this.isBlank(limit)) {
+                    return null;
+                }
+
+                throw new EOFException("The stream ended in the middle of the headers.");
+            }
+
+            this.buffer.limit(limit + count);
+        }
+
+        int length = this.parser.length();
+
+        if (length > this.maxMessageSize) {
+            throw new IOException("The message exceeds " + this.maxMessageSize + " bytes.");
+        }
+
+        String route = this.parser.route().toString();
+        TcpFrame.Headers headers = this.parser.headers();
+
+        HeaderParser.View encoding = this.parser.header("Content-Encoding");
+        boolean compressed = encoding != null && encoding.equalsIgnoreCase("deflate");
+
+        byte[] body = new byte[length];
+        int position = this.buffer.position();
+        int buffered = this.buffer.limit() - position;
+        int read = Math.min(buffered, length);
+
+        System.arraycopy(array, position, body, 0, read);
+
+        if (buffered > length) {
+            this.pending = position + length;
+            this.pendingEnd = this.buffer.limit();
+        }
+
+        while (read < length) {
+            int count = this.input.read(body, read, length - read);
+
+            if (count < 0) {
+                throw new EOFException("The stream ended in the middle of the message.");
+            }
+
+            read += count;
+        }
+
+        if (compressed) {
+            try {
+                body = Compressor.decompress(body);
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+
+        return new TcpFrame(route, headers, body);
+    }
+
+    /**
+     * Checks if the bytes read hold only line breaks.
+     */
+    private boolean isBlank(int limit) {
+        for (int i = 0; i < limit; i++) {
+            byte b = this.buffer.get(i);
+
+            if (b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the bytes kept in the buffer, and then the connection ones.
+     */
+    private class Stream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            if (pending < pendingEnd) {
+                return buffer.array()[pending++] & 0xFF;
+            }
+
+            return input.read();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (pending < pendingEnd) {
+                int count = Math.min(length, pendingEnd - pending);
+
+                System.arraycopy(buffer.array(), pending, bytes, offset, count);
+                pending += count;
+
+                return count;
+            }
+
+            return input.read(bytes, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (pendingEnd - pending) + input.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.github.oxyzero.volt.protocols.tcp;
 
-import com.github.oxyzero.volt.Connection;
 import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
 import com.github.oxyzero.volt.Server;
 
 import java.io.*;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class represents a TCP server that is able to receive and respond to
@@ -24,9 +37,78 @@ public class TcpServer extends Server {
      */
     protected ServerSocket server;
 
+    /**
+     * Limits applied to the accepted connections.
+     */
+    protected final ConnectionLimits limits;
+
+    /**
+     * Connections currently being handled.
+     */
+    protected final Set<Socket> connections;
+
+    /**
+     * Number of connections currently being handled per address.
+     */
+    private final Map<InetAddress, Integer> connectionsPerAddress;
+
+    /**
+     * Connections pooled for requests, by target IPv4:Port.
+     */
+    private final Map<String, TcpChannel> channels;
+
+    /**
+     * Pooled connections being served, with the number of their frames being handled.
+     */
+    private final Map<Socket, AtomicInteger> pooled;
+
+    /**
+     * Handles the frames of the pooled connections.
+     */
+    private final ThreadPoolExecutor frames;
+
+    /**
+     * Number of connections rejected by the per address limit.
+     */
+    private final AtomicLong rejected;
+
+    /**
+     * Number of connections closed because they timed out.
+     */
+    private final AtomicLong timedOut;
+
     public TcpServer()
     {
         super();
+
+        this.limits = new ConnectionLimits();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.connectionsPerAddress = new ConcurrentHashMap<>();
+        this.channels = new HashMap<>();
+        this.pooled = new ConcurrentHashMap<>();
+        this.frames = this.frameExecutor();
+        this.rejected = new AtomicLong();
+        this.timedOut = new AtomicLong();
+    }
+
+    /**
+     * Creates a TCP server that shares the routes, middleware and services
+     * of another server.
+     *
+     * @param owner Server to share the routes with.
+     */
+    public TcpServer(Server owner)
+    {
+        super(owner);
+
+        this.limits = new ConnectionLimits();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.connectionsPerAddress = new ConcurrentHashMap<>();
+        this.channels = new HashMap<>();
+        this.pooled = new ConcurrentHashMap<>();
+        this.frames = this.frameExecutor();
+        this.rejected = new AtomicLong();
+        this.timedOut = new AtomicLong();
     }
 
     public ServerSocket server()
@@ -51,9 +133,10 @@ public class TcpServer extends Server {
             }
             
             super.active = true;
-            super.connectedPort = port;
-            this.server = new ServerSocket(port);
+            this.server = this.createServerSocket(port, this.limits.backlog());
             this.server.setSoTimeout(1000);
+            // The port is only known once bound, so a positive port means the service is up.
+            super.connectedPort = this.server.getLocalPort();
         } catch (IOException ex) {
             super.connectedPort = -1;
             super.active = false;
@@ -61,6 +144,32 @@ public class TcpServer extends Server {
         }
     }
     
+    /**
+     * Creates the socket that accepts the connections of the server.
+     *
+     * @param port The port number.
+     * @param backlog Accept queue length, 0 to use the default.
+     * @return Server socket.
+     * @throws IOException If the socket could not be bound.
+     */
+    protected ServerSocket createServerSocket(int port, int backlog) throws IOException
+    {
+        return new ServerSocket(port, backlog);
+    }
+
+    /**
+     * Opens a connection to a remote server.
+     *
+     * @param host Remote host.
+     * @param port Remote port.
+     * @return Connected socket.
+     * @throws IOException If the connection could not be established.
+     */
+    protected Socket connect(String host, int port) throws IOException
+    {
+        return new Socket(host, port);
+    }
+
     @Override
     protected void restart(int port) {
         try {
@@ -103,6 +212,45 @@ public class TcpServer extends Server {
         }
     }
 
+    /**
+     * Closes the server socket, while the accepted connections keep being
+     * served. Pooled connections are closed once their frames are handled.
+     */
+    @Override
+    protected void stopAccepting()
+    {
+        ServerSocket server = this.server;
+
+        if (server != null) {
+            try {
+                server.close();
+            } catch (IOException ex) {
+                // Don't do anything.
+            }
+        }
+
+        for (Map.Entry<Socket, AtomicInteger> connection : this.pooled.entrySet()) {
+            if (connection.getValue().get() == 0) {
+                this.close(connection.getKey());
+            }
+        }
+    }
+
+    /**
+     * Closes every connection that is still being handled.
+     */
+    @Override
+    protected void abortPending()
+    {
+        for (Socket socket : this.connections) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Don't do anything.
+            }
+        }
+    }
+
     /**
      * Streams the server in the given port.
      *
@@ -121,26 +269,49 @@ public class TcpServer extends Server {
             super.connectedPort = this.server().getLocalPort();
         }
 
-        while (this.isActive()) {
+        while (this.isActive() && ! this.draining) {
             try {
-                final Socket socket = this.server.accept();
+                if (! this.awaitCapacity()) {
+                    continue;
+                }
+
+                ServerSocket server = this.server;
+
+                // The server socket is dropped when the server shuts down.
+                if (server == null) {
+                    break;
+                }
+
+                final Socket socket = server.accept();
+
+                if (! this.admit(socket)) {
+                    this.rejected.incrementAndGet();
+                    socket.close();
+                    continue;
+                }
+
+                this.requestStarted();
 
                 new Thread() {
                     @Override
                     public void run() {
                         try {
-                            InputStreamReader isr = new InputStreamReader(socket.getInputStream());
+                            socket.setSoTimeout(limits.readTimeout());
+
+                            TcpFrameReader reader = new TcpFrameReader(socket.getInputStream(),
+                                    limits.maxHeaderSize(), limits.maxMessageSize());
+                            InputStreamReader isr = new InputStreamReader(reader.stream(), StandardCharsets.UTF_8);
                             BufferedReader input = new BufferedReader(isr);
                             PrintWriter output = new PrintWriter(socket.
                                     getOutputStream(), true);
 
-                            protocol(socket, input, output);
-                            
-                            isr.close();
-                            output.close();
-                            socket.close();
-                        } catch (IOException ex) {
-                            // Don't do anything.
+                            // The connection is closed once the request is handled, which may be in another thread.
+                            protocol(socket, reader, input, output).whenComplete((dispatched, error) -> {
+                                output.close();
+                                finish(socket, Boolean.TRUE.equals(dispatched), error);
+                            });
+                        } catch (IOException | RuntimeException ex) {
+                            finish(socket, false, ex);
                         }
                     }
                 }.start();
@@ -152,45 +323,170 @@ public class TcpServer extends Server {
     }
 
     /**
-     * Expects for a request to ask for this route.
+     * Closes a connection once its request is handled.
      *
-     * @param route Route.
-     * @param action Action to execute if the request matches this route.
+     * @param socket Connected socket.
+     * @param dispatched If a frame was dispatched as the request of the connection.
+     * @param error Reason the request failed, or null if it was handled.
      */
-    @Override
-    public void listen(String route, Connection action)
+    private void finish(Socket socket, boolean dispatched, Throwable error)
     {
-        synchronized (this.routes) {
-            this.routes.put(route, action);
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if (cause instanceof SocketTimeoutException || cause instanceof IllegalArgumentException
+                && cause.getCause() instanceof SocketTimeoutException) {
+            this.timedOut.incrementAndGet();
+        }
+
+        // Connections closed without a request, or whose frames are counted apart, complete none.
+        boolean completed = dispatched && cause == null;
+
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            completed = false;
+        } finally {
+            this.release(socket);
+            this.requestFinished(completed);
         }
     }
 
-    public void listen(String route, Consumer<Request> action) {
-        Connection connection = new Connection() {
-            @Override
-            public void run(Request request) {
-                action.accept(request);
+    /**
+     * Waits until the server is allowed to accept another connection.
+     *
+     * @return True if a connection can be accepted, false if the wait timed out.
+     */
+    private boolean awaitCapacity()
+    {
+        synchronized (this.connections) {
+            int max = this.limits.maxConnections();
+
+            if (max == 0 || this.connections.size() < max) {
+                return true;
             }
-        };
 
-        this.listen(route, connection);
+            try {
+                this.connections.wait(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            max = this.limits.maxConnections();
+
+            return max == 0 || this.connections.size() < max;
+        }
     }
-    
+
     /**
-     * Neglects an expected route.
+     * Registers an accepted connection if its address has not reached its limit.
      *
-     * @param route Route to be neglected.
+     * @param socket Accepted socket.
+     * @return True if the connection was admitted, false otherwise.
      */
-    @Override
-    public void forget(String route)
+    private boolean admit(Socket socket)
     {
-        synchronized (this.routes) {
-            this.routes.remove(route);
+        final int max = this.limits.maxConnectionsPerAddress();
+        final boolean[] admitted = new boolean[1];
+
+        // The count is checked and incremented atomically, so a counter being removed is never incremented.
+        this.connectionsPerAddress.compute(socket.getInetAddress(), (address, count) -> {
+            int current = count == null ? 0 : count;
+
+            if (max != 0 && current >= max) {
+                return count;
+            }
+
+            admitted[0] = true;
+
+            return current + 1;
+        });
+
+        if (! admitted[0]) {
+            return false;
         }
-        
-        synchronized (this.middlewares) {
-            this.middlewares.remove(route);
+
+        synchronized (this.connections) {
+            this.connections.add(socket);
         }
+
+        return true;
+    }
+
+    /**
+     * Releases a connection, allowing the server to accept new ones.
+     *
+     * @param socket Connection socket.
+     */
+    private void release(Socket socket)
+    {
+        if (! socket.isClosed()) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+
+        this.connectionsPerAddress.computeIfPresent(socket.getInetAddress(), (address, count) -> count <= 1 ? null : count - 1);
+
+        synchronized (this.connections) {
+            this.connections.remove(socket);
+            this.connections.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the limits applied to the accepted connections. Changes take effect
+     * on the next accepted connection, except the backlog which is applied
+     * when the server boots.
+     *
+     * @return Connection limits.
+     */
+    public ConnectionLimits limits()
+    {
+        return this.limits;
+    }
+
+    /**
+     * Gets the number of connections currently being handled.
+     *
+     * @return Number of active connections.
+     */
+    public int activeConnections()
+    {
+        return this.connections.size();
+    }
+
+    /**
+     * Gets the number of connections currently being handled for an address.
+     *
+     * @param address Address of the connections.
+     * @return Number of active connections of the address.
+     */
+    public int activeConnections(InetAddress address)
+    {
+        Integer count = this.connectionsPerAddress.get(address);
+
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Gets the number of connections rejected because their address reached
+     * its connection limit.
+     *
+     * @return Number of rejected connections.
+     */
+    public long rejectedConnections()
+    {
+        return this.rejected.get();
+    }
+
+    /**
+     * Gets the number of connections closed because they timed out.
+     *
+     * @return Number of timed out connections.
+     */
+    public long timedOutConnections()
+    {
+        return this.timedOut.get();
     }
 
     /**
@@ -220,108 +516,514 @@ public class TcpServer extends Server {
             throw new IllegalArgumentException("A server needs to be booted in order to be able to communicate.");
         }
         
-        String data[] = headers.split(";");
-        StringBuilder builder = new StringBuilder();
+        String route = headers.split(";")[0];
+        
+        Request request = new Request(route, message, new Requester(target, null));
 
-        builder.append(data[0]);
-        builder.append(" ");
-        builder.append(message.length());
-        builder.append("\r\n");
+        // The after middleware run on a request of their own, so this one is released here.
+        try {
+            this.executeBeforeMiddlewares(request);
+
+            message = request.message();
 
-        for (int i = 1; i < data.length; i++) {
-            builder.append(data[i]);
-            builder.append("\r\n");
+            this.protocol(route, target, message, this.frame(route, TcpFrame.headers(headers), message));
+        } finally {
+            this.services.release(request);
         }
-        
-        Map<String, Object> arguments = new HashMap<>();
-        arguments.put("volt-route", data[0]);
-        arguments.put("volt-message", message);
-        
-        Request request = new Request(arguments);
-        
-        this.executeBeforeMiddlewares(request);
+    }
 
-        message = (String) arguments.get("volt-message");
+    /**
+     * Sends a given set of headers with a message to every target. The
+     * before middleware run and the frame is encoded once, and the same
+     * frame is written to each target, unless a middleware of the route
+     * depends on the target, such as one with session keys. Those messages
+     * are built and sent to every target at the same time.
+     *
+     * @param headers Set of headers separated by ";", starting with the route.
+     * @param targets Target defined by IPv4:Port, of each target.
+     * @param message Message.
+     */
+    @Override
+    public void send(String headers, Collection<String> targets, String message)
+    {
+        try {
+            synchronized (this.server) {
+                if (this.server.isClosed()) {
+                    throw new IllegalArgumentException("This Tcp instance needs to have a open server to be able to communicate.");
+                }
+            }
+        } catch (NullPointerException e) {
+            throw new IllegalArgumentException("A server needs to be booted in order to be able to communicate.");
+        }
 
-        builder.append("\r\n");
-        builder.append(message);
+        String route = headers.split(";")[0];
 
-        this.protocol(data[0], target, builder.toString());
+        if (this.isTargeted(route)) {
+            final String original = message;
+
+            this.sendEach(targets, target -> this.send(headers, target, original));
+
+            return;
+        }
+
+        Request request = new Request(route, message, new Requester(null, null));
+
+        // The after middleware run on a request of their own, so this one is released here.
+        try {
+            this.executeBeforeMiddlewares(request);
+
+            message = request.message();
+
+            byte[] frame = this.frame(route, TcpFrame.headers(headers), message);
+
+            for (String target : targets) {
+                this.protocol(route, target, message, frame);
+            }
+        } finally {
+            this.services.release(request);
+        }
+    }
+
+    /**
+     * Sends a request to the given target. The request is written to a
+     * connection pooled for the target, which is shared by every request
+     * waiting for a reply from it.
+     *
+     * @param headers Set of headers separated by ";", starting with the route.
+     * @param target Target defined by IPv4:Port.
+     * @param message Message.
+     * @param timeout Seconds to wait for the reply.
+     * @return Future completed with the reply.
+     */
+    @Override
+    public CompletableFuture<Request> request(String headers, String target, String message, int timeout)
+    {
+        String route = headers.split(";")[0];
+
+        Request request = new Request(route, message, new Requester(target, null));
+
+        try {
+            this.executeBeforeMiddlewares(request);
+        } finally {
+            this.services.release(request);
+        }
+
+        TcpChannel channel;
+
+        try {
+            channel = this.channel(target);
+        } catch (IOException ex) {
+            CompletableFuture<Request> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+
+            return failed;
+        }
+
+        // The request is only opened once the target is known to be valid.
+        long id = this.correlator.open(route, timeout);
+        CompletableFuture<Request> future = this.correlator.future(id);
+
+        Map<String, String> frameHeaders = TcpFrame.headers(headers);
+        frameHeaders.put("Correlation", String.valueOf(id));
+
+        try {
+            channel.write(id, future, this.frame(route, frameHeaders, request.message()));
+        } catch (IOException ex) {
+            this.correlator.fail(id, ex);
+        }
+
+        return future;
+    }
+
+    /**
+     * Gets the pooled connection of a target, opening it if needed.
+     *
+     * @param target Target defined by IPv4:Port.
+     * @return Pooled connection.
+     * @throws IOException If the connection could not be opened.
+     * @throws IllegalArgumentException If the target is not defined as IPv4:Port.
+     */
+    private TcpChannel channel(String target) throws IOException
+    {
+        synchronized (this.channels) {
+            TcpChannel channel = this.channels.get(target);
+
+            if (channel != null && channel.isOpen()) {
+                return channel;
+            }
+
+            String[] targetData = target.split(":");
+
+            if (targetData.length < 2) {
+                throw new IllegalArgumentException("Target must be defined as IPv4:Port.");
+            }
+
+            int port;
+
+            try {
+                port = Integer.parseInt(targetData[1]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Target must be defined as IPv4:Port.");
+            }
+
+            channel = new TcpChannel(this, target, this.connect(targetData[0], port));
+            this.channels.put(target, channel);
+
+            return channel;
+        }
+    }
+
+    /**
+     * Completes the request of a reply received in a pooled connection.
+     *
+     * @param socket Pooled connection socket.
+     * @param target Target defined by IPv4:Port.
+     * @param frame Reply frame.
+     */
+    void completeReply(Socket socket, String target, TcpFrame frame)
+    {
+        long id;
+
+        try {
+            id = Long.parseLong(frame.header("Reply"));
+        } catch (NumberFormatException ex) {
+            return;
+        }
+
+        Request reply = this.request(frame, new Requester(target, socket.getInetAddress()));
+
+        try {
+            if (! this.executeReplyMiddlewares(reply)) {
+                this.correlator.fail(id, new IllegalArgumentException("The reply to request " + id + " was refused by a middleware."));
+                return;
+            }
+
+            this.correlator.complete(id, reply);
+        } finally {
+            this.services.release(reply);
+        }
+    }
+
+    /**
+     * Fails a request sent through a pooled connection.
+     *
+     * @param id Correlation ID.
+     * @param cause Reason of the failure.
+     */
+    void fail(long id, Throwable cause)
+    {
+        this.correlator.fail(id, cause);
+    }
+
+    /**
+     * Fails the requests waiting for a reply and closes the pooled connections.
+     */
+    @Override
+    protected void closeRequests()
+    {
+        synchronized (this.channels) {
+            for (TcpChannel channel : this.channels.values()) {
+                channel.close();
+            }
+
+            this.channels.clear();
+        }
+
+        super.closeRequests();
     }
 
     /**
      * Communication Protocol.
      *
      * @param socket Connected socket.
-     * @param input Server input stream.
+     * @param reader Reads the frames of the connection.
+     * @param input Server input stream, handed over to the route.
      * @param output Server output stream.
+     * @return Future completed once the connection can be closed, with true
+     * if a frame was dispatched as the request of the connection.
+     * @throws IOException If the frame could not be read.
+     */
+    protected CompletableFuture<Boolean> protocol(Socket socket, TcpFrameReader reader, BufferedReader input, PrintWriter output) throws IOException
+    {
+        TcpFrame frame = reader.read();
+
+        if (frame == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        if (frame.header("Correlation") != null) {
+            this.multiplex(socket, reader, frame);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Route route = this.route(frame.route);
+
+        if (route == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Request data = this.request(frame, this.requester(socket))
+                .socket(socket)
+                .input(input)
+                .output(output);
+
+        // The frame was read, from now on the route owns the connection.
+        socket.setSoTimeout(this.limits.idleTimeout());
+
+        // Requests stopped by a middleware were still handled, as they are over UDP.
+        return this.dispatch(route.action, data).thenApply(handled -> true);
+    }
+
+    /**
+     * Serves a pooled connection, in which every frame is a request carrying
+     * a correlation ID. The requests are handled concurrently and each reply
+     * carries the ID of its request, so they may be sent in any order.
+     *
+     * @param socket Connected socket.
+     * @param reader Reads the frames of the connection.
+     * @param frame First frame of the connection.
+     * @throws IOException If a frame could not be read.
+     */
+    private void multiplex(Socket socket, TcpFrameReader reader, TcpFrame frame) throws IOException
+    {
+        final OutputStream output = socket.getOutputStream();
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        socket.setSoTimeout(this.limits.idleTimeout());
+        this.resizeFrameExecutor();
+        this.pooled.put(socket, inFlight);
+
+        try {
+            do {
+                // Frames received while draining are dropped, the connection is closed once idle.
+                if (this.draining) {
+                    break;
+                }
+
+                final TcpFrame current = frame;
+
+                // Each frame is a request of its own, the connection is counted apart.
+                inFlight.incrementAndGet();
+                this.requestStarted();
+
+                this.frames.execute(() -> this.serve(socket, output, current, inFlight));
+            } while ((frame = reader.read()) != null);
+        } finally {
+            this.pooled.remove(socket);
+
+            // The replies are written to the connection, so it stays open until every frame is handled.
+            synchronized (inFlight) {
+                while (inFlight.get() > 0 && ! socket.isClosed()) {
+                    try {
+                        inFlight.wait(1000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles a frame of a pooled connection.
+     *
+     * @param socket Connected socket.
+     * @param output Output stream of the connection.
+     * @param frame Frame.
+     * @param inFlight Number of frames of the connection being handled.
      */
-    protected void protocol(Socket socket, BufferedReader input, PrintWriter output)
+    private void serve(Socket socket, OutputStream output, TcpFrame frame, AtomicInteger inFlight)
     {
-        // Handle the request headers.
-        String headers = this.getHeaders(input);
+        CompletableFuture<Boolean> handled;
+
+        try {
+            handled = this.correlated(socket, output, frame);
+        } catch (RuntimeException | Error ex) {
+            this.frameFinished(socket, inFlight, false);
+            throw ex;
+        }
 
-        if (headers == null || headers.isEmpty()) {
+        handled.whenComplete((result, error) -> this.frameFinished(socket, inFlight, error == null));
+    }
+
+    /**
+     * Marks the end of the handling of a frame of a pooled connection.
+     *
+     * @param socket Connected socket.
+     * @param inFlight Number of frames of the connection being handled.
+     * @param completed True if the frame was handled to completion.
+     */
+    private void frameFinished(Socket socket, AtomicInteger inFlight, boolean completed)
+    {
+        int left = inFlight.decrementAndGet();
+
+        this.requestFinished(completed);
+
+        if (left > 0) {
             return;
         }
 
-        Map<String, Object> args = new HashMap<>();
+        synchronized (inFlight) {
+            inFlight.notifyAll();
+        }
+
+        if (this.draining) {
+            this.close(socket);
+        }
+    }
+
+    /**
+     * Creates the executor of the frames of pooled connections. When its
+     * queue is full, the frame is handled by the thread reading the
+     * connection, which stops reading until it is done.
+     *
+     * @return Frame executor.
+     */
+    private ThreadPoolExecutor frameExecutor()
+    {
+        final AtomicInteger count = new AtomicInteger();
+        int threads = this.limits.frameThreads();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads * 4), task -> {
+                    Thread thread = new Thread(task, "volt-frame-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
 
-	// Request example:
-        // :route 250\r\n
-        // Other headers\r\n
-        // Message
-        String[] request = headers.split("\n");
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
 
-        String[] first = request[0].split(" ");
-        Connection action = null;
+    /**
+     * Applies the frame thread limit, if it was changed.
+     */
+    private void resizeFrameExecutor()
+    {
+        int threads = this.limits.frameThreads();
 
-        synchronized (this.routes) {
-            if (!this.routes.containsKey(first[0])) {
+        synchronized (this.frames) {
+            if (this.frames.getMaximumPoolSize() == threads) {
                 return;
             }
 
-            action = this.routes.get(first[0]);
+            // The core size can never exceed the maximum size.
+            if (threads > this.frames.getMaximumPoolSize()) {
+                this.frames.setMaximumPoolSize(threads);
+                this.frames.setCorePoolSize(threads);
+            } else {
+                this.frames.setCorePoolSize(threads);
+                this.frames.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    private void close(Socket socket)
+    {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // Don't do anything.
+        }
+    }
+
+    /**
+     * Handles a request received in a pooled connection.
+     *
+     * @param socket Connected socket.
+     * @param output Socket output stream, shared by every reply.
+     * @param frame Request frame.
+     * @return Future completed once the request was handled.
+     */
+    private CompletableFuture<Boolean> correlated(Socket socket, OutputStream output, TcpFrame frame)
+    {
+        Route route = this.route(frame.route);
+
+        if (route == null) {
+            return CompletableFuture.completedFuture(false);
         }
 
-        args.put("volt-route", first[0]);
-        args.put("volt-length", first[1]);
+        final String id = frame.header("Correlation");
 
-        int i = 1;
+        Request request = this.request(frame, this.requester(socket)).responder(response -> {
+            Request reply = new Request(frame.route, response, this.requester(socket));
 
-        for (; i < request.length; i++) {
-            if (request[i].isEmpty()) {
-                break;
+            try {
+                this.executeBeforeMiddlewares(reply);
+            } finally {
+                this.services.release(reply);
             }
 
-            // Handle other headers.
-            String[] line = request[i].split(":");
-            args.put(line[0], line[1]);
-        }
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Reply", id);
 
-        StringBuilder message = new StringBuilder();
+            byte[] encoded = this.frame(frame.route, headers, reply.message());
 
-        i++;
+            try {
+                synchronized (output) {
+                    output.write(encoded);
+                    output.flush();
+                }
+            } catch (IOException ex) {
+                throw new IllegalArgumentException(ex.getMessage(), ex);
+            }
+        });
 
-        for (; i < request.length; i++) {
-            message.append(request[i]);
+        return this.dispatch(route.action, request);
+    }
+
+    /**
+     * Builds the request of a received frame.
+     *
+     * @param frame Received frame.
+     * @param requester Sender of the frame.
+     * @return Request.
+     */
+    private Request request(TcpFrame frame, Requester requester)
+    {
+        return new Request(frame.route, frame.message(), requester)
+                .length(frame.body.length)
+                .headers(frame.headers);
+    }
+
+    /**
+     * Gets the requester of a connected socket.
+     *
+     * @param socket Connected socket.
+     * @return Requester.
+     */
+    private Requester requester(Socket socket)
+    {
+        InetAddress address = socket.getInetAddress();
+
+        return new Requester(address.getHostAddress() + ":" + socket.getPort(), address);
+    }
+
+    /**
+     * Encodes a frame, compressing its message when the server compresses
+     * its messages.
+     *
+     * @param route Targeted route.
+     * @param headers Headers, other than the route and length.
+     * @param message Message.
+     * @return Encoded frame.
+     */
+    byte[] frame(String route, Map<String, String> headers, String message)
+    {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = this.compressor.compress(body);
+
+        if (compressed == null) {
+            return TcpFrame.encode(route, headers, body);
         }
 
-        args.put("volt-message", message.toString());
-        args.put("volt-from", socket.getInetAddress().getHostAddress() + ":" + socket.getPort());
-        args.put("volt-hostname", socket.getInetAddress().getHostName());
-        args.put("volt-input", input);
-        args.put("volt-output", output);
-        args.put("volt-socket", socket);
-        args.put("volt-address", socket.getInetAddress());
-        
-        Request data = new Request(args);
-        
-        this.executeBeforeMiddlewares(data);
-        
-        action.run(new Request(args));
-        
-        this.executeAfterMiddlewares(data);
+        Map<String, String> compressedHeaders = new LinkedHashMap<>(headers);
+        compressedHeaders.put("Content-Encoding", "deflate");
+
+        return TcpFrame.encode(route, compressedHeaders, compressed);
     }
 
     /**
@@ -329,9 +1031,10 @@ public class TcpServer extends Server {
      *
      * @param route Target route.
      * @param target Target address and port (IPv4:Port)
-     * @param message Message to be sent (includes headers)
+     * @param message Message to be sent.
+     * @param frame Frame to be sent (includes headers)
      */
-    protected void protocol(String route, String target, String message)
+    protected void protocol(String route, String target, String message, byte[] frame)
     {
         String[] targetData = target.split(":");
 
@@ -340,23 +1043,13 @@ public class TcpServer extends Server {
         }
 
         try {
-            Socket socket = new Socket(targetData[0], Integer.parseInt(targetData[1]));
-            this.reply(socket, message);
-            
-            final Map<String, Object> args = new HashMap<>();
+            Socket socket = this.connect(targetData[0], Integer.parseInt(targetData[1]));
+            this.reply(socket, frame);
             
-            args.put("volt-message", message);
-            args.put("volt-route", route);
-            args.put("volt-length", message.length());
-            args.put("volt-from", socket.getInetAddress().getHostAddress() + ":" + socket.getPort());
-            args.put("volt-hostname", socket.getInetAddress().getHostName());
-            args.put("volt-input", new BufferedReader(new InputStreamReader(socket.getInputStream())));
-            args.put("volt-output", new PrintWriter(socket.getOutputStream(), true));
-            args.put("volt-socket", socket);
-            args.put("volt-address", socket.getInetAddress());
-            args.put("volt-target", target);
-            
-            Request data = new Request(args);
+            Request data = new Request(route, message, new Requester(target, socket.getInetAddress()))
+                    .socket(socket)
+                    .input(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)))
+                    .output(new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true));
             
             this.executeAfterMiddlewares(data);
             
@@ -366,49 +1059,6 @@ public class TcpServer extends Server {
         }
     }
 
-    /**
-     * Gets the headers, which follow the HTTP format, from the input stream.
-     *
-     * @param input Input stream.
-     * @return Headers.
-     */
-    private String getHeaders(BufferedReader input)
-    {
-        String headers = null;
-
-        try {
-            String lines = input.readLine();
-            headers = lines;
-
-            while (lines != null && !lines.isEmpty()) {
-                lines = input.readLine();
-                headers += '\n' + lines;
-            }
-        } catch (IOException ex) {
-            throw new IllegalArgumentException(ex.getMessage());
-        }
-
-        return headers;
-//        String headers = null;
-//
-//        try {
-//            String lines = input.readLine();
-//            headers = lines;
-//
-//            while ((lines = input.readLine()) != null) {
-//                headers += '\n' + lines;
-//                
-//                if (headers.endsWith("\r\n")) {
-//                    break;
-//                }
-//            }
-//        } catch (IOException ex) {
-//            throw new IllegalArgumentException(ex.getMessage());
-//        }
-//
-//        return headers;
-    }
-
     /**
      * Allows the server to send a response to a socket.
      *
@@ -0,0 +1,178 @@
+package com.github.oxyzero.volt.protocols.tls;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+/**
+ * Holds the TLS context shared by every TLS server and client of Volt.
+ *
+ * Both sides draw their sockets from the same context, so the sessions it
+ * caches are resumed when a client reconnects to a known peer, skipping the
+ * full handshake. Clients verify that the certificate of a server was
+ * issued for the address they reached it at. For local testing a
+ * self-signed keystore is enough:
+ *
+ * keytool -genkeypair -alias volt -keyalg EC -keystore volt.p12
+ *         -storetype PKCS12 -dname "CN=localhost" -storepass changeit
+ *         -ext SAN=dns:localhost,ip:127.0.0.1
+ *
+ * Tls.keystore("volt.p12", "changeit".toCharArray());
+ */
+public class Tls {
+
+    /**
+     * Default number of cached sessions.
+     */
+    private static final int SESSION_CACHE_SIZE = 1024;
+
+    /**
+     * Default lifetime of a cached session, in seconds.
+     */
+    private static final int SESSION_TIMEOUT = 3600;
+
+    /**
+     * Current TLS context.
+     */
+    private static SSLContext context;
+
+    /**
+     * Gets the TLS context. If none was configured, a context of its own is
+     * created from the javax.net.ssl system properties, so the session cache
+     * of the JVM default context is left untouched.
+     *
+     * @return TLS context.
+     */
+    public static synchronized SSLContext context()
+    {
+        if (Tls.context == null) {
+            try {
+                String path = System.getProperty("javax.net.ssl.keyStore");
+                KeyManager[] keys = null;
+
+                if (path != null && ! path.isEmpty() && ! path.equals("NONE")) {
+                    String password = System.getProperty("javax.net.ssl.keyStorePassword", "");
+                    KeyStore store = Tls.load(path, System.getProperty("javax.net.ssl.keyStoreType", KeyStore.getDefaultType()), password.toCharArray());
+
+                    KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                    factory.init(store, password.toCharArray());
+                    keys = factory.getKeyManagers();
+                }
+
+                // The default trust managers read the javax.net.ssl.trustStore properties.
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(keys, null, null);
+
+                Tls.context(context);
+            } catch (IOException | GeneralSecurityException ex) {
+                throw new IllegalArgumentException("Could not load the default TLS context. " + ex.getMessage(), ex);
+            }
+        }
+
+        return Tls.context;
+    }
+
+    /**
+     * Sets the TLS context used by the servers and clients created from now on.
+     *
+     * @param context TLS context.
+     */
+    public static synchronized void context(SSLContext context)
+    {
+        if (context == null) {
+            throw new IllegalArgumentException("The TLS context cannot be null.");
+        }
+
+        Tls.context = context;
+        Tls.sessionCache(SESSION_CACHE_SIZE, SESSION_TIMEOUT);
+    }
+
+    /**
+     * Builds the TLS context from a keystore. The keystore is used both as
+     * the identity of the servers and as the trusted certificates of the
+     * clients, which allows self-signed certificates to be used.
+     *
+     * @param path Keystore path.
+     * @param password Keystore password.
+     */
+    public static void keystore(String path, char[] password)
+    {
+        Tls.context(Tls.build(path, password));
+    }
+
+    /**
+     * Builds a TLS context from a keystore, without making it the context of
+     * Volt. The keystore is used both as the identity of the server and as
+     * the trusted certificates of the client.
+     *
+     * @param path Keystore path.
+     * @param password Keystore password.
+     * @return TLS context.
+     */
+    public static SSLContext build(String path, char[] password)
+    {
+        try {
+            KeyStore store = Tls.load(path, KeyStore.getDefaultType(), password);
+
+            KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keys.init(store, password);
+
+            TrustManagerFactory trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trust.init(store);
+
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keys.getKeyManagers(), trust.getTrustManagers(), null);
+
+            return context;
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new IllegalArgumentException("Could not load the keystore " + path + ". " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Loads a keystore.
+     *
+     * @param path Keystore path.
+     * @param type Keystore type.
+     * @param password Keystore password.
+     * @return Keystore.
+     */
+    private static KeyStore load(String path, String type, char[] password) throws IOException, GeneralSecurityException
+    {
+        try (InputStream input = new FileInputStream(path)) {
+            KeyStore store = KeyStore.getInstance(type);
+            store.load(input, password);
+
+            return store;
+        }
+    }
+
+    /**
+     * Configures the session cache of both the server and client side.
+     *
+     * @param size Maximum number of cached sessions, 0 for no limit.
+     * @param timeout Lifetime of a cached session in seconds, 0 for no limit.
+     */
+    public static synchronized void sessionCache(int size, int timeout)
+    {
+        if (size < 0 || timeout < 0) {
+            throw new IllegalArgumentException("The session cache size and timeout cannot be negative.");
+        }
+
+        SSLContext context = Tls.context();
+
+        for (SSLSessionContext sessions : new SSLSessionContext[] { context.getServerSessionContext(), context.getClientSessionContext() }) {
+            if (sessions != null) {
+                sessions.setSessionCacheSize(size);
+                sessions.setSessionTimeout(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.oxyzero.volt.protocols.tls;
+
+import com.github.oxyzero.volt.protocols.tcp.TcpClient;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * This class represents a client that allows to quickly send a message to
+ * a Volt TLS server instance.
+ *
+ * @see Tls
+ */
+public class TlsClient extends TcpClient {
+
+    /**
+     * Creates a new TLS Client using a dynamic port.
+     */
+    public TlsClient() {
+        this(0);
+    }
+
+    /**
+     * Creates a new TLS Client.
+     *
+     * @param port Client port. Use 0 to use a dynamic port.
+     */
+    public TlsClient(int port) {
+        super(new TlsServer(), port);
+    }
+
+    /**
+     * Creates a new TLS Client using the given context.
+     *
+     * @param context TLS context.
+     * @param port Client port. Use 0 to use a dynamic port.
+     */
+    public TlsClient(SSLContext context, int port) {
+        super(new TlsServer(context), port);
+    }
+}
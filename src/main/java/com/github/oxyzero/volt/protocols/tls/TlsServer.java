@@ -0,0 +1,91 @@
+package com.github.oxyzero.volt.protocols.tls;
+
+import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * This class represents a TCP server whose connections are secured by TLS.
+ *
+ * @see Tls
+ */
+public class TlsServer extends TcpServer {
+
+    /**
+     * TLS context used to create the sockets.
+     */
+    private final SSLContext context;
+
+    /**
+     * Creates a TLS server using the context configured in {@link Tls}.
+     */
+    public TlsServer()
+    {
+        this(Tls.context());
+    }
+
+    /**
+     * Creates a TLS server using the given context.
+     *
+     * @param context TLS context.
+     */
+    public TlsServer(SSLContext context)
+    {
+        super();
+
+        this.context = context;
+    }
+
+    /**
+     * Creates a TLS server that shares the routes, middleware and services
+     * of another server, using the context configured in {@link Tls}.
+     *
+     * @param owner Server to share the routes with.
+     */
+    public TlsServer(Server owner)
+    {
+        this(owner, Tls.context());
+    }
+
+    /**
+     * Creates a TLS server that shares the routes, middleware and services
+     * of another server, using the given context.
+     *
+     * @param owner Server to share the routes with.
+     * @param context TLS context.
+     */
+    public TlsServer(Server owner, SSLContext context)
+    {
+        super(owner);
+
+        this.context = context;
+    }
+
+    @Override
+    protected ServerSocket createServerSocket(int port, int backlog) throws IOException
+    {
+        return this.context.getServerSocketFactory().createServerSocket(port, backlog);
+    }
+
+    @Override
+    protected Socket connect(String host, int port) throws IOException
+    {
+        // Sockets created by the same context resume the cached session of the peer.
+        SSLSocket socket = (SSLSocket) this.context.getSocketFactory().createSocket(host, port);
+
+        // The certificate of the peer must be issued for the host it was reached at.
+        SSLParameters parameters = socket.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        socket.setSSLParameters(parameters);
+
+        socket.startHandshake();
+
+        return socket;
+    }
+}
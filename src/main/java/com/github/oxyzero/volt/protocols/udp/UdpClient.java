@@ -3,12 +3,12 @@ package com.github.oxyzero.volt.protocols.udp;
 import com.github.oxyzero.volt.Client;
 import com.github.oxyzero.volt.Connection;
 import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
 import com.github.oxyzero.volt.support.Task;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -18,6 +18,11 @@ import java.util.function.Consumer;
  * @author Renato Machado
  */
 public class UdpClient extends Client {
+
+    /**
+     * Server that sends the requests and receives their replies.
+     */
+    private UdpServer requests;
     
     /**
      * Creates a new UDP Client using a dynamic port.
@@ -37,25 +42,98 @@ public class UdpClient extends Client {
         super(new UdpServer(), port);
     }
 
+    @Override
+    public CompletableFuture<Request> request(String route, String target, String message, int timeout) {
+        return this.watch(target, this.requests().request(route, target, message, timeout));
+    }
+
+    /**
+     * Gets the server used for requests. It streams on its own dynamic port,
+     * so every request of the client shares one socket and the replies are
+     * received while the scheduled sends boot and shut down the client. It
+     * shares the routes, middleware and services of the client and uses the
+     * same key. A persistent client sends its requests from its own socket.
+     *
+     * @return Streaming server.
+     */
+    private synchronized UdpServer requests() {
+        if (this.isPersistent()) {
+            this.open();
+
+            return (UdpServer) this.client();
+        }
+
+        if (this.requests == null || ! this.requests.isActive()) {
+            final UdpServer server = new UdpServer(this.client());
+
+            server.encryption(((UdpServer) this.client()).encryption());
+            server.boot(0);
+
+            new Thread() {
+                @Override
+                public void run() {
+                    server.receive();
+                }
+            }.start();
+
+            this.requests = server;
+        }
+
+        return this.requests;
+    }
+
+    /**
+     * Boots the client and receives the replies of its requests on the same
+     * socket its messages are sent from.
+     *
+     * @return True if the client was booted, false if it was already open.
+     */
+    @Override
+    protected boolean open() {
+        if (! super.open()) {
+            return false;
+        }
+
+        final UdpServer server = (UdpServer) this.client();
+
+        new Thread() {
+            @Override
+            public void run() {
+                server.receive();
+            }
+        }.start();
+
+        return true;
+    }
+
+    /**
+     * Destroys the client, failing the requests still waiting for a reply.
+     */
+    @Override
+    public synchronized void destroy() {
+        super.destroy();
+
+        if (this.requests != null) {
+            this.requests.closeRequests();
+            this.requests.shutdown();
+            this.requests = null;
+        }
+    }
+
     @Override
     public Client send(String route, String target, Connection connection) {
         Task request = new Task() {
             @Override
             public void fire() {
-                Map<String, Object> args = new HashMap<>();
-                args.put("volt-message", "");
-                args.put("volt-length", 0);
-                args.put("volt-route", route);
-                args.put("volt-target", target);
+                InetAddress address;
 
                 try {
-                    String address = target.split(":")[0];
-                    args.put("volt-address", InetAddress.getByName(address));
+                    address = InetAddress.getByName(target.split(":")[0]);
                 } catch (UnknownHostException e) {
                     throw new IllegalArgumentException("The target is not a known address.");
                 }
 
-                Request request = new Request(args);
+                Request request = new Request(route, "", new Requester(target, address));
 
                 connection.onEnter();
                 connection.run(request);
@@ -1,21 +1,28 @@
 package com.github.oxyzero.volt.protocols.udp;
 
-import com.github.oxyzero.volt.Connection;
+import com.github.oxyzero.volt.Concurrency;
 import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
 import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.support.Compressor;
+import com.github.oxyzero.volt.support.Encrypter;
+import com.github.oxyzero.volt.support.LocalAddresses;
 import com.github.oxyzero.volt.support.Task;
 import com.github.oxyzero.volt.support.TaskManager;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.net.*;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import java.util.zip.CRC32;
 
 public class UdpServer extends Server {
@@ -25,11 +32,6 @@ public class UdpServer extends Server {
      */
     private DatagramSocket server;
 
-    /**
-     * Given an hashed route, return the associated route.
-     */
-    private final Map<String, String> hashedRoutes;
-    
     /**
      * Identifies the multiple packets sent by a requester.
      * 
@@ -37,20 +39,74 @@ public class UdpServer extends Server {
      *      - Message Checksum
      *          Packet ID - Message Part
      */
-    protected final Map<String, Map<String, Map<Integer, String>>> packets;
+    protected final Map<String, Map<String, Map<Integer, byte[]>>> packets;
+
+    /**
+     * Seals the datagrams with AES-GCM.
+     */
+    private final Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+
+    /**
+     * Key of the datagrams, or null if they are not encrypted.
+     */
+    private volatile byte[] key;
     
     public UdpServer() {
         super();
         
         this.server = null;
         this.packets = new HashMap<>();
-        this.hashedRoutes = new HashMap<>();
+    }
+
+    /**
+     * Creates a UDP server that shares the routes, middleware and services
+     * of another server.
+     *
+     * @param owner Server to share the routes with.
+     */
+    public UdpServer(Server owner) {
+        super(owner);
+
+        this.server = null;
+        this.packets = new HashMap<>();
     }
 
     public void close() {
         super.active = false;
     }
 
+    /**
+     * Encrypts every datagram sent with AES-GCM and the given key, and
+     * decrypts the encrypted datagrams received. Each datagram of a message
+     * is sealed on its own, in parallel, and is authenticated together with
+     * its headers, so the receiver decrypts the datagrams as they arrive.
+     * Datagrams received in the clear are dropped while the server has a
+     * key. Both ends must use the same key.
+     *
+     * @param key AES key, with 16, 24 or 32 bytes, or null to stop encrypting.
+     * @return self
+     */
+    public UdpServer encryption(byte[] key) {
+        if (key != null && key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("The encryption key must have 16, 24 or 32 bytes.");
+        }
+
+        this.key = key == null ? null : key.clone();
+
+        return this;
+    }
+
+    /**
+     * Gets the key of the datagrams.
+     *
+     * @return AES key, or null if the datagrams are not encrypted.
+     */
+    public byte[] encryption() {
+        byte[] key = this.key;
+
+        return key == null ? null : key.clone();
+    }
+
     public DatagramSocket server() {
         synchronized (this.server) {
             return this.server;
@@ -69,6 +125,7 @@ public class UdpServer extends Server {
             super.connectedPort = port;
             this.server = new DatagramSocket(port);
             this.server.setSoTimeout(1000);
+            super.connectedPort = this.server.getLocalPort();
         } catch (SocketException ex) {
             super.connectedPort = -1;
             super.active = false;
@@ -95,76 +152,44 @@ public class UdpServer extends Server {
         }
     }
 
-    /**
-     * Handles the given request route.
-     *
-     * @param request Request route.
-     * @return True if successful in handling the route, false if they don't
-     * match.
-     */
-    private synchronized Connection getActionFromRequest(String request, String message, Map<String, Object> arguments) {
-        Connection action = null;
-        String route = null;
-        
-        if (this.hashedRoutes.containsKey(request)) {
-            route = this.hashedRoutes.get(request);
-            action = this.routes.get(route);
-        }
-            
-        if (action == null || route == null) {
-            return null;
-        }
-        
-        arguments.put("volt-message", message);
-        arguments.put("volt-route", route);
-        
-        // We have found an action to perform, but now we need the route arguments.
-        // Since we can pass up as much information as possible in a Packet,
-        // we'll control the messages using a cyclic route. This means that we
-        // need to break the message for each route cycle. For example:
-        // Route: :name|:file
-        // Message: Students|Students.json|foobar|foobar.xml
-        // Gives:
-        // Variable :name -> [ Students, foobar ]
-        // Variable :file -> [ Students.json, foobar.xml ]
-        
-        String[] routeTokens = route.split("\\|");
-        String[] requestTokens = ((String) arguments.get("volt-message")).split("\\|");
-        
-        int length = requestTokens.length / routeTokens.length;
-        
-        for (int i = 0; i < routeTokens.length; i++) {
-            routeTokens[i] = routeTokens[i].substring(1);
-            arguments.put(routeTokens[i], new ArrayList<>());
-        }
-        
-        int item = 0;
-        
-        for (int i = 0; i < length; i++) {
-            for (String routeToken : routeTokens) {
-                ((List) arguments.get(routeToken)).add(requestTokens[item++]);
-            }
-        }
-
-        return action;
-    }
-    
     /**
      * Gets the UDP packet headers.
      * 
-     * @param packet Packet message.
+     * @param header Packet header, without the "@" separator.
      * @return Map containing the header names as key and header values as value.
      */
-    private Map<String, String> getPacketHeaders(String packet) {
+    private Map<String, String> getPacketHeaders(String header) {
         Map<String, String> headers = new HashMap<>();
 
-        String[] tokens = packet.split("@")[0].split(":");
+        String[] tokens = header.split(":");
 
         headers.put("id", tokens[0]);
         headers.put("count", tokens[1]);
         headers.put("route", tokens[2]);
         headers.put("checksum", tokens[3]);
 
+        // Optional extensions, identified by their first character.
+        for (int i = 4; i < tokens.length; i++) {
+            if (tokens[i].isEmpty()) {
+                continue;
+            }
+
+            switch (tokens[i].charAt(0)) {
+                case 'q':
+                    headers.put("request", tokens[i].substring(1));
+                    break;
+                case 'r':
+                    headers.put("reply", tokens[i].substring(1));
+                    break;
+                case 'z':
+                    headers.put("compressed", "true");
+                    break;
+                case 'e':
+                    headers.put("encrypted", "true");
+                    break;
+            }
+        }
+
         return headers;
     }
     
@@ -189,6 +214,13 @@ public class UdpServer extends Server {
             super.connectedPort = this.server().getLocalPort();
         }
 
+        this.receive();
+    }
+
+    /**
+     * Receives and handles the packets until the server is shut down.
+     */
+    protected void receive() {
         while (isActive()) {
             try {
                 
@@ -200,37 +232,61 @@ public class UdpServer extends Server {
                     @Override
                     public void run() {
                         final Map<String, String> headers;
-                        final String packet;
                         final String client;
-                        final String message;
+                        final byte[] header;
+                        final byte[] received;
+                        final byte[] payload;
                         final InetAddress address;
                         
                         synchronized (request) {
-                            try {    
-                                packet = new String(request.getData(), "UTF-8");
-                            } catch (UnsupportedEncodingException ex) {
-                                Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
-                                this.interrupt();
+                            byte[] data = request.getData();
+                            int length = request.getLength();
+                            int at = 0;
+
+                            while (at < length && data[at] != '@') {
+                                at++;
+                            }
+
+                            if (at == length) {
                                 return;
                             }
 
-                            headers = getPacketHeaders(packet);
+                            headers = getPacketHeaders(new String(data, 0, at, StandardCharsets.US_ASCII));
                             address = request.getAddress();
-                            message = packet.split("@")[1].trim();
+                            header = Arrays.copyOfRange(data, 0, at);
+                            received = Arrays.copyOfRange(data, at + 1, length);
 
-                            client = (request.getAddress() + ":" + request.getPort()).substring(1);
+                            client = request.getAddress().getHostAddress() + ":" + request.getPort();
+                        }
+
+                        // Each datagram is decrypted by its own thread as soon as it arrives.
+                        try {
+                            payload = open(headers, header, received);
+                        } catch (IllegalArgumentException ex) {
+                            // Drops datagrams that cannot be authenticated.
+                            return;
                         }
                         
                         if (! headers.get("count").equals("1")) {
+                            final ByteArrayOutputStream builder = new ByteArrayOutputStream();
+
                             synchronized (packets) {
                                 if (! packets.containsKey(client)) {
-                                    Map<String, Map<Integer, String>> map = new HashMap<>();
+                                    if (draining) {
+                                        return;
+                                    }
+
+                                    Map<String, Map<Integer, byte[]>> map = new HashMap<>();
                                     packets.put(client, map);
                                 }
                                    
                                 if (! packets.get(client).containsKey(headers.get("checksum"))) {
-                                    Map<Integer, String> id = new HashMap<>();
-                                    id.put(Integer.parseInt(headers.get("id")), message);
+                                    if (draining) {
+                                        return;
+                                    }
+
+                                    Map<Integer, byte[]> id = new HashMap<>();
+                                    id.put(Integer.parseInt(headers.get("id")), payload);
 
                                     packets.get(client).put(headers.get("checksum"), id);
 
@@ -240,17 +296,8 @@ public class UdpServer extends Server {
                                     manager.after(5).once(new Task() {
                                         @Override
                                         public void fire() {
-                                            
-                                            int count = Integer.parseInt(headers.get("count"));
-
-                                            if (packets.get(client).get(headers.get("checksum")).size() == count) {
-                                                this.kill();
-                                                manager.destroy();
-                                                interrupt();
-                                                return;
-                                            }
-                                            
-                                            packets.get(client).remove(headers.get("checksum"));
+                                            // Drops the message if it is still incomplete.
+                                            forgetPackets(client, headers.get("checksum"));
                                             this.kill();
                                             manager.destroy();
                                             interrupt();
@@ -258,24 +305,34 @@ public class UdpServer extends Server {
                                     });
                                 }
                                 
-                                packets.get(client).get(headers.get("checksum")).put(Integer.parseInt(headers.get("id")), message);
+                                packets.get(client).get(headers.get("checksum")).put(Integer.parseInt(headers.get("id")), payload);
                                 
                                 int count = Integer.parseInt(headers.get("count"));
                                 
-                                if (packets.get(client).get(headers.get("checksum")).size() == count) {
-                                    final StringBuilder builder = new StringBuilder();
-                                    
-                                    for (int i = 1; i <= count; i++) {
-                                        builder.append(packets.get(client).get(headers.get("checksum")).get(i));
-                                    }
-                                    
-                                    String requestMessage = builder.toString();
-                                    
-                                    handleAction(headers, client, address, requestMessage);
+                                if (packets.get(client).get(headers.get("checksum")).size() < count) {
+                                    return;
+                                }
+
+                                for (int i = 1; i <= count; i++) {
+                                    byte[] part = packets.get(client).get(headers.get("checksum")).get(i);
+                                    builder.write(part, 0, part.length);
                                 }
+
+                                forgetPackets(client, headers.get("checksum"));
+                            }
+
+                            // The message is handled outside of the lock, so other messages keep being reassembled.
+                            try {
+                                handleAction(headers, client, address, decode(headers, builder.toByteArray()));
+                            } catch (IllegalArgumentException ex) {
+                                // Drops malformed messages.
+                            }
+                        } else if (! draining) {
+                            try {
+                                handleAction(headers, client, address, decode(headers, payload));
+                            } catch (IllegalArgumentException ex) {
+                                // Drops malformed messages.
                             }
-                        } else {
-                            handleAction(headers, client, address, message);
                         }
                         
                     }
@@ -292,31 +349,140 @@ public class UdpServer extends Server {
         } catch (NullPointerException e) {}
     }
 
+    /**
+     * Forgets the packets received for a multipart message.
+     *
+     * @param client Requester IPv4:Port.
+     * @param checksum Message checksum.
+     */
+    private void forgetPackets(String client, String checksum)
+    {
+        synchronized (this.packets) {
+            Map<String, Map<Integer, byte[]>> messages = this.packets.get(client);
+
+            if (messages == null) {
+                return;
+            }
+
+            messages.remove(checksum);
+
+            if (messages.isEmpty()) {
+                this.packets.remove(client);
+            }
+        }
+
+        this.pendingChanged();
+    }
+
+    /**
+     * Gets the number of requests that are still pending, including the
+     * multipart messages that are not yet complete.
+     *
+     * @return Number of pending requests.
+     */
+    @Override
+    protected int pending()
+    {
+        int pending = super.pending();
+
+        synchronized (this.packets) {
+            for (Map<String, Map<Integer, byte[]>> messages : this.packets.values()) {
+                pending += messages.size();
+            }
+        }
+
+        return pending;
+    }
+
+    /**
+     * The socket must stay open to receive the missing parts of pending
+     * multipart messages, new messages are dropped while draining.
+     */
+    @Override
+    protected void stopAccepting() {}
+
+    /**
+     * Drops every multipart message that is not yet complete.
+     */
+    @Override
+    protected void abortPending()
+    {
+        synchronized (this.packets) {
+            this.packets.clear();
+        }
+
+        this.pendingChanged();
+    }
+
     private void handleAction(Map<String, String> headers, String client, InetAddress address, String message)
     {
-        final Map<String, Object> arguments = new HashMap<>();
-        
-        Connection action = getActionFromRequest(headers.get("route"), message, arguments);
+        if (headers.containsKey("reply")) {
+            this.handleReply(headers, client, address, message);
+            return;
+        }
+
+        Route match = this.routeByChecksum(headers.get("route"));
 
-        if (action == null) {
+        if (match == null) {
             return;
         }
 
-        arguments.put("volt-from", client);
-        arguments.put("volt-packets", headers.get("count"));
-        arguments.put("volt-hostname", address.getHostName());
-        arguments.put("volt-address", address);
-        arguments.put("volt-length", message.length());
-        
-        Request request = new Request(arguments);
-        
-        this.executeBeforeMiddlewares(request);
+        final String route = match.name;
+
+        Request request = new Request(route, message, new Requester(client, address))
+                .packets(Integer.parseInt(headers.get("count")))
+                // The route variables are only extracted if the action asks for them.
+                .variables(match.pattern.match(message));
+
+        if (headers.containsKey("request")) {
+            final String id = headers.get("request");
 
-        synchronized (action) {
-            action.run(request);
+            request.responder(response -> this.send(route, client, response, "r" + id));
         }
 
-        this.executeAfterMiddlewares(request);
+        this.requestStarted();
+
+        // Asynchronous middleware may finish the request in another thread.
+        this.dispatch(match.action, request).whenComplete((handled, error) -> {
+            if (error != null) {
+                Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, "Failed to handle a request of " + route + ".", error);
+            }
+
+            this.requestFinished(error == null);
+        });
+    }
+
+    /**
+     * Completes the request answered by the given reply.
+     *
+     * @param headers Packet headers.
+     * @param client Replier IPv4:Port.
+     * @param address Replier address.
+     * @param message Reply message.
+     */
+    private void handleReply(Map<String, String> headers, String client, InetAddress address, String message)
+    {
+        long id;
+
+        try {
+            id = Long.parseLong(headers.get("reply"));
+        } catch (NumberFormatException ex) {
+            return;
+        }
+
+        Request reply = new Request(this.correlator.route(id), message, new Requester(client, address))
+                .packets(Integer.parseInt(headers.get("count")));
+
+        try {
+            if (! this.executeReplyMiddlewares(reply)) {
+                this.correlator.fail(id, new IllegalArgumentException("The reply to request " + id + " was refused by a middleware."));
+                return;
+            }
+
+            this.correlator.complete(id, reply);
+        } finally {
+            this.services.release(reply);
+        }
     }
 
     /**
@@ -328,6 +494,22 @@ public class UdpServer extends Server {
      */
     @Override
     public void send(String route, String target, String message) {
+        this.send(route, target, message, null);
+    }
+
+    /**
+     * Sends a given message to the route of every target. The before
+     * middleware run and the datagrams are built once, and the same
+     * datagrams are sent to each target, unless a middleware of the route
+     * depends on the target, such as one with session keys. Those messages
+     * are built and sent to every target at the same time.
+     *
+     * @param route Route defined by the targets.
+     * @param targets IPv4 and Port (separated by ":") of each target.
+     * @param message Message to send, no headers.
+     */
+    @Override
+    public void send(String route, Collection<String> targets, String message) {
         try {
             if (server() == null) {
                 return;
@@ -336,276 +518,316 @@ public class UdpServer extends Server {
             return;
         }
 
-        Map<String, Object> arguments = new HashMap<>();
-        arguments.put("volt-message", message);
-        arguments.put("volt-length", message.length());
-        arguments.put("volt-route", route);
-        arguments.put("volt-target", target);
-        arguments.put("volt-from", target);
+        if (this.isTargeted(route)) {
+            final String original = message;
 
-        Request request = new Request(arguments);
+            this.sendEach(targets, target -> this.send(route, target, original));
 
-        this.executeBeforeMiddlewares(request);
-
-        message = request.message();
-
-        int parts = 0, length = message.length();
+            return;
+        }
 
-        CRC32 checkRoute = new CRC32();
-        CRC32 checkMessage = new CRC32();
+        Request request = new Request(route, message, new Requester(null, null));
 
+        // The after middleware run on a request of their own, so this one is released here.
         try {
-            checkRoute.update(route.getBytes("UTF-8"));
-            checkMessage.update(route.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException ex) {
-            Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
-        }
+            this.executeBeforeMiddlewares(request);
 
-        // Check if the message is a multipart message.
-        if (length > 512) {
-            while (length > 0) {
-                length -= 512;
-                parts++;
-            }
-
-            // Simulate if we need more parts to complete the message.
-            int overhead = 0;
-            for (int i = 1; i <= parts; i++) {
-                overhead += (i + ":" + parts + ":" + checkRoute.getValue() + ":" + checkMessage.getValue() + "@").length();
-            }
+            message = request.message();
 
-            length += overhead;
+            byte[][] datagrams = this.datagrams(route, message, null);
 
-            while (length > 512) {
-                length -= 512;
-                parts++;
+            for (String target : targets) {
+                this.protocol(route, target, datagrams, message);
             }
+        } finally {
+            this.services.release(request);
         }
-
-        this.protocol(route, target, parts, message);
     }
 
     /**
-     * Sets a action for a expected route.
+     * Sends a request to the route of the target. The server must be
+     * streaming in order to receive the reply.
      *
-     * @param route Expected route.
-     * @param action Action to be executed.
+     * @param route Route defined by the target.
+     * @param target IPv4 and Port (separated by ":")
+     * @param message Message to send, no headers.
+     * @param timeout Seconds to wait for the reply.
+     * @return Future completed with the reply.
      */
     @Override
-    public void listen(String route, Connection action) {
-        CRC32 checksum = new CRC32();
-
-        try {
-            checksum.update(route.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException ex) {
-            Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
+    public CompletableFuture<Request> request(String route, String target, String message, int timeout) {
+        if (! this.isActive()) {
+            throw new IllegalArgumentException("A server needs to be streaming in order to receive replies.");
         }
 
-        synchronized (this.routes) {
-            this.routes.put(route, action);
-            this.hashedRoutes.put(String.valueOf(checksum.getValue()), route);
-        }
+        long id = this.correlator.open(route, timeout);
+        CompletableFuture<Request> future = this.correlator.future(id);
+
+        this.send(route, target, message, "q" + id);
+
+        return future;
     }
 
     @Override
-    public void listen(String route, Consumer<Request> action) {
-        Connection connection = new Connection() {
-            @Override
-            public void run(Request request) {
-                action.accept(request);
-            }
-        };
-
-        this.listen(route, connection);
+    protected void closeRequests() {
+        // Redeclared to be reachable by the UDP client.
+        super.closeRequests();
     }
 
     /**
-     * Neglects an expected route.
+     * Sends a given message to the route of the target.
      *
-     * @param route Route to be neglected.
+     * @param route Route defined by the target.
+     * @param target IPv4 and Port (separated by ":")
+     * @param message Message to send, no headers.
+     * @param extension Header extension, or null if none.
      */
-    @Override
-    public void forget(String route) {
-        synchronized (this.routes) {
-            this.routes.remove(route);
-
-            for (Map.Entry<String, String> entry : this.hashedRoutes.entrySet()) {
-                if (entry.getValue().equals(route)) {
-                    this.hashedRoutes.remove(entry.getKey());
-                    break;
-                }
+    private void send(String route, String target, String message, String extension) {
+        try {
+            if (server() == null) {
+                return;
             }
+        } catch (NullPointerException e) {
+            return;
         }
 
-        synchronized (this.middlewares) {
-            this.middlewares.remove(route);
-        }
-    }
+        Request request = new Request(route, message, new Requester(target, null));
 
-    /**
-     * Gets all of the routes.
-     *
-     * @return Routes.
-     */
-    public Map<String, Connection> routes() {
-        synchronized (this.routes) {
-            return this.routes;
+        // The after middleware run on a request of their own, so this one is released here.
+        try {
+            this.executeBeforeMiddlewares(request);
+
+            message = request.message();
+
+            this.protocol(route, target, this.datagrams(route, message, extension), message);
+        } finally {
+            this.services.release(request);
         }
     }
 
     /**
-     * Protocol to be used by the server.
+     * Builds the datagrams that carry a message. The message is compressed
+     * when the server compresses its messages, and split in as many parts as
+     * needed for each datagram to fit in 512 bytes with its headers:
+     *
+     * id:count:route checksum:message checksum[:extensions]@payload
      *
      * @param route The target route.
-     * @param target The target the server will contact.
-     * @param parts The number of parts the server should send.
      * @param message The message to be sent.
+     * @param extension Header extension, or null if none.
+     * @return Datagrams to be sent.
      */
-    protected void protocol(String route, String target, int parts, String message)
+    protected byte[][] datagrams(String route, String message, String extension)
     {
-        if (target.startsWith("255.255.255.255")) {
-            try {
-                this.server().setBroadcast(true);
-            } catch (SocketException ex) {
-                Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
-            }
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = this.compressor.compress(payload);
+
+        StringBuilder suffix = new StringBuilder();
+
+        if (extension != null) {
+            suffix.append(':').append(extension);
         }
 
-        if (target.startsWith("all")) {
-            target = target.replace("all", "255.255.255.255");
-            try {
-                this.server().setBroadcast(true);
-            } catch (SocketException ex) {
-                Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
-            }
+        if (compressed != null) {
+            payload = compressed;
+            suffix.append(":z");
         }
 
+        final byte[] key = this.key;
+        int overhead = 0;
+
         CRC32 checksumRoute = new CRC32();
-        CRC32 checksumMessage = new CRC32();
+        checksumRoute.update(route.getBytes(StandardCharsets.UTF_8));
 
-        try {
-            checksumMessage.update(message.getBytes("UTF-8"));
-            checksumRoute.update(route.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException ex) {
-            Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
+        String id;
+
+        if (key == null) {
+            CRC32 checksumMessage = new CRC32();
+            checksumMessage.update(payload);
+
+            id = String.valueOf(checksumMessage.getValue());
+        } else {
+            // The checksum of an encrypted message would reveal its content, so it is identified at random.
+            id = String.valueOf(ThreadLocalRandom.current().nextInt() & 0xffffffffL);
+            overhead = Encrypter.NONCE_LENGTH + Encrypter.TAG_LENGTH / 8;
+            suffix.append(":e");
         }
 
-        if (parts > 0) {
-            String[] messages = new String[parts];
+        String checksums = ":" + checksumRoute.getValue() + ":" + id + suffix + "@";
 
-            for (int i = 1; i <= parts; i++) {
-                String header = i + ":" + parts + ":" + checksumRoute.getValue()
-                        + ":" + checksumMessage.getValue() + "@";
-                int length = header.length();
-                int cut = 512 - length;
-                int messageLength = message.length();
+        // The largest header is the one of the last part.
+        int parts = 1;
 
-                if (cut > messageLength) {
-                    cut = messageLength;
-                }
+        while ((long) parts * (512 - overhead - (parts + ":" + parts + checksums).length()) < payload.length) {
+            parts++;
+        }
 
-                String part = message.substring(0, cut);
-                message = message.substring(cut, message.length());
+        final byte[][] headers = new byte[parts][];
+        final int[] offsets = new int[parts + 1];
 
-                messages[i - 1] = header + part;
+        for (int i = 1; i <= parts; i++) {
+            headers[i - 1] = (i + ":" + parts + checksums).getBytes(StandardCharsets.US_ASCII);
+            offsets[i] = offsets[i - 1] + Math.min(512 - overhead - headers[i - 1].length, payload.length - offsets[i - 1]);
+        }
 
-            }
+        final byte[] body = payload;
+        final byte[][] datagrams = new byte[parts][];
 
-            String[] targetData = target.split(":");
+        IntStream sealing = IntStream.range(0, parts);
 
-            if (targetData.length != 2) {
-                throw new IllegalArgumentException("The target must be consisted of a IPv4 and a Port separated by \":\". Example: all:8000");
-            }
+        // Encrypted parts are sealed in parallel, on the common fork-join pool.
+        if (key != null && parts > 1) {
+            sealing = sealing.parallel();
+        }
 
-            int port = Integer.parseInt(targetData[1]);
+        sealing.forEach(i -> datagrams[i] = this.datagram(headers[i], body, offsets[i], offsets[i + 1], key));
 
-            InetAddress address;
+        return datagrams;
+    }
 
-            try {
-                address = InetAddress.getByName(targetData[0]);
-            } catch (UnknownHostException ex) {
-                return;
-            }
+    /**
+     * Builds a datagram, encrypting its part of the message if needed.
+     *
+     * @param header Datagram header, including the "@" separator.
+     * @param message Whole message.
+     * @param from Start of the part.
+     * @param to End of the part.
+     * @param key Encryption key, or null if the datagram is not encrypted.
+     * @return Datagram.
+     */
+    private byte[] datagram(byte[] header, byte[] message, int from, int to, byte[] key)
+    {
+        byte[] part;
 
-            for (String part : messages) {
-                try {
-                    DatagramPacket packet = new DatagramPacket(part.getBytes("UTF-8"), part.length(), address, port);
+        if (key == null) {
+            part = message;
+        } else {
+            // The header is authenticated with its part, so parts cannot be swapped between messages.
+            part = this.encrypter.encrypt(Arrays.copyOfRange(message, from, to), key, Arrays.copyOf(header, header.length - 1));
+            from = 0;
+            to = part.length;
+        }
 
-                    this.server().send(packet);
+        byte[] datagram = new byte[header.length + to - from];
+        System.arraycopy(header, 0, datagram, 0, header.length);
+        System.arraycopy(part, from, datagram, header.length, to - from);
 
-                } catch (UnknownHostException | UnsupportedEncodingException | SocketException ex) {
-                    return;
-                } catch (IOException ex) {
-                    return;
-                }
+        return datagram;
+    }
+
+    /**
+     * Decrypts the payload of a datagram, if it is encrypted. A server with
+     * a key refuses the datagrams that are not encrypted.
+     *
+     * @param headers Packet headers.
+     * @param header Raw header, without the "@" separator.
+     * @param payload Datagram payload.
+     * @return Decrypted payload.
+     */
+    private byte[] open(Map<String, String> headers, byte[] header, byte[] payload)
+    {
+        byte[] key = this.key;
+
+        if (! headers.containsKey("encrypted")) {
+            if (key != null) {
+                throw new IllegalArgumentException("The server only accepts encrypted datagrams.");
             }
 
-            Map<String, Object> arguments = new HashMap<>();
-            arguments.put("volt-message", message);
-            arguments.put("volt-length", message.length());
-            arguments.put("volt-route", route);
-            arguments.put("volt-target", target);
-            arguments.put("volt-from", target);
-            arguments.put("volt-hostname", address.getHostName());
-            arguments.put("volt-address", address);
-            arguments.put("volt-packets", parts);
+            return payload;
+        }
 
-            Request request = new Request(arguments);
+        if (key == null) {
+            throw new IllegalArgumentException("The datagram is encrypted, but the server has no key.");
+        }
 
-            this.executeAfterMiddlewares(request);
+        return this.encrypter.decrypt(payload, key, header);
+    }
 
-            try {
-                this.server().setBroadcast(false);
-                return;
-            } catch (SocketException ex) {
-                return;
-            }
-        } else {
-            String header = "1:1:" + checksumRoute.getValue()
-                    + ":" + checksumMessage.getValue();
+    /**
+     * Decodes the payload of a message, decompressing it if needed.
+     *
+     * @param headers Packet headers.
+     * @param payload Message payload.
+     * @return Message.
+     */
+    private String decode(Map<String, String> headers, byte[] payload)
+    {
+        if (headers.containsKey("compressed")) {
+            payload = Compressor.decompress(payload);
+        }
 
-            String packetMessage = header + "@" + message;
+        return new String(payload, StandardCharsets.UTF_8);
+    }
 
-            String[] targetData = target.split(":");
+    /**
+     * The requests of a route are handled one at a time, unless the route was
+     * listened with another concurrency.
+     *
+     * @return Serial concurrency.
+     */
+    @Override
+    protected Concurrency concurrency()
+    {
+        return Concurrency.serial();
+    }
 
-            if (targetData.length != 2) {
-                throw new IllegalArgumentException("The target must be consisted of a IPv4 and a Port separated by \":\". Example: all:8000");
-            }
+    /**
+     * Protocol to be used by the server.
+     *
+     * @param route The target route.
+     * @param target The target the server will contact.
+     * @param datagrams The datagrams that carry the message.
+     * @param message The message to be sent.
+     */
+    protected void protocol(String route, String target, byte[][] datagrams, String message)
+    {
+        if (target.startsWith("all")) {
+            target = target.replace("all", "255.255.255.255");
+        }
 
-            int port = Integer.parseInt(targetData[1]);
+        String[] targetData = target.split(":");
 
-            try {
-                InetAddress address = null;
+        if (targetData.length != 2) {
+            throw new IllegalArgumentException("The target must be consisted of a IPv4 and a Port separated by \":\". Example: all:8000");
+        }
 
-                try {
-                    address = InetAddress.getByName(targetData[0]);
-                } catch (UnknownHostException ex) {
-                    return;
-                }
+        int port = Integer.parseInt(targetData[1]);
 
-                DatagramPacket packet = new DatagramPacket(packetMessage.getBytes("UTF-8"), packetMessage.length(), address, port);
-                this.server().send(packet);
-                this.server().setBroadcast(false);
+        InetAddress address;
 
-                Map<String, Object> arguments = new HashMap<>();
-                arguments.put("volt-message", message);
-                arguments.put("volt-length", message.length());
-                arguments.put("volt-route", route);
-                arguments.put("volt-target", target);
-                arguments.put("volt-from", target);
-                arguments.put("volt-hostname", address.getHostName());
-                arguments.put("volt-address", address);
-                arguments.put("volt-packets", parts);
+        try {
+            address = InetAddress.getByName(targetData[0]);
+        } catch (UnknownHostException ex) {
+            return;
+        }
 
-                Request request = new Request(arguments);
+        // The limited broadcast and the broadcast of every local network need the broadcast option.
+        boolean broadcast = LocalAddresses.isBroadcast(address);
 
-                this.executeAfterMiddlewares(request);
-            } catch (UnknownHostException | UnsupportedEncodingException | SocketException ex) {
-                return;
-            } catch (IOException ex) {
-                return;
+        try {
+            if (broadcast) {
+                this.server().setBroadcast(true);
+            }
+
+            for (byte[] datagram : datagrams) {
+                this.server().send(new DatagramPacket(datagram, datagram.length, address, port));
+            }
+        } catch (IOException ex) {
+            return;
+        } finally {
+            if (broadcast) {
+                try {
+                    this.server().setBroadcast(false);
+                } catch (SocketException ex) {
+                    Logger.getLogger(UdpServer.class.getName()).log(Level.SEVERE, null, ex);
+                }
             }
         }
+
+        Request request = new Request(route, message, new Requester(target, address))
+                .packets(datagrams.length);
+
+        this.executeAfterMiddlewares(request);
     }
     
     /**
@@ -2,6 +2,7 @@ package com.github.oxyzero.volt.support;
 
 import com.github.oxyzero.volt.Client;
 import com.github.oxyzero.volt.protocols.tcp.TcpClient;
+import com.github.oxyzero.volt.protocols.tls.TlsClient;
 import com.github.oxyzero.volt.protocols.udp.UdpClient;
 
 public class ClientFactory {
@@ -33,6 +34,10 @@ public class ClientFactory {
             return new TcpClient(port);
         }
 
+        if (protocol.equalsIgnoreCase("tls")) {
+            return new TlsClient(port);
+        }
+
         throw new IllegalArgumentException("The protocol " + protocol + " is not a valid protocol.");
     }
 }
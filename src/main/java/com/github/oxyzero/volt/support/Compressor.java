@@ -0,0 +1,168 @@
+package com.github.oxyzero.volt.support;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class allows the compression of messages at the transport level using
+ * the Deflate algorithm. The compressed messages carry a flag in the protocol
+ * headers, so receivers decompress them whether or not they compress their own.
+ *
+ * Deflaters and inflaters are reused by each thread.
+ */
+public class Compressor {
+
+    /**
+     * Maximum size of a decompressed message.
+     */
+    public static final int MAX_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Deflater of each thread.
+     */
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    /**
+     * Inflater of each thread.
+     */
+    private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * If the messages sent are compressed.
+     */
+    private volatile boolean enabled = false;
+
+    /**
+     * Size in bytes below which messages are not compressed.
+     */
+    private volatile int threshold = 512;
+
+    /**
+     * Enables the compression of the messages sent.
+     *
+     * @return self
+     */
+    public Compressor enable() {
+        this.enabled = true;
+
+        return this;
+    }
+
+    /**
+     * Disables the compression of the messages sent.
+     *
+     * @return self
+     */
+    public Compressor disable() {
+        this.enabled = false;
+
+        return this;
+    }
+
+    /**
+     * Returns if the messages sent are compressed.
+     *
+     * @return True if compression is enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Gets the size below which messages are not compressed.
+     *
+     * @return Threshold in bytes.
+     */
+    public int threshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Sets the size below which messages are not compressed.
+     *
+     * @param threshold Threshold in bytes.
+     * @return self
+     */
+    public Compressor threshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("The compression threshold cannot be negative.");
+        }
+
+        this.threshold = threshold;
+
+        return this;
+    }
+
+    /**
+     * Compresses the given data if compression is enabled, the data is not
+     * below the threshold and the compressed data is smaller.
+     *
+     * @param data Data.
+     * @return Compressed data, or null if the data should be sent as is.
+     */
+    public byte[] compress(byte[] data) {
+        if (! this.enabled || data.length < this.threshold || data.length == 0) {
+            return null;
+        }
+
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+
+        // Compressed data as big as the original data is not worth sending.
+        byte[] buffer = new byte[data.length];
+        int length = 0;
+
+        while (! deflater.finished() && length < buffer.length) {
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+
+        if (! deflater.finished()) {
+            return null;
+        }
+
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Decompresses the given data.
+     *
+     * @param data Compressed data.
+     * @return Data.
+     */
+    public static byte[] decompress(byte[] data) {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(data);
+
+        byte[] buffer = new byte[Math.max(64, data.length * 4)];
+        int length = 0;
+
+        try {
+            while (! inflater.finished()) {
+                if (length == buffer.length) {
+                    if (buffer.length >= MAX_SIZE) {
+                        throw new IllegalArgumentException("The decompressed message exceeds " + MAX_SIZE + " bytes.");
+                    }
+
+                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_SIZE));
+                }
+
+                int count = inflater.inflate(buffer, length, buffer.length - length);
+
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("The compressed message is incomplete.");
+                }
+
+                length += count;
+            }
+        } catch (DataFormatException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+
+        return Arrays.copyOf(buffer, length);
+    }
+}
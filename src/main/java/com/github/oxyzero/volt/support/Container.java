@@ -1,26 +1,72 @@
 package com.github.oxyzero.volt.support;
 
-import java.util.HashMap;
+import com.github.oxyzero.volt.Request;
+
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Simple container implementation for Volt dependency injection.
+ *
+ * The container is safe to use from many threads. Resolving a service does
+ * not lock, only the first resolution of a singleton builds it, exactly
+ * once. Once every service is registered, the container may be frozen into
+ * an immutable table that is resolved without hashing into a map.
+ *
+ * Besides singletons and new instances, services may be bound to a request,
+ * so each request gets its own instance, or kept in a pool, so expensive
+ * instances are reused by the following requests. Both are released once
+ * the request is handled.
  */
 public class Container {
 
     /**
-     * Singleton services.
+     * Lifetimes of the services.
      */
-    private final Map<String, Object> singletons;
+    public enum Scope {
+
+        /**
+         * A new instance every time the service is resolved.
+         */
+        TRANSIENT,
+
+        /**
+         * A single instance, built the first time the service is resolved.
+         */
+        SINGLETON,
+
+        /**
+         * An instance per request, released once the request is handled.
+         */
+        REQUEST,
+
+        /**
+         * An instance borrowed from a pool, and returned to it once released.
+         */
+        POOLED
+    }
 
     /**
-     * Dependencies container.
+     * Value of the singletons that were not built yet.
      */
-    private final Map<String, ServiceProvider> services;
+    private static final Object UNBUILT = new Object();
+
+    /**
+     * Services, by key.
+     */
+    private final Map<String, Binding> services;
+
+    /**
+     * Immutable table of the services, or null while the container is not frozen.
+     */
+    private volatile Table table;
 
     public Container() {
-        this.services = new HashMap<>();
-        this.singletons = new HashMap<>();
+        this.services = new ConcurrentHashMap<>();
     }
 
     /**
@@ -30,25 +76,60 @@ public class Container {
      * @return Object
      */
     public Object resolve(String key) {
-        if (this.singletons.containsKey(key)) {
-            return this.singletons.get(key);
+        Table table = this.table;
+        Binding binding = key == null ? null : table != null ? table.get(key) : this.services.get(key);
+
+        if (binding == null) {
+            throw new IllegalArgumentException("The required object is not registered in Volt service container.");
+        }
+
+        return binding.get(this);
+    }
+
+    /**
+     * Resolves a service for a request. Request scoped services are built
+     * once per request, and pooled services are borrowed once per request,
+     * until the request is released.
+     *
+     * @param key Service key.
+     * @param request Request being handled.
+     * @return Object
+     */
+    public Object resolve(String key, Request request) {
+        if (request == null) {
+            throw new IllegalArgumentException("The request cannot be null.");
         }
 
-        if (! this.services.containsKey(key)) {
+        Table table = this.table;
+        Binding binding = key == null ? null : table != null ? table.get(key) : this.services.get(key);
+
+        if (binding == null) {
             throw new IllegalArgumentException("The required object is not registered in Volt service container.");
         }
 
-        return this.services.get(key).register(this);
+        if (binding.scope != Scope.REQUEST && binding.scope != Scope.POOLED) {
+            return binding.get(this);
+        }
+
+        Object instance = request.scoped(key);
+
+        if (instance == null) {
+            instance = binding.scope == Scope.REQUEST ? binding.provider.register(this) : binding.borrow(this);
+            request.scoped(key, instance);
+        }
+
+        return instance;
     }
 
     /**
-     * Declares a service provider as a singleton.
+     * Declares a service provider as a singleton. The service is only built
+     * the first time it is resolved.
      *
      * @param key Service key.
      * @param provider Service Provider.
      */
     public void singleton(String key, ServiceProvider<Object> provider) {
-        this.singletons.put(key, provider.register(this));
+        this.bind(key, new Binding(key, provider, Scope.SINGLETON, null, 0));
     }
 
     /**
@@ -58,7 +139,106 @@ public class Container {
      * @param provider Service Provider.
      */
     public void register(String key, ServiceProvider<Object> provider) {
-        this.services.put(key, provider);
+        this.bind(key, new Binding(key, provider, Scope.TRANSIENT, null, 0));
+    }
+
+    /**
+     * Registers a service with an instance per request. It can only be
+     * resolved with its request.
+     *
+     * @param key Service key.
+     * @param provider Service Provider.
+     */
+    public void scoped(String key, ServiceProvider<Object> provider) {
+        this.scoped(key, provider, null);
+    }
+
+    /**
+     * Registers a service with an instance per request. It can only be
+     * resolved with its request.
+     *
+     * @param key Service key.
+     * @param provider Service Provider.
+     * @param release Called with the instance once its request is handled, or null.
+     */
+    public void scoped(String key, ServiceProvider<Object> provider, Consumer<Object> release) {
+        this.bind(key, new Binding(key, provider, Scope.REQUEST, release, 0));
+    }
+
+    /**
+     * Registers a pooled service. Released instances are reset and kept for
+     * the next resolution, up to the size of the pool. Instances resolved
+     * without a request must be given back with release.
+     *
+     * @param key Service key.
+     * @param provider Service Provider.
+     * @param size Maximum number of idle instances kept.
+     * @param reset Resets an instance before it returns to the pool, or null.
+     */
+    public void pooled(String key, ServiceProvider<Object> provider, int size, Consumer<Object> reset) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The pool size must be greater than 0.");
+        }
+
+        this.bind(key, new Binding(key, provider, Scope.POOLED, reset, size));
+    }
+
+    /**
+     * Gets the scope of a service.
+     *
+     * @param key Service key.
+     * @return Scope, or null if the service is not registered.
+     */
+    public Scope scope(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        Table table = this.table;
+        Binding binding = table != null ? table.get(key) : this.services.get(key);
+
+        return binding == null ? null : binding.scope;
+    }
+
+    /**
+     * Releases the request scoped and pooled instances of a request.
+     *
+     * @param request Handled request.
+     */
+    public void release(Request request) {
+        Map<String, Object> instances = request.release();
+
+        if (instances == null) {
+            return;
+        }
+
+        Table table = this.table;
+
+        for (Map.Entry<String, Object> instance : instances.entrySet()) {
+            Binding binding = table != null ? table.get(instance.getKey()) : this.services.get(instance.getKey());
+
+            // Instances of services removed meanwhile are dropped.
+            if (binding != null) {
+                binding.release(instance.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gives a pooled instance back to its pool.
+     *
+     * @param key Service key.
+     * @param instance Instance resolved without a request.
+     */
+    public void release(String key, Object instance) {
+        Table table = this.table;
+        Binding binding = key == null ? null : table != null ? table.get(key) : this.services.get(key);
+
+        if (binding == null || binding.scope != Scope.POOLED) {
+            throw new IllegalArgumentException("The service " + key + " is not pooled.");
+        }
+
+        binding.release(instance);
     }
 
     /**
@@ -66,8 +246,9 @@ public class Container {
      *
      * @param key Service key.
      */
-    public void remove(String key) {
-        this.singletons.remove(key);
+    public synchronized void remove(String key) {
+        this.mutable();
+
         this.services.remove(key);
     }
 
@@ -78,6 +259,240 @@ public class Container {
      * @return True if the service exists in the container, false otherwise.
      */
     public boolean has(String key) {
-        return this.singletons.containsKey(key) || this.services.containsKey(key);
+        if (key == null) {
+            return false;
+        }
+
+        Table table = this.table;
+
+        return table != null ? table.get(key) != null : this.services.containsKey(key);
+    }
+
+    /**
+     * Compiles the registered services into an immutable table. No service
+     * can be registered or removed afterwards.
+     *
+     * @return self
+     */
+    public synchronized Container freeze() {
+        if (this.table == null) {
+            this.table = new Table(this.services);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns if the container was frozen.
+     *
+     * @return True if frozen, false otherwise.
+     */
+    public boolean isFrozen() {
+        return this.table != null;
+    }
+
+    // Changes are serialized with freeze, so none is left out of the table.
+    private synchronized void bind(String key, Binding binding) {
+        if (key == null || binding.provider == null) {
+            throw new IllegalArgumentException("The service key and provider cannot be null.");
+        }
+
+        this.mutable();
+
+        this.services.put(key, binding);
+    }
+
+    /**
+     * Refuses changes to a frozen container.
+     */
+    private void mutable() {
+        if (this.table != null) {
+            throw new IllegalArgumentException("The container is frozen, its services cannot be changed.");
+        }
+    }
+
+    /**
+     * A service provider and, for singletons, its instance.
+     */
+    private static final class Binding {
+
+        private final String key;
+
+        private final ServiceProvider<Object> provider;
+
+        private final Scope scope;
+
+        /**
+         * Called when a request scoped or pooled instance is released.
+         */
+        private final Consumer<Object> release;
+
+        /**
+         * Idle instances of a pooled service.
+         */
+        private final Queue<Object> pool;
+
+        private final AtomicInteger idle;
+
+        private final int size;
+
+        private volatile Object instance;
+
+        /**
+         * Thread building the singleton, to detect circular dependencies.
+         */
+        private Thread building;
+
+        private Binding(String key, ServiceProvider<Object> provider, Scope scope, Consumer<Object> release, int size) {
+            this.key = key;
+            this.provider = provider;
+            this.scope = scope;
+            this.release = release;
+            this.size = size;
+            this.pool = scope == Scope.POOLED ? new ConcurrentLinkedQueue<>() : null;
+            this.idle = new AtomicInteger();
+            this.instance = UNBUILT;
+        }
+
+        private Object get(Container container) {
+            if (this.scope == Scope.REQUEST) {
+                throw new IllegalArgumentException("The service " + this.key + " is request scoped, it must be resolved with its request.");
+            }
+
+            if (this.scope == Scope.POOLED) {
+                return this.borrow(container);
+            }
+
+            if (this.scope == Scope.TRANSIENT) {
+                return this.provider.register(container);
+            }
+
+            Object instance = this.instance;
+
+            if (instance != UNBUILT) {
+                return instance;
+            }
+
+            synchronized (this) {
+                if (this.instance != UNBUILT) {
+                    return this.instance;
+                }
+
+                if (this.building == Thread.currentThread()) {
+                    throw new IllegalArgumentException("The singleton " + this.key + " depends on itself.");
+                }
+
+                this.building = Thread.currentThread();
+
+                try {
+                    this.instance = this.provider.register(container);
+                } finally {
+                    this.building = null;
+                }
+
+                return this.instance;
+            }
+        }
+
+        /**
+         * Takes an idle instance of the pool, or builds one if there is none.
+         *
+         * @param container Container.
+         * @return Instance.
+         */
+        private Object borrow(Container container) {
+            Object instance = this.pool.poll();
+
+            if (instance == null) {
+                return this.provider.register(container);
+            }
+
+            this.idle.decrementAndGet();
+
+            return instance;
+        }
+
+        /**
+         * Releases an instance, giving it back to the pool if it is pooled
+         * and the pool is not full.
+         *
+         * @param instance Instance.
+         */
+        private void release(Object instance) {
+            if (instance == null) {
+                return;
+            }
+
+            if (this.release != null) {
+                this.release.accept(instance);
+            }
+
+            if (this.scope != Scope.POOLED) {
+                return;
+            }
+
+            if (this.idle.incrementAndGet() > this.size) {
+                this.idle.decrementAndGet();
+                return;
+            }
+
+            this.pool.offer(instance);
+        }
+    }
+
+    /**
+     * Open addressing table of the services of a frozen container.
+     */
+    private static final class Table {
+
+        private final String[] keys;
+
+        private final Binding[] bindings;
+
+        private final int mask;
+
+        private Table(Map<String, Binding> services) {
+            int size = 2;
+
+            while (size < services.size() * 2) {
+                size <<= 1;
+            }
+
+            this.keys = new String[size];
+            this.bindings = new Binding[size];
+            this.mask = size - 1;
+
+            for (Map.Entry<String, Binding> service : services.entrySet()) {
+                int slot = this.slot(service.getKey());
+
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & this.mask;
+                }
+
+                this.keys[slot] = service.getKey();
+                this.bindings[slot] = service.getValue();
+            }
+        }
+
+        private Binding get(String key) {
+            if (key == null) {
+                return null;
+            }
+
+            // The table is at most half full, so there is always an empty slot.
+            for (int slot = this.slot(key); this.keys[slot] != null; slot = (slot + 1) & this.mask) {
+                if (this.keys[slot].equals(key)) {
+                    return this.bindings[slot];
+                }
+            }
+
+            return null;
+        }
+
+        private int slot(String key) {
+            int hash = key.hashCode();
+
+            return (hash ^ (hash >>> 16)) & this.mask;
+        }
     }
 }
@@ -0,0 +1,164 @@
+package com.github.oxyzero.volt.support;
+
+import com.github.oxyzero.volt.Request;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches the replies received by a server with the requests it sent,
+ * using the correlation ID carried in the protocol headers.
+ */
+public class Correlator {
+
+    /**
+     * Last correlation ID given.
+     */
+    private final AtomicLong sequence;
+
+    /**
+     * Requests waiting for a reply, by correlation ID.
+     */
+    private final Map<Long, Pending> pending;
+
+    /**
+     * Expires the requests that were not answered in time.
+     */
+    private final TaskManager timeouts;
+
+    public Correlator() {
+        this.sequence = new AtomicLong();
+        this.pending = new ConcurrentHashMap<>();
+        this.timeouts = new TaskManager();
+    }
+
+    /**
+     * Opens a new request.
+     *
+     * @param route Route of the request.
+     * @param timeout Seconds to wait for the reply.
+     * @return Correlation ID of the request.
+     */
+    public long open(String route, int timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The request timeout must be greater than 0.");
+        }
+
+        final long id = this.sequence.incrementAndGet();
+
+        Task expire = new Task() {
+            @Override
+            public void fire() {
+                fail(id, new TimeoutException("No reply was received for the request " + id + "."));
+            }
+        };
+
+        this.pending.put(id, new Pending(route, expire));
+
+        synchronized (this.timeouts) {
+            this.timeouts.after(timeout).once(expire);
+        }
+
+        return id;
+    }
+
+    /**
+     * Gets the future of an open request.
+     *
+     * @param id Correlation ID.
+     * @return Future of the request, or null if the request is not open.
+     */
+    public CompletableFuture<Request> future(long id) {
+        Pending request = this.pending.get(id);
+
+        return request == null ? null : request.future;
+    }
+
+    /**
+     * Gets the route of an open request.
+     *
+     * @param id Correlation ID.
+     * @return Route of the request, or null if the request is not open.
+     */
+    public String route(long id) {
+        Pending request = this.pending.get(id);
+
+        return request == null ? null : request.route;
+    }
+
+    /**
+     * Completes a request with its reply.
+     *
+     * @param id Correlation ID.
+     * @param reply Reply received.
+     * @return True if the request was open, false otherwise.
+     */
+    public boolean complete(long id, Request reply) {
+        Pending request = this.pending.remove(id);
+
+        if (request == null) {
+            return false;
+        }
+
+        // Cancelling is cheap, so answered requests do not keep their timeout pending.
+        request.timeout.cancel();
+
+        return request.future.complete(reply);
+    }
+
+    /**
+     * Fails a request.
+     *
+     * @param id Correlation ID.
+     * @param cause Reason of the failure.
+     * @return True if the request was open, false otherwise.
+     */
+    public boolean fail(long id, Throwable cause) {
+        Pending request = this.pending.remove(id);
+
+        return request != null && request.future.completeExceptionally(cause);
+    }
+
+    /**
+     * Gets the number of requests waiting for a reply.
+     *
+     * @return Number of open requests.
+     */
+    public int pending() {
+        return this.pending.size();
+    }
+
+    /**
+     * Fails every open request and releases the correlator.
+     */
+    public void close() {
+        for (Long id : this.pending.keySet()) {
+            this.fail(id, new IllegalStateException("The requester was closed."));
+        }
+
+        synchronized (this.timeouts) {
+            this.timeouts.destroy();
+        }
+    }
+
+    /**
+     * A request waiting for its reply.
+     */
+    private static class Pending {
+
+        private final String route;
+
+        private final CompletableFuture<Request> future;
+
+        private final Task timeout;
+
+        private Pending(String route, Task timeout) {
+            this.route = route;
+            this.future = new CompletableFuture<>();
+            this.timeout = timeout;
+        }
+    }
+}
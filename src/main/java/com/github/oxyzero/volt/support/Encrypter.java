@@ -1,107 +1,362 @@
 package com.github.oxyzero.volt.support;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.UnsupportedEncodingException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class allows the encryption and decryption of messages using the AES algorithm.
- * 
+ *
+ * Each thread reuses its own Cipher instances and the key of the last message
+ * is kept, so encrypting many messages with the same key only initializes the
+ * cipher. In GCM mode every message carries its own nonce and is
+ * authenticated, so tampered messages are refused instead of decrypted.
+ *
  * @author Renato Machado
  */
 public class Encrypter {
-    
+
+    /**
+     * Cipher modes.
+     */
+    public enum Mode {
+
+        /**
+         * AES with the default ECB mode, as sent by the previous versions.
+         */
+        ECB("AES"),
+
+        /**
+         * AES-GCM, with a nonce per message and authentication.
+         */
+        GCM("AES/GCM/NoPadding");
+
+        private final String transformation;
+
+        private final ThreadLocal<Cipher> ciphers;
+
+        Mode(String transformation) {
+            this.transformation = transformation;
+            this.ciphers = ThreadLocal.withInitial(() -> {
+                try {
+                    return Cipher.getInstance(this.transformation);
+                } catch (GeneralSecurityException ex) {
+                    throw new IllegalArgumentException(ex.getMessage());
+                }
+            });
+        }
+
+        /**
+         * Gets the cipher of the current thread.
+         *
+         * @return Cipher.
+         */
+        private Cipher cipher() {
+            return this.ciphers.get();
+        }
+    }
+
+    /**
+     * Length of the GCM nonce, in bytes.
+     */
+    public static final int NONCE_LENGTH = 12;
+
+    /**
+     * Length of the GCM authentication tag, in bits.
+     */
+    public static final int TAG_LENGTH = 128;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Cipher mode.
+     */
+    private final Mode mode;
+
+    /**
+     * Random start of the nonces of this encrypter.
+     */
+    private final int prefix;
+
+    /**
+     * Counter of the nonces of this encrypter, so no nonce is repeated.
+     */
+    private final AtomicLong counter;
+
+    /**
+     * Key of the last message.
+     */
+    private volatile Key lastKey;
+
+    public Encrypter() {
+        this(Mode.ECB);
+    }
+
+    /**
+     * Creates an encrypter with the given cipher mode.
+     *
+     * @param mode Cipher mode.
+     */
+    public Encrypter(Mode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("The cipher mode cannot be null.");
+        }
+
+        this.mode = mode;
+        this.prefix = random.nextInt();
+        this.counter = new AtomicLong(random.nextLong());
+    }
+
+    /**
+     * Gets the cipher mode.
+     *
+     * @return Cipher mode.
+     */
+    public Mode mode() {
+        return this.mode;
+    }
+
     /**
      * Encrypts a given message with the given key.
-     * 
+     *
      * @param message Message.
      * @param key Key.
-     * @return Encrypted message.
+     * @return Encrypted message, in Base64.
      */
     public String encrypt(String message, byte[] key)
     {
         if (message == null || message.isEmpty()) {
             throw new IllegalArgumentException("Invalid message was given. A message cannot be null or empty.");
         }
-        
-        try {
-            Cipher cipher = Cipher.getInstance("AES");
-            SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
-            
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec);
-            
-            byte[] byteDataToEncrypt = message.getBytes();
-            byte[] byteCipherText = cipher.doFinal(byteDataToEncrypt);
-            
-            return new String(Base64.getEncoder().encode(byteCipherText));
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException | BadPaddingException ex) {
-            throw new IllegalArgumentException(ex.getMessage());
-        }
+
+        byte[] encrypted = this.encrypt(message.getBytes(StandardCharsets.UTF_8), key);
+
+        return new String(Base64.getEncoder().encode(encrypted), StandardCharsets.US_ASCII);
     }
-    
+
     /**
      * Encrypts a given message with the given key.
      *
      * @param message Message.
      * @param key Key.
-     * @return Encrypted message.
+     * @return Encrypted message, in Base64.
      */
     public String encrypt(String message, String key)
     {
+        return this.encrypt(message, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encrypts the given data with the given key, without encoding it, for
+     * transports that carry raw bytes. In GCM mode the nonce is prepended to
+     * the encrypted data.
+     *
+     * @param data Data.
+     * @param key Key.
+     * @return Encrypted data.
+     */
+    public byte[] encrypt(byte[] data, byte[] key)
+    {
+        return this.encrypt(data, key, null);
+    }
+
+    /**
+     * Encrypts the given data with the given key, authenticating it together
+     * with associated data that is not encrypted, such as the headers that
+     * carry it. Only available in GCM mode.
+     *
+     * @param data Data.
+     * @param key Key.
+     * @param associated Associated data, or null if none.
+     * @return Encrypted data, after its nonce.
+     */
+    public byte[] encrypt(byte[] data, byte[] key, byte[] associated)
+    {
+        if (data == null) {
+            throw new IllegalArgumentException("Invalid data was given. The data cannot be null.");
+        }
+
+        Cipher cipher = this.mode.cipher();
+
         try {
-            byte[] keyInBytes = key.getBytes("UTF-8");
-            
-            return this.encrypt(message, keyInBytes);
-        } catch (UnsupportedEncodingException ex) {
+            if (this.mode == Mode.ECB) {
+                this.unassociated(associated);
+                cipher.init(Cipher.ENCRYPT_MODE, this.key(key));
+
+                return cipher.doFinal(data);
+            }
+
+            byte[] nonce = this.nonce();
+
+            cipher.init(Cipher.ENCRYPT_MODE, this.key(key), new GCMParameterSpec(TAG_LENGTH, nonce));
+
+            if (associated != null) {
+                cipher.updateAAD(associated);
+            }
+
+            byte[] encrypted = new byte[NONCE_LENGTH + cipher.getOutputSize(data.length)];
+
+            System.arraycopy(nonce, 0, encrypted, 0, NONCE_LENGTH);
+
+            int length = cipher.doFinal(data, 0, data.length, encrypted, NONCE_LENGTH);
+
+            return length + NONCE_LENGTH == encrypted.length ? encrypted : Arrays.copyOf(encrypted, length + NONCE_LENGTH);
+        } catch (GeneralSecurityException ex) {
             throw new IllegalArgumentException(ex.getMessage());
         }
     }
-    
+
     /**
      * Decrypts a given message with the given key.
-     * 
-     * @param message Message.
+     *
+     * @param message Encrypted message, in Base64.
      * @param key Key.
      * @return Decrypted message.
      */
     public String decrypt(String message, byte[] key)
     {
-        try {
-            byte[] data = Base64.getDecoder().decode(message);
-            SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
-            
-            Cipher cipher = Cipher.getInstance("AES");
-            cipher.init(Cipher.DECRYPT_MODE, keySpec);
-            
-            byte[] plainData = cipher.doFinal(data);
-            
-            return new String(plainData);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException | IllegalBlockSizeException | BadPaddingException ex) {
-            throw new IllegalArgumentException(ex.getMessage());
-        }
+        byte[] data = Base64.getDecoder().decode(message);
+
+        return new String(this.decrypt(data, key), StandardCharsets.UTF_8);
     }
-    
+
     /**
      * Decrypts a given message with the given key.
      *
-     * @param message Message.
+     * @param message Encrypted message, in Base64.
      * @param key Key.
      * @return Decrypted message.
      */
     public String decrypt(String message, String key) {
+        return this.decrypt(message, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decrypts the given data with the given key. In GCM mode the data is
+     * authenticated, and refused if it was tampered with.
+     *
+     * @param data Encrypted data.
+     * @param key Key.
+     * @return Decrypted data.
+     */
+    public byte[] decrypt(byte[] data, byte[] key)
+    {
+        return this.decrypt(data, key, null);
+    }
+
+    /**
+     * Decrypts the given data with the given key, refusing it if it or its
+     * associated data were tampered with. Only available in GCM mode.
+     *
+     * @param data Encrypted data, after its nonce.
+     * @param key Key.
+     * @param associated Associated data, or null if none.
+     * @return Decrypted data.
+     */
+    public byte[] decrypt(byte[] data, byte[] key, byte[] associated)
+    {
+        if (data == null) {
+            throw new IllegalArgumentException("Invalid data was given. The data cannot be null.");
+        }
+
+        Cipher cipher = this.mode.cipher();
+
         try {
-            byte[] keyInBytes = key.getBytes("UTF-8");
+            if (this.mode == Mode.ECB) {
+                this.unassociated(associated);
+                cipher.init(Cipher.DECRYPT_MODE, this.key(key));
+
+                return cipher.doFinal(data);
+            }
 
-            return this.decrypt(message, keyInBytes);
-        } catch (UnsupportedEncodingException ex) {
+            if (data.length < NONCE_LENGTH + TAG_LENGTH / 8) {
+                throw new IllegalArgumentException("The encrypted data is too short to carry its nonce and tag.");
+            }
+
+            cipher.init(Cipher.DECRYPT_MODE, this.key(key), new GCMParameterSpec(TAG_LENGTH, data, 0, NONCE_LENGTH));
+
+            if (associated != null) {
+                cipher.updateAAD(associated);
+            }
+
+            return cipher.doFinal(data, NONCE_LENGTH, data.length - NONCE_LENGTH);
+        } catch (GeneralSecurityException ex) {
             throw new IllegalArgumentException(ex.getMessage());
         }
     }
-    
+
+    /**
+     * Refuses associated data in the modes that cannot authenticate it.
+     *
+     * @param associated Associated data.
+     */
+    private void unassociated(byte[] associated)
+    {
+        if (associated != null) {
+            throw new IllegalArgumentException("Only the GCM mode authenticates associated data.");
+        }
+    }
+
+    /**
+     * Gets the key spec of a key, reusing the one of the last message.
+     *
+     * @param key Key.
+     * @return Key spec.
+     */
+    private SecretKeySpec key(byte[] key)
+    {
+        Key last = this.lastKey;
+
+        if (last != null && Arrays.equals(last.raw, key)) {
+            return last.spec;
+        }
+
+        last = new Key(key.clone(), new SecretKeySpec(key, "AES"));
+        this.lastKey = last;
+
+        return last.spec;
+    }
+
+    /**
+     * Builds a nonce that is never repeated by this encrypter: a random
+     * prefix followed by a counter.
+     *
+     * @return Nonce.
+     */
+    private byte[] nonce()
+    {
+        long count = this.counter.getAndIncrement();
+        byte[] nonce = new byte[NONCE_LENGTH];
+
+        for (int i = 0; i < 4; i++) {
+            nonce[i] = (byte) (this.prefix >>> (24 - i * 8));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            nonce[4 + i] = (byte) (count >>> (56 - i * 8));
+        }
+
+        return nonce;
+    }
+
+    /**
+     * A key and its spec.
+     */
+    private static class Key {
+
+        private final byte[] raw;
+
+        private final SecretKeySpec spec;
+
+        private Key(byte[] raw, SecretKeySpec spec) {
+            this.raw = raw;
+            this.spec = spec;
+        }
+    }
 }
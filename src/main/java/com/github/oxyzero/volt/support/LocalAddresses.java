@@ -0,0 +1,326 @@
+package com.github.oxyzero.volt.support;
+
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registry of the addresses of the local network interfaces.
+ *
+ * Enumerating the network interfaces is expensive, so the addresses are
+ * loaded once and kept until they expire or are refreshed on demand. Once
+ * they expire, one caller loads them again while the others keep using the
+ * previous addresses. Lookups hash the raw bytes of the address.
+ */
+public class LocalAddresses {
+
+    /**
+     * Default milliseconds after which the addresses are loaded again.
+     */
+    public static final long REFRESH_INTERVAL = 30000;
+
+    /**
+     * Milliseconds after which the addresses are loaded again, or 0 to keep
+     * them until refreshed on demand.
+     */
+    private static volatile long interval = REFRESH_INTERVAL;
+
+    /**
+     * Addresses currently known.
+     */
+    private static volatile Snapshot snapshot;
+
+    /**
+     * If a caller is loading the addresses again.
+     */
+    private static final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private LocalAddresses() {}
+
+    /**
+     * Checks if an address belongs to a local network interface.
+     *
+     * @param address Address.
+     * @return True if the address is local, false otherwise.
+     */
+    public static boolean isLocal(InetAddress address) {
+        return address != null && snapshot().locals.contains(new Key(address.getAddress()));
+    }
+
+    /**
+     * Checks if an IP address belongs to a local network interface.
+     *
+     * @param address IP address, as returned by InetAddress.getHostAddress.
+     * @return True if the address is local, false otherwise.
+     */
+    public static boolean isLocal(String address) {
+        return isLocal(literal(address));
+    }
+
+    /**
+     * Checks if an address is the broadcast address of a local network, or
+     * the limited broadcast address.
+     *
+     * @param address Address.
+     * @return True if the address is a broadcast address, false otherwise.
+     */
+    public static boolean isBroadcast(InetAddress address) {
+        return address != null && snapshot().broadcasts.contains(new Key(address.getAddress()));
+    }
+
+    /**
+     * Gets the addresses of the local network interfaces.
+     *
+     * @return Local addresses.
+     */
+    public static Set<InetAddress> addresses() {
+        return snapshot().addresses;
+    }
+
+    /**
+     * Loads the addresses of the local network interfaces again.
+     */
+    public static void refresh() {
+        snapshot = Snapshot.load();
+    }
+
+    /**
+     * Gets the interval after which the addresses are loaded again.
+     *
+     * @return Refresh interval in milliseconds.
+     */
+    public static long interval() {
+        return interval;
+    }
+
+    /**
+     * Sets the interval after which the addresses are loaded again.
+     *
+     * @param millis Refresh interval in milliseconds, or 0 to only refresh on demand.
+     */
+    public static void interval(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("The refresh interval cannot be negative.");
+        }
+
+        interval = millis;
+    }
+
+    /**
+     * Gets the current addresses. Only the first call waits for them to
+     * load, expired addresses are loaded again by a single caller and the
+     * others get the previous ones meanwhile.
+     *
+     * @return Current addresses.
+     */
+    private static Snapshot snapshot() {
+        Snapshot current = snapshot;
+
+        if (current == null) {
+            synchronized (LocalAddresses.class) {
+                current = snapshot;
+
+                if (current == null) {
+                    current = Snapshot.load();
+                    snapshot = current;
+                }
+            }
+        } else if (current.expired(interval) && refreshing.compareAndSet(false, true)) {
+            try {
+                current = Snapshot.load();
+                snapshot = current;
+            } finally {
+                refreshing.set(false);
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Parses an IP address without looking up hostnames.
+     *
+     * @param address IP address.
+     * @return Address, or null if it is not an IP address.
+     */
+    private static InetAddress literal(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+
+        if (! ipv4(address) && ! ipv6(address)) {
+            return null;
+        }
+
+        try {
+            return InetAddress.getByName(address);
+        } catch (UnknownHostException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if an address is an IPv4 literal, four decimal parts from 0 to 255.
+     *
+     * @param address Address.
+     * @return True if it is an IPv4 literal.
+     */
+    private static boolean ipv4(String address) {
+        int parts = 0;
+        int digits = 0;
+        int value = 0;
+
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+
+            if (c == '.') {
+                if (digits == 0 || ++parts > 4) {
+                    return false;
+                }
+
+                digits = 0;
+                value = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                value = value * 10 + (c - '0');
+                digits++;
+
+                if (value > 255) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return parts == 4;
+    }
+
+    /**
+     * Checks if an address only has the characters of an IPv6 literal, so
+     * parsing it never looks up a hostname. It may be enclosed in brackets
+     * and end with a scope.
+     *
+     * @param address Address.
+     * @return True if it looks like an IPv6 literal.
+     */
+    private static boolean ipv6(String address) {
+        int from = 0;
+        int to = address.length();
+
+        if (address.charAt(0) == '[') {
+            if (to < 2 || address.charAt(to - 1) != ']') {
+                return false;
+            }
+
+            from++;
+            to--;
+        }
+
+        int scope = address.indexOf('%', from);
+
+        if (scope >= 0 && scope < to) {
+            to = scope;
+        }
+
+        boolean colon = false;
+
+        for (int i = from; i < to; i++) {
+            char c = address.charAt(i);
+
+            if (c == ':') {
+                colon = true;
+            } else if (c != '.' && Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+
+        return colon;
+    }
+
+    /**
+     * Addresses loaded at a given moment.
+     */
+    private static class Snapshot {
+
+        private final Set<Key> locals;
+
+        private final Set<Key> broadcasts;
+
+        private final Set<InetAddress> addresses;
+
+        private final long loaded;
+
+        private Snapshot(Set<Key> locals, Set<Key> broadcasts, Set<InetAddress> addresses) {
+            this.locals = locals;
+            this.broadcasts = broadcasts;
+            this.addresses = Collections.unmodifiableSet(addresses);
+            this.loaded = System.nanoTime();
+        }
+
+        private boolean expired(long interval) {
+            return interval > 0 && System.nanoTime() - this.loaded >= interval * 1000000L;
+        }
+
+        private static Snapshot load() {
+            Set<Key> locals = new HashSet<>();
+            Set<Key> broadcasts = new HashSet<>();
+            Set<InetAddress> addresses = new HashSet<>();
+
+            broadcasts.add(new Key(new byte[] { (byte) 255, (byte) 255, (byte) 255, (byte) 255 }));
+
+            try {
+                Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+
+                while (interfaces != null && interfaces.hasMoreElements()) {
+                    NetworkInterface networkInterface = interfaces.nextElement();
+
+                    for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                        InetAddress address = interfaceAddress.getAddress();
+
+                        addresses.add(address);
+                        locals.add(new Key(address.getAddress()));
+
+                        if (interfaceAddress.getBroadcast() != null) {
+                            broadcasts.add(new Key(interfaceAddress.getBroadcast().getAddress()));
+                        }
+                    }
+                }
+            } catch (SocketException ignored) {}
+
+            return new Snapshot(locals, broadcasts, addresses);
+        }
+    }
+
+    /**
+     * Raw address bytes, compared by content.
+     */
+    private static class Key {
+
+        private final byte[] bytes;
+
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(this.bytes, ((Key) other).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
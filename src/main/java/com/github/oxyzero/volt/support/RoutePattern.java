@@ -0,0 +1,265 @@
+package com.github.oxyzero.volt.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A route compiled once, when it starts being listened.
+ *
+ * Since we can pass up as much information as possible in a Packet,
+ * the messages of a route with variables are cyclic. For example:
+ * Route: :name|:file
+ * Message: Students|Students.json|foobar|foobar.xml
+ * Gives:
+ * Variable name -> [ Students, foobar ]
+ * Variable file -> [ Students.json, foobar.xml ]
+ */
+public class RoutePattern {
+
+    /**
+     * Route separator.
+     */
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Original route.
+     */
+    private final String route;
+
+    /**
+     * Variable names, by their position in the route.
+     */
+    private final String[] variables;
+
+    /**
+     * CRC32 of the route, that identifies it in the UDP packets.
+     */
+    private final String checksum;
+
+    public RoutePattern(String route) {
+        if (route == null) {
+            throw new IllegalArgumentException("The route cannot be null.");
+        }
+
+        String[] tokens = route.split("\\|");
+
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].isEmpty() ? tokens[i] : tokens[i].substring(1);
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(route.getBytes(StandardCharsets.UTF_8));
+
+        this.route = route;
+        this.variables = tokens;
+        this.checksum = String.valueOf(checksum.getValue());
+    }
+
+    /**
+     * Gets the route.
+     *
+     * @return Route.
+     */
+    public String route() {
+        return this.route;
+    }
+
+    /**
+     * Gets the checksum that identifies the route in the UDP packets.
+     *
+     * @return CRC32 of the route.
+     */
+    public String checksum() {
+        return this.checksum;
+    }
+
+    /**
+     * Gets the variable names of the route.
+     *
+     * @return Variable names, by their position in the route.
+     */
+    public List<String> variables() {
+        return Arrays.asList(this.variables.clone());
+    }
+
+    /**
+     * Matches a message against the route. Nothing is extracted until a
+     * variable is requested.
+     *
+     * @param message Message received.
+     * @return Variables of the message.
+     */
+    public Variables match(String message) {
+        return new Variables(this, message);
+    }
+
+    /**
+     * Position of a variable in the route.
+     *
+     * @param name Variable name.
+     * @return Position, or -1 if the route does not have the variable.
+     */
+    private int position(String name) {
+        for (int i = 0; i < this.variables.length; i++) {
+            if (this.variables[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * The variables of a message received on a route. The message is split
+     * the first time a variable is requested, and each value is a view over
+     * the message.
+     */
+    public static class Variables {
+
+        private final RoutePattern pattern;
+
+        private final String message;
+
+        /**
+         * Start and end of each message token, in this order.
+         */
+        private int[] bounds;
+
+        /**
+         * Number of message tokens.
+         */
+        private int count;
+
+        private Variables(RoutePattern pattern, String message) {
+            this.pattern = pattern;
+            this.message = message;
+        }
+
+        /**
+         * Gets the values of a variable.
+         *
+         * @param name Variable name, without the ':'.
+         * @return Values of the variable, or null if the route does not have the variable.
+         */
+        public List<CharSequence> get(String name) {
+            final int position = this.pattern.position(name);
+
+            if (position < 0) {
+                return null;
+            }
+
+            this.split();
+
+            final int cycle = this.pattern.variables.length;
+            final int size = this.count / cycle;
+
+            return new AbstractList<CharSequence>() {
+                @Override
+                public CharSequence get(int index) {
+                    if (index < 0 || index >= size) {
+                        throw new IndexOutOfBoundsException(String.valueOf(index));
+                    }
+
+                    int token = (index * cycle + position) * 2;
+
+                    return new Slice(message, bounds[token], bounds[token + 1]);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * Finds the tokens of the message, dropping the trailing empty tokens
+         * the same way String.split does.
+         */
+        private synchronized void split() {
+            if (this.bounds != null) {
+                return;
+            }
+
+            int[] bounds = new int[16];
+            int count = 0;
+            int start = 0;
+
+            for (int i = 0; i <= this.message.length(); i++) {
+                if (i < this.message.length() && this.message.charAt(i) != SEPARATOR) {
+                    continue;
+                }
+
+                if (count * 2 == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+
+                bounds[count * 2] = start;
+                bounds[count * 2 + 1] = i;
+                count++;
+                start = i + 1;
+            }
+
+            // A message without separators is a single token, even if empty.
+            while (count > 1 && bounds[count * 2 - 2] == bounds[count * 2 - 1]) {
+                count--;
+            }
+
+            if (count == 1 && bounds[0] == bounds[1] && this.message.indexOf(SEPARATOR) >= 0) {
+                count = 0;
+            }
+
+            this.count = count;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * A range of characters of a message.
+     */
+    private static class Slice implements CharSequence {
+
+        private final String message;
+
+        private final int start;
+
+        private final int end;
+
+        private Slice(String message, int start, int end) {
+            this.message = message;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+
+            return this.message.charAt(this.start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > this.length() || start > end) {
+                throw new IndexOutOfBoundsException(start + ", " + end);
+            }
+
+            return new Slice(this.message, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return this.message.substring(this.start, this.end);
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.github.oxyzero.volt.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules the tasks of every TaskManager of the process on a hashed
+ * timing wheel, so pending timers cost no thread of their own.
+ *
+ * The wheel is a ring of buckets, each holding the timeouts that expire in
+ * one tick. A single thread advances the wheel and hands the expired
+ * timeouts to their executor, the pool of the scheduler unless another one
+ * was given. Timeouts whose tasks may block should be given an executor of
+ * their own, so they do not hold the pool from the other timeouts. The
+ * thread sleeps until the end of the next tick whose bucket holds
+ * timeouts, so empty ticks cost nothing, and is woken when an earlier
+ * timeout is scheduled. Scheduling and cancelling a timeout are O(1), the
+ * thread that advances the wheel only runs while there are pending timeouts.
+ */
+public class Scheduler {
+
+    /**
+     * Default duration of a tick, in milliseconds.
+     */
+    public static final long TICK = 1;
+
+    /**
+     * Default number of buckets of the wheel.
+     */
+    public static final int WHEEL_SIZE = 512;
+
+    /**
+     * Maximum number of new timeouts placed in the wheel on each tick.
+     */
+    private static final int TRANSFER_LIMIT = 100000;
+
+    /**
+     * Duration of a tick, in nanoseconds.
+     */
+    private final long tick;
+
+    /**
+     * Buckets of the wheel.
+     */
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    /**
+     * Time the deadlines are relative to.
+     */
+    private final long start;
+
+    /**
+     * Timeouts scheduled but not yet placed in the wheel.
+     */
+    private final Queue<Timeout> added;
+
+    /**
+     * Timeouts cancelled but not yet removed from the wheel.
+     */
+    private final Queue<Timeout> cancelled;
+
+    /**
+     * Number of timeouts scheduled or running.
+     */
+    private final AtomicLong pending;
+
+    /**
+     * Runs the expired timeouts that were not given an executor.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Thread that advances the wheel, or null while there is nothing to wait for.
+     */
+    private Thread worker;
+
+    /**
+     * Tick being waited for by the worker, timeouts placed before it are
+     * placed in its bucket.
+     */
+    private long ticks;
+
+    /**
+     * Time the worker sleeps until, relative to the start.
+     */
+    private volatile long wakeAt;
+
+    public Scheduler() {
+        this(TICK, TimeUnit.MILLISECONDS, WHEEL_SIZE, Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param tick Duration of a tick.
+     * @param unit Time unit of the tick.
+     * @param wheelSize Number of buckets of the wheel, rounded up to a power of two.
+     * @param threads Maximum number of threads running the expired timeouts.
+     */
+    public Scheduler(long tick, TimeUnit unit, int wheelSize, int threads) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("The tick must be greater than 0.");
+        }
+
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("The wheel size must be between 1 and 2^30.");
+        }
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The scheduler needs at least one thread.");
+        }
+
+        int size = 1;
+
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.tick = unit.toNanos(tick);
+        this.wheel = new Bucket[size];
+        this.mask = size - 1;
+        this.start = System.nanoTime();
+        this.added = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicLong();
+
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+
+        AtomicInteger count = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "volt-timer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the scheduler shared by the whole process.
+     *
+     * @return Shared scheduler.
+     */
+    public static Scheduler shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * Runs a task once the delay expires.
+     *
+     * @param task Task to run.
+     * @param delay Delay before running the task, 0 to run it on the next tick.
+     * @param unit Time unit of the delay.
+     * @return Timeout of the task, that may be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return this.schedule(task, delay, unit, this.executor);
+    }
+
+    /**
+     * Runs a task in the given executor once the delay expires.
+     *
+     * @param task Task to run.
+     * @param delay Delay before running the task, 0 to run it on the next tick.
+     * @param unit Time unit of the delay.
+     * @param executor Executor that runs the task.
+     * @return Timeout of the task, that may be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+        if (task == null) {
+            throw new IllegalArgumentException("The task cannot be null.");
+        }
+
+        if (delay < 0) {
+            throw new IllegalArgumentException("The delay cannot be negative.");
+        }
+
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null.");
+        }
+
+        long deadline = System.nanoTime() - this.start + unit.toNanos(delay);
+
+        // Guards against overflows of very long delays.
+        if (deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+
+        Timeout timeout = new Timeout(this, task, executor, deadline);
+
+        this.pending.incrementAndGet();
+        this.added.add(timeout);
+        this.wake(deadline);
+
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timeouts scheduled or running.
+     *
+     * @return Number of pending timeouts.
+     */
+    public long pending() {
+        return this.pending.get();
+    }
+
+    /**
+     * Starts the worker, if it stopped for lack of timeouts, or wakes it if
+     * it sleeps past the given deadline.
+     *
+     * @param deadline Deadline of a new timeout, relative to the start.
+     */
+    private synchronized void wake(long deadline) {
+        if (this.worker != null) {
+            if (deadline < this.wakeAt) {
+                this.worker.interrupt();
+            }
+
+            return;
+        }
+
+        // Not a daemon, so the process waits for the scheduled tasks like it waited for a Timer.
+        this.worker = new Thread(this::work, "volt-scheduler");
+        this.worker.start();
+    }
+
+    /**
+     * Wakes the worker once there are no timeouts left, so it stops.
+     */
+    private void idle() {
+        if (this.pending.get() != 0) {
+            return;
+        }
+
+        synchronized (this) {
+            if (this.worker != null) {
+                this.worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel until there are no timeouts left.
+     */
+    private void work() {
+        long current = (System.nanoTime() - this.start) / this.tick;
+
+        while (true) {
+            this.removeCancelled();
+
+            if (this.pending.get() == 0) {
+                synchronized (this) {
+                    if (this.pending.get() == 0) {
+                        this.worker = null;
+                        Thread.interrupted();
+                        return;
+                    }
+                }
+            }
+
+            this.ticks = current;
+            this.transfer();
+
+            long next = this.next(current);
+            long deadline = this.tick * (next + 1);
+
+            // Woken by an earlier timeout, it is placed before waiting again.
+            if (! this.sleep(deadline)) {
+                continue;
+            }
+
+            this.wheel[(int) (next & this.mask)].expire(next);
+            current = next + 1;
+        }
+    }
+
+    /**
+     * Finds the next tick whose bucket holds timeouts, at most one turn of
+     * the wheel away.
+     *
+     * @param from First tick to look at.
+     * @return Tick.
+     */
+    private long next(long from) {
+        for (int i = 0; i < this.wheel.length; i++) {
+            if (this.wheel[(int) ((from + i) & this.mask)].head != null) {
+                return from + i;
+            }
+        }
+
+        return from + this.wheel.length - 1;
+    }
+
+    /**
+     * Sleeps until the given deadline.
+     *
+     * @param deadline Deadline, relative to the start.
+     * @return True if the deadline was reached, false if there are new timeouts to place.
+     */
+    private boolean sleep(long deadline) {
+        this.wakeAt = deadline;
+
+        while (true) {
+            // Checked after publishing the deadline, so a new timeout either is seen here or wakes the worker.
+            if (! this.added.isEmpty()) {
+                return false;
+            }
+
+            long remaining = deadline - (System.nanoTime() - this.start);
+
+            if (remaining <= 0) {
+                return true;
+            }
+
+            try {
+                Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Places the new timeouts in their buckets.
+     */
+    private void transfer() {
+        for (int i = 0; i < TRANSFER_LIMIT; i++) {
+            Timeout timeout = this.added.poll();
+
+            if (timeout == null) {
+                return;
+            }
+
+            if (timeout.state.get() != Timeout.SCHEDULED) {
+                continue;
+            }
+
+            // Timeouts already past their deadline expire on the tick being waited for.
+            timeout.tick = Math.max(timeout.deadline / this.tick, this.ticks);
+
+            this.wheel[(int) (timeout.tick & this.mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Removes the cancelled timeouts from their buckets.
+     */
+    private void removeCancelled() {
+        Timeout timeout;
+
+        while ((timeout = this.cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Hands an expired timeout to its executor.
+     *
+     * @param timeout Expired timeout.
+     */
+    private void run(Timeout timeout) {
+        try {
+            timeout.executor.execute(() -> {
+                try {
+                    timeout.task.run();
+                } finally {
+                    this.finish();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            this.finish();
+        }
+    }
+
+    /**
+     * Counts a timeout that is no longer pending.
+     */
+    private void finish() {
+        this.pending.decrementAndGet();
+        this.idle();
+    }
+
+    /**
+     * A task waiting for its delay to expire.
+     */
+    public static final class Timeout {
+
+        private static final int SCHEDULED = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private final Scheduler scheduler;
+
+        private final Runnable task;
+
+        private final Executor executor;
+
+        /**
+         * Nanoseconds from the start of the scheduler.
+         */
+        private final long deadline;
+
+        private final AtomicInteger state;
+
+        /**
+         * Tick the timeout expires on, once placed in the wheel.
+         */
+        private long tick;
+
+        private Bucket bucket;
+
+        private Timeout next;
+
+        private Timeout previous;
+
+        private Timeout(Scheduler scheduler, Runnable task, Executor executor, long deadline) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.executor = executor;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(SCHEDULED);
+        }
+
+        /**
+         * Cancels the task, if it did not run yet.
+         *
+         * @return True if the task will not run, false if it already ran or was cancelled.
+         */
+        public boolean cancel() {
+            if (! this.state.compareAndSet(SCHEDULED, CANCELLED)) {
+                return false;
+            }
+
+            this.scheduler.pending.decrementAndGet();
+            this.scheduler.cancelled.add(this);
+            this.scheduler.idle();
+
+            return true;
+        }
+
+        /**
+         * Returns if the timeout was cancelled.
+         *
+         * @return True if cancelled, false otherwise.
+         */
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        /**
+         * Returns if the delay of the timeout expired and its task was run.
+         *
+         * @return True if expired, false otherwise.
+         */
+        public boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+    }
+
+    /**
+     * Timeouts of a slot of the wheel, in a doubly linked list.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        /**
+         * Runs the timeouts of this turn of the wheel.
+         *
+         * @param tick Tick that ended.
+         */
+        private void expire(long tick) {
+            Timeout timeout = this.head;
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+
+                if (timeout.tick <= tick) {
+                    this.remove(timeout);
+
+                    if (timeout.state.compareAndSet(Timeout.SCHEDULED, Timeout.EXPIRED)) {
+                        timeout.scheduler.run(timeout);
+                    }
+                } else if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                }
+
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                this.tail = timeout.previous;
+            }
+
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * Holds the shared scheduler, created on first use.
+     */
+    private static final class Shared {
+
+        private static final Scheduler INSTANCE = new Scheduler();
+    }
+}
@@ -1,7 +1,9 @@
 package com.github.oxyzero.volt.support;
 
 import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.protocols.dual.DualServer;
 import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.tls.TlsServer;
 import com.github.oxyzero.volt.protocols.udp.UdpServer;
 
 public class ServerFactory {
@@ -17,6 +19,10 @@ public class ServerFactory {
             return new UdpServer();
         } else if (protocol.equalsIgnoreCase("tcp")) {
             return new TcpServer();
+        } else if (protocol.equalsIgnoreCase("tls")) {
+            return new TlsServer();
+        } else if (protocol.equalsIgnoreCase("dual")) {
+            return new DualServer();
         }
 
         throw new IllegalArgumentException("The protocol " + protocol + " is invalid.");
@@ -0,0 +1,415 @@
+package com.github.oxyzero.volt.support;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
+import com.github.oxyzero.volt.Server;
+
+import javax.crypto.KeyAgreement;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Agrees a session key with each peer of a server, so the encryption
+ * middleware do not need a key shared by every peer.
+ *
+ * The first message sent to a peer starts an ECDH handshake over the
+ * handshake route: both ends generate a key pair for the session, exchange
+ * their public keys and derive the same AES key from the shared secret.
+ * The key is cached by the IPv4:Port of the peer and used by every
+ * following message, in both directions, until it expires. Replies sent
+ * back on the connection a request arrived on use the session the request
+ * was encrypted with. Sessions are renewed in the background before they
+ * expire, so the messages rarely wait for a handshake. The handshake is not
+ * authenticated.
+ *
+ * Encrypted messages carry the ID of their session:
+ *
+ * session id.encrypted message in Base64
+ */
+public class SessionKeys {
+
+    /**
+     * Route of the handshakes.
+     */
+    public static final String HANDSHAKE_ROUTE = "volt-handshake";
+
+    /**
+     * Default lifetime of a session.
+     */
+    public static final Duration EXPIRY = Duration.ofMinutes(10);
+
+    /**
+     * Default seconds to wait for the reply of a handshake.
+     */
+    public static final int HANDSHAKE_TIMEOUT = 5;
+
+    /**
+     * Length of the session keys, in bytes.
+     */
+    private static final int KEY_LENGTH = 16;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Server that sends and answers the handshakes.
+     */
+    private final Server server;
+
+    /**
+     * Lifetime of a session, in nanoseconds.
+     */
+    private final long expiry;
+
+    /**
+     * Seals the messages of every session.
+     */
+    private final Encrypter encrypter;
+
+    /**
+     * Sessions used to send messages, by IPv4:Port of the peer, or of the
+     * connection a message was received on.
+     */
+    private final Map<String, Session> outgoing;
+
+    /**
+     * Sessions used to receive messages, by IPv4 of the peer and session ID.
+     */
+    private final Map<String, Session> incoming;
+
+    /**
+     * Handshakes in progress, by IPv4:Port of the peer.
+     */
+    private final Map<String, CompletableFuture<Session>> handshakes;
+
+    public SessionKeys(Server server) {
+        this(server, EXPIRY);
+    }
+
+    /**
+     * Creates the session keys of a server, and starts answering the
+     * handshakes of its peers.
+     *
+     * @param server Server that sends and receives the messages.
+     * @param expiry Lifetime of a session.
+     */
+    public SessionKeys(Server server, Duration expiry) {
+        if (server == null) {
+            throw new IllegalArgumentException("The server cannot be null.");
+        }
+
+        if (expiry == null || expiry.isNegative() || expiry.isZero()) {
+            throw new IllegalArgumentException("The session expiry must be greater than 0.");
+        }
+
+        this.server = server;
+        this.expiry = expiry.toNanos();
+        this.encrypter = new Encrypter(Encrypter.Mode.GCM);
+        this.outgoing = new ConcurrentHashMap<>();
+        this.incoming = new ConcurrentHashMap<>();
+        this.handshakes = new ConcurrentHashMap<>();
+
+        server.listen(HANDSHAKE_ROUTE, this::accept);
+    }
+
+    /**
+     * Gets the lifetime of a session.
+     *
+     * @return Session expiry.
+     */
+    public Duration expiry() {
+        return Duration.ofNanos(this.expiry);
+    }
+
+    /**
+     * Encrypts a message sent to a requester, starting a handshake with it
+     * if there is no session with it yet.
+     *
+     * @param requester Target of the message.
+     * @param message Message.
+     * @return Encrypted message, after its session ID.
+     */
+    public String encrypt(Requester requester, String message) {
+        if (message == null || message.isEmpty()) {
+            throw new IllegalArgumentException("Invalid message was given. A message cannot be null or empty.");
+        }
+
+        Session session = this.session(requester);
+        byte[] encrypted = this.encrypter.encrypt(message.getBytes(StandardCharsets.UTF_8), session.key, session.associated);
+
+        return session.id + "." + Base64.getEncoder().encodeToString(encrypted);
+    }
+
+    /**
+     * Decrypts a message received from a requester, with the session it
+     * was encrypted with.
+     *
+     * @param requester Sender of the message.
+     * @param message Encrypted message, after its session ID.
+     * @return Decrypted message.
+     */
+    public String decrypt(Requester requester, String message) {
+        int separator = message == null ? -1 : message.indexOf('.');
+
+        if (separator <= 0) {
+            throw new IllegalArgumentException("The message does not carry a session ID.");
+        }
+
+        String host = this.host(requester);
+        Session session = host == null ? null : this.incoming.get(host + "/" + message.substring(0, separator));
+
+        if (session == null || session.expired(System.nanoTime(), this.expiry + this.expiry / 4)) {
+            throw new IllegalArgumentException("There is no session " + message.substring(0, separator) + " with the requester.");
+        }
+
+        byte[] data = Base64.getDecoder().decode(message.substring(separator + 1));
+        String decrypted = new String(this.encrypter.decrypt(data, session.key, session.associated), StandardCharsets.UTF_8);
+
+        // The replies to the requester use the newest session it sent with.
+        if (requester.target() != null) {
+            this.outgoing.merge(requester.target(), session, (old, used) -> old.created - used.created >= 0 ? old : used);
+        }
+
+        return decrypted;
+    }
+
+    /**
+     * Forgets the sessions used to send messages to a peer, so the next
+     * message starts a new handshake.
+     *
+     * @param target IPv4:Port of the peer.
+     */
+    public void forget(String target) {
+        this.outgoing.remove(target);
+    }
+
+    /**
+     * Gets the session used to send messages to a requester. Sessions past
+     * three quarters of their lifetime are renewed in the background, and
+     * expired sessions are renewed before the message is sent.
+     *
+     * @param requester Target of the message.
+     * @return Session.
+     */
+    private Session session(Requester requester) {
+        String target = requester.target();
+
+        // Peers on the same host are told apart by their port only.
+        if (target == null) {
+            throw new IllegalArgumentException("A session can only be used with a known target.");
+        }
+
+        long now = System.nanoTime();
+        Session session = this.outgoing.get(target);
+
+        if (session != null && ! session.expired(now, this.expiry)) {
+            if (session.expired(now, this.expiry - this.expiry / 4)) {
+                this.handshake(target);
+            }
+
+            return session;
+        }
+
+        try {
+            return this.handshake(target).get(HANDSHAKE_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Interrupted while agreeing a session key with " + target + ".");
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalArgumentException("Could not agree a session key with " + target + ".", ex);
+        }
+    }
+
+    /**
+     * Starts a handshake with a peer, unless one is already in progress.
+     *
+     * @param target IPv4:Port of the peer.
+     * @return Future completed with the new session.
+     */
+    private CompletableFuture<Session> handshake(String target) {
+        CompletableFuture<Session> started = new CompletableFuture<>();
+        CompletableFuture<Session> handshake = this.handshakes.putIfAbsent(target, started);
+
+        if (handshake != null) {
+            return handshake;
+        }
+
+        try {
+            final KeyPair pair = this.generate();
+            final String id = Long.toHexString(random.nextLong());
+            String hello = id + "|" + Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
+
+            this.server.request(HANDSHAKE_ROUTE, target, hello, HANDSHAKE_TIMEOUT).whenComplete((reply, error) -> {
+                this.handshakes.remove(target, started);
+
+                if (error != null) {
+                    started.completeExceptionally(error);
+                    return;
+                }
+
+                try {
+                    Session session = new Session(id, this.agree(pair, reply.message(), id));
+
+                    this.store(target, this.host(reply.requester()), session);
+                    started.complete(session);
+                } catch (IllegalArgumentException ex) {
+                    started.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            this.handshakes.remove(target, started);
+            started.completeExceptionally(ex);
+        }
+
+        return started;
+    }
+
+    /**
+     * Answers the handshake of a peer.
+     *
+     * @param request Handshake request.
+     */
+    private void accept(Request request) {
+        String message = request.message();
+        int separator = message.indexOf('|');
+        String host = this.host(request.requester());
+
+        if (separator <= 0 || host == null) {
+            return;
+        }
+
+        String id = message.substring(0, separator);
+        KeyPair pair = this.generate();
+
+        try {
+            Session session = new Session(id, this.agree(pair, message.substring(separator + 1), id));
+
+            this.store(request.requester().target(), host, session);
+        } catch (IllegalArgumentException ex) {
+            // Ignores handshakes with invalid public keys.
+            return;
+        }
+
+        request.reply(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+    }
+
+    /**
+     * Caches a new session, and drops the expired ones.
+     *
+     * @param target IPv4:Port of the peer, or null if unknown.
+     * @param host IPv4 of the peer.
+     * @param session Session.
+     */
+    private void store(String target, String host, Session session) {
+        long now = System.nanoTime();
+
+        this.outgoing.values().removeIf(old -> old.expired(now, this.expiry));
+        this.incoming.values().removeIf(old -> old.expired(now, this.expiry + this.expiry / 4));
+
+        // Older sessions are still accepted until they expire, for the messages already on their way.
+        this.incoming.put(host + "/" + session.id, session);
+
+        if (target != null) {
+            this.outgoing.put(target, session);
+        }
+    }
+
+    /**
+     * Gets the IPv4 of a requester.
+     *
+     * @param requester Requester.
+     * @return IPv4, or null if unknown.
+     */
+    private String host(Requester requester) {
+        InetAddress address = requester.address();
+
+        return address != null ? address.getHostAddress() : requester.from();
+    }
+
+    /**
+     * Generates the key pair of a session.
+     *
+     * @return Key pair on the P-256 curve.
+     */
+    private KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"), random);
+
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Derives the session key from the shared secret of both key pairs.
+     *
+     * @param pair Local key pair.
+     * @param peer Public key of the peer, in Base64.
+     * @param id Session ID.
+     * @return Session key.
+     */
+    private byte[] agree(KeyPair pair, String peer, String id) {
+        try {
+            PublicKey key = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(peer)));
+
+            KeyAgreement agreement = KeyAgreement.getInstance("ECDH");
+            agreement.init(pair.getPrivate());
+            agreement.doPhase(key, true);
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(agreement.generateSecret());
+            digest.update(id.getBytes(StandardCharsets.UTF_8));
+
+            return Arrays.copyOf(digest.digest(), KEY_LENGTH);
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid public key: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * A key agreed with a peer.
+     */
+    private static final class Session {
+
+        private final String id;
+
+        private final byte[] key;
+
+        /**
+         * Session ID, authenticated with every message.
+         */
+        private final byte[] associated;
+
+        private final long created;
+
+        private Session(String id, byte[] key) {
+            this.id = id;
+            this.key = key;
+            this.associated = id.getBytes(StandardCharsets.UTF_8);
+            this.created = System.nanoTime();
+        }
+
+        private boolean expired(long now, long lifetime) {
+            return now - this.created >= lifetime;
+        }
+    }
+}
@@ -1,13 +1,84 @@
 package com.github.oxyzero.volt.support;
 
 import java.util.TimerTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Task extends TimerTask {
 
     /**
      *
      */
-    private boolean kill = false;
+    private volatile boolean kill = false;
+
+    /**
+     * If the task was cancelled.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Next execution of the task, once it is scheduled.
+     */
+    private volatile Scheduler.Timeout timeout;
+
+    /**
+     * Scheduler of the task.
+     */
+    private Scheduler scheduler;
+
+    /**
+     * Manager that fired the task.
+     */
+    private TaskManager manager;
+
+    /**
+     * Nanoseconds between executions, or 0 if the task runs once.
+     */
+    private long period;
+
+    /**
+     * If the executions keep a fixed rate instead of a fixed delay.
+     */
+    private boolean fixedRate;
+
+    /**
+     * Time the next execution is scheduled for, as given by System.nanoTime.
+     */
+    private long scheduled;
+
+    /**
+     * Fraction of the period by which each execution is randomly moved.
+     */
+    private double jitter;
+
+    /**
+     * Factor by which the period widens when congested, or 0 to keep it.
+     */
+    private double backoff;
+
+    /**
+     * Nanoseconds the period may widen to.
+     */
+    private long maxPeriod;
+
+    /**
+     * Current widening of the period.
+     */
+    private volatile double multiplier = 1;
+
+    /**
+     * If the current execution reported congestion.
+     */
+    private volatile boolean congested;
+
+    private final AtomicLong executions = new AtomicLong();
+
+    private final AtomicLong totalLag = new AtomicLong();
+
+    private final AtomicLong maxLag = new AtomicLong();
+
+    private volatile long lastLag;
     
     @Override
     public void run() {
@@ -27,5 +98,180 @@ public class Task extends TimerTask {
     {
         this.kill = true;
     }
+
+    /**
+     * Reports that the current execution met congestion, such as a peer that
+     * stopped responding, so the period widens if the task backs off.
+     */
+    public void congested() {
+        this.congested = true;
+    }
+
+    /**
+     * Cancels the task, its next executions will not happen.
+     *
+     * @return True if an execution was prevented, false otherwise.
+     */
+    @Override
+    public boolean cancel() {
+        super.cancel();
+
+        Scheduler.Timeout timeout;
+
+        synchronized (this) {
+            if (this.cancelled) {
+                return false;
+            }
+
+            this.cancelled = true;
+            timeout = this.timeout;
+        }
+
+        boolean prevented = timeout != null && timeout.cancel();
+
+        this.done();
+
+        return prevented || (timeout != null && this.period > 0);
+    }
+
+    /**
+     * Gets how late the executions of the task started compared to their
+     * schedule.
+     *
+     * @return Task statistics.
+     */
+    public TaskStats stats() {
+        return new TaskStats(this.executions.get(), this.totalLag.get(), this.maxLag.get(), this.lastLag,
+                (long) (this.period * this.multiplier));
+    }
+
+    /**
+     * Sets how the period of the task adapts.
+     *
+     * @param jitter Fraction of the period by which each execution is randomly moved.
+     * @param backoff Factor by which the period widens when congested, or 0 to keep it.
+     * @param maxPeriod Nanoseconds the period may widen to.
+     */
+    synchronized void adapt(double jitter, double backoff, long maxPeriod) {
+        if (this.scheduler != null) {
+            throw new IllegalArgumentException("The task was already scheduled or cancelled.");
+        }
+
+        this.jitter = jitter;
+        this.backoff = backoff;
+        this.maxPeriod = maxPeriod;
+    }
+
+    /**
+     * Schedules the task. Periodic tasks are scheduled again either a period
+     * after the previous execution was scheduled, at a fixed rate, or a period
+     * after it finished, with a fixed delay.
+     *
+     * @param scheduler Scheduler of the task.
+     * @param manager Manager that fired the task.
+     * @param delay Nanoseconds before the first execution.
+     * @param period Nanoseconds between executions, or 0 to run once.
+     * @param fixedRate If the executions keep a fixed rate.
+     */
+    synchronized void schedule(Scheduler scheduler, TaskManager manager, long delay, long period, boolean fixedRate) {
+        if (this.scheduler != null || this.cancelled) {
+            throw new IllegalArgumentException("The task was already scheduled or cancelled.");
+        }
+
+        if (period < 0) {
+            throw new IllegalArgumentException("The period of a task cannot be negative.");
+        }
+
+        this.scheduler = scheduler;
+        this.manager = manager;
+        this.period = period;
+        this.fixedRate = fixedRate;
+        this.scheduled = System.nanoTime() + delay;
+        this.timeout = scheduler.schedule(this::execute, delay, TimeUnit.NANOSECONDS, TaskManager.executor());
+    }
+
+    /**
+     * Runs the task and schedules its next execution.
+     */
+    private void execute() {
+        if (this.cancelled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long lag = Math.max(0, start - this.scheduled);
+
+        this.executions.incrementAndGet();
+        this.totalLag.addAndGet(lag);
+        this.maxLag.accumulateAndGet(lag, Math::max);
+        this.lastLag = lag;
+
+        this.congested = false;
+
+        try {
+            this.run();
+        } catch (RuntimeException | Error ex) {
+            // A failing task stops running, as it would stop its Timer.
+            this.cancel();
+            throw ex;
+        }
+
+        if (this.period == 0) {
+            this.done();
+            return;
+        }
+
+        synchronized (this) {
+            if (this.cancelled) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            this.scheduled = (this.fixedRate ? this.scheduled : now) + this.next(lag);
+
+            long delay = Math.max(0, this.scheduled - now);
+
+            this.timeout = this.scheduler.schedule(this::execute, delay, TimeUnit.NANOSECONDS, TaskManager.executor());
+        }
+    }
+
+    /**
+     * Computes the period until the next execution, widening it if the task
+     * backs off and moving it by the jitter.
+     *
+     * @param lag Nanoseconds the last execution started late.
+     * @return Nanoseconds until the next execution.
+     */
+    private long next(long lag) {
+        if (this.backoff > 0) {
+            double max = (double) this.maxPeriod / this.period;
+
+            if (this.congested || lag > this.period * this.multiplier) {
+                this.multiplier = Math.min(this.multiplier * this.backoff, max);
+            } else {
+                this.multiplier = Math.max(this.multiplier / this.backoff, 1);
+            }
+        }
+
+        double period = this.period * this.multiplier;
+
+        if (this.jitter > 0) {
+            period *= 1 + this.jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+
+        return (long) period;
+    }
+
+    /**
+     * Removes the task from its manager.
+     */
+    private void done() {
+        TaskManager manager = this.manager;
+
+        if (manager != null) {
+            manager.forget(this);
+        }
+    }
     
 }
@@ -1,42 +1,92 @@
 package com.github.oxyzero.volt.support;
 
-import java.util.Timer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskManager {
 
-    private int seconds = 60;
+    /**
+     * Nanoseconds between the executions of the next task fired.
+     */
+    private long period = TimeUnit.SECONDS.toNanos(60);
 
-    private int after = 0;
+    /**
+     * Nanoseconds before the first execution of the next task fired.
+     */
+    private long after = 0;
 
-    private Timer timer;
+    /**
+     * If the next task fired keeps a fixed rate instead of a fixed delay.
+     */
+    private boolean fixedRate = false;
 
-    public TaskManager() {}
+    /**
+     * Fraction of the period by which each execution of the next task fired
+     * is randomly moved, earlier or later.
+     */
+    private double jitter = 0;
 
     /**
-     * Creates a new Timer if no timer was already instantiated.
+     * If the first execution of the next task fired is moved by a random
+     * part of its period.
      */
-    private void createTimer() {
-        if (this.timer != null) {
-            return;
-        }
+    private boolean randomPhase = false;
 
-        this.timer = new Timer();
-    }
+    /**
+     * Factor by which the period of the next task fired widens when it is
+     * congested, or 0 to keep its period.
+     */
+    private double backoff = 0;
 
     /**
-     * Fires a new Task on every given seconds (default is 60 seconds).
+     * Nanoseconds the period of the next task fired may widen to.
+     */
+    private long maxPeriod = 0;
+
+    /**
+     * Tasks fired by the manager that did not finish yet.
+     */
+    private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+
+    public TaskManager() {}
+
+    /**
+     * Fires a new Task on every given period (default is 60 seconds).
      *
      * @param task Task to be executed.
      * @return Self.
      */
     public TaskManager fire(Task task) {
+        long after = this.after;
 
-        this.createTimer();
+        try {
+            if (this.backoff > 0 && this.maxPeriod < this.period) {
+                throw new IllegalArgumentException("The maximum period cannot be shorter than the period.");
+            }
 
-        this.timer.schedule(task, this.after * 1000, this.seconds * 1000);
+            if (this.randomPhase && this.period > 0) {
+                after += ThreadLocalRandom.current().nextLong(this.period);
+            }
 
-        this.after = 0;
-        this.seconds = 60;
+            task.adapt(this.jitter, this.backoff, this.maxPeriod);
+
+            this.schedule(task, after, this.period, this.fixedRate);
+        } finally {
+            this.after = 0;
+            this.period = TimeUnit.SECONDS.toNanos(60);
+            this.fixedRate = false;
+            this.jitter = 0;
+            this.randomPhase = false;
+            this.backoff = 0;
+            this.maxPeriod = 0;
+        }
 
         return this;
     }
@@ -48,31 +98,41 @@ public class TaskManager {
      * @return self
      */
     public TaskManager once(final Task task) {
-        this.createTimer();
+        this.schedule(task, this.after, 0, false);
 
-        Task once = new Task() {
-            @Override
-            public void run() {
-                this.fire();
-
-                this.cancel();
-                
-                if (timer != null) {
-                    timer.purge();
-                }
-            }
+        this.after = 0;
 
-            @Override
-            public void fire() {
-                task.fire();
-            }
-        };
+        return this;
+    }
 
-        this.timer.schedule(once, this.after * 1000);
+    /**
+     * Gets the executor that runs the tasks of every manager. It starts a
+     * thread whenever the others are busy, so a task that blocks does not
+     * delay the tasks of other managers.
+     *
+     * @return Shared executor.
+     */
+    static Executor executor() {
+        return Runner.INSTANCE;
+    }
 
-        this.after = 0;
+    /**
+     * Schedules a task on the shared scheduler.
+     *
+     * @param task Task to be executed.
+     * @param after Nanoseconds before the first execution.
+     * @param period Nanoseconds between executions, or 0 to execute it once.
+     * @param fixedRate If the executions keep a fixed rate instead of a fixed delay.
+     */
+    private void schedule(Task task, long after, long period, boolean fixedRate) {
+        this.tasks.add(task);
 
-        return this;
+        try {
+            task.schedule(Scheduler.shared(), this, after, period, fixedRate);
+        } catch (IllegalArgumentException e) {
+            this.tasks.remove(task);
+            throw e;
+        }
     }
 
     /**
@@ -82,7 +142,119 @@ public class TaskManager {
      * @return self
      */
     public TaskManager every(int seconds) {
-        this.seconds = seconds;
+        return this.every(seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets the period for each task to be executed.
+     *
+     * @param period Period.
+     * @param unit Time unit of the period.
+     * @return self
+     */
+    public TaskManager every(long period, TimeUnit unit) {
+        this.period = unit.toNanos(period);
+
+        return this;
+    }
+
+    /**
+     * Sets the period for each task to be executed.
+     *
+     * @param period Period.
+     * @return self
+     */
+    public TaskManager every(Duration period) {
+        return this.every(period.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Executes the next task at a fixed rate: each execution is scheduled a
+     * period after the previous one was scheduled, so late executions are
+     * caught up.
+     *
+     * @return self
+     */
+    public TaskManager fixedRate() {
+        this.fixedRate = true;
+
+        return this;
+    }
+
+    /**
+     * Executes the next task with a fixed delay: each execution is scheduled
+     * a period after the previous one finished. This is the default.
+     *
+     * @return self
+     */
+    public TaskManager fixedDelay() {
+        this.fixedRate = false;
+
+        return this;
+    }
+
+    /**
+     * Moves each execution of the next task randomly, by up to the given
+     * fraction of its period, so tasks fired together drift apart.
+     *
+     * @param jitter Fraction of the period, from 0 to 1 (exclusive).
+     * @return self
+     */
+    public TaskManager jitter(double jitter) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("The jitter must be at least 0 and less than 1.");
+        }
+
+        this.jitter = jitter;
+
+        return this;
+    }
+
+    /**
+     * Moves the first execution of the next task by a random part of its
+     * period, so tasks fired at the same time do not run in lockstep.
+     *
+     * @return self
+     */
+    public TaskManager randomPhase() {
+        this.randomPhase = true;
+
+        return this;
+    }
+
+    /**
+     * Widens the period of the next task by the given factor every time an
+     * execution is congested, up to the maximum period, and narrows it back
+     * by the same factor after every execution that is not. An execution is
+     * congested when it starts more than a period late, or when the task
+     * reports it.
+     *
+     * @param factor Factor by which the period widens, greater than 1.
+     * @param max Maximum period.
+     * @return self
+     * @see Task#congested()
+     */
+    public TaskManager backoff(double factor, Duration max) {
+        return this.backoff(factor, max.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Widens the period of the next task by the given factor every time an
+     * execution is congested, up to the maximum period.
+     *
+     * @param factor Factor by which the period widens, greater than 1.
+     * @param max Maximum period.
+     * @param unit Time unit of the maximum period.
+     * @return self
+     * @see #backoff(double, Duration)
+     */
+    public TaskManager backoff(double factor, long max, TimeUnit unit) {
+        if (! (factor > 1)) {
+            throw new IllegalArgumentException("The backoff factor must be greater than 1.");
+        }
+
+        this.backoff = factor;
+        this.maxPeriod = unit.toNanos(max);
 
         return this;
     }
@@ -94,11 +266,32 @@ public class TaskManager {
      * @return self
      */
     public TaskManager after(int seconds) {
-        this.after = seconds;
+        return this.after(seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets the delay for each task to be executed.
+     *
+     * @param delay Delay.
+     * @param unit Time unit of the delay.
+     * @return self
+     */
+    public TaskManager after(long delay, TimeUnit unit) {
+        this.after = unit.toNanos(delay);
 
         return this;
     }
 
+    /**
+     * Sets the delay for each task to be executed.
+     *
+     * @param delay Delay.
+     * @return self
+     */
+    public TaskManager after(Duration delay) {
+        return this.after(delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
     public void stop() {
         Task stop = new Task() {
             @Override
@@ -112,10 +305,39 @@ public class TaskManager {
     }
 
     /**
-     * Destroys the manager.
+     * Removes a task that finished or was cancelled.
+     *
+     * @param task Task.
+     */
+    void forget(Task task) {
+        this.tasks.remove(task);
+    }
+
+    /**
+     * Destroys the manager, cancelling every task it fired.
      */
     public void destroy() {
-        this.timer.cancel();
-        this.timer = null;
+        for (Task task : this.tasks) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Holds the executor of the tasks, created on first use.
+     */
+    private static final class Runner {
+
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            AtomicInteger count = new AtomicInteger();
+
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+                Thread thread = new Thread(task, "volt-task-" + count.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
     }
 }
@@ -0,0 +1,100 @@
+package com.github.oxyzero.volt.support;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of the executions of a task, measuring how late they started
+ * compared to their schedule.
+ *
+ * @see Task#stats()
+ */
+public class TaskStats {
+
+    /**
+     * Number of executions.
+     */
+    private final long executions;
+
+    /**
+     * Total lag of the executions, in nanoseconds.
+     */
+    private final long totalLag;
+
+    /**
+     * Longest lag of an execution, in nanoseconds.
+     */
+    private final long maxLag;
+
+    /**
+     * Lag of the last execution, in nanoseconds.
+     */
+    private final long lastLag;
+
+    /**
+     * Current period, widened by the backoff, in nanoseconds.
+     */
+    private final long period;
+
+    public TaskStats(long executions, long totalLag, long maxLag, long lastLag, long period) {
+        this.executions = executions;
+        this.totalLag = totalLag;
+        this.maxLag = maxLag;
+        this.lastLag = lastLag;
+        this.period = period;
+    }
+
+    /**
+     * Gets the number of executions of the task.
+     *
+     * @return Number of executions.
+     */
+    public long executions() {
+        return this.executions;
+    }
+
+    /**
+     * Gets the average time an execution started after its schedule.
+     *
+     * @param unit Time unit.
+     * @return Average lag.
+     */
+    public long averageLag(TimeUnit unit) {
+        return this.executions == 0 ? 0 : unit.convert(this.totalLag / this.executions, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the longest time an execution started after its schedule.
+     *
+     * @param unit Time unit.
+     * @return Maximum lag.
+     */
+    public long maxLag(TimeUnit unit) {
+        return unit.convert(this.maxLag, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time the last execution started after its schedule.
+     *
+     * @param unit Time unit.
+     * @return Lag of the last execution.
+     */
+    public long lastLag(TimeUnit unit) {
+        return unit.convert(this.lastLag, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the current period of the task, widened by the backoff.
+     *
+     * @param unit Time unit.
+     * @return Current period, or 0 if the task runs once.
+     */
+    public long period(TimeUnit unit) {
+        return unit.convert(this.period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskStats{executions=" + this.executions + ", averageLag=" + this.averageLag(TimeUnit.MICROSECONDS)
+                + "us, maxLag=" + this.maxLag(TimeUnit.MICROSECONDS) + "us, lastLag=" + this.lastLag(TimeUnit.MICROSECONDS) + "us, period=" + this.period(TimeUnit.MICROSECONDS) + "us}";
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.oxyzero.volt;
+
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class CorrelationTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    @Test
+    public void testUdpRepliesCompleteTheirRequests() throws Exception {
+        this.assertRepliesCompleteTheirRequests(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpRepliesCompleteTheirRequests() throws Exception {
+        this.assertRepliesCompleteTheirRequests(TcpServer::new);
+    }
+
+    @Test
+    public void testUdpRequestsTimeOut() throws Exception {
+        this.assertRequestsTimeOut(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpRequestsTimeOut() throws Exception {
+        this.assertRequestsTimeOut(TcpServer::new);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTcpRequestsToInvalidTargetsAreRefused() throws Exception {
+        this.servers.stream(new TcpServer()).request("echo", "127.0.0.1:port", "hello", 5);
+    }
+
+    private void assertRepliesCompleteTheirRequests(Supplier<Server> factory) throws Exception {
+        Server server = this.servers.stream(factory);
+        Server sender = this.servers.stream(factory);
+
+        // Replies are sent in a random order, each must complete its own request.
+        server.listen("echo", request -> {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(50));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            request.reply(request.message() + "!");
+        });
+
+        List<CompletableFuture<Request>> replies = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            replies.add(sender.request("echo", "127.0.0.1:" + server.getPort(), "message " + i, 5));
+        }
+
+        for (int i = 0; i < replies.size(); i++) {
+            assertEquals("message " + i + "!", replies.get(i).get(10, TimeUnit.SECONDS).message());
+        }
+    }
+
+    private void assertRequestsTimeOut(Supplier<Server> factory) throws Exception {
+        Server server = this.servers.stream(factory);
+        Server sender = this.servers.stream(factory);
+
+        server.listen("silent", request -> {});
+
+        CompletableFuture<Request> reply = sender.request("silent", "127.0.0.1:" + server.getPort(), "hello", 1);
+
+        try {
+            reply.get(5, TimeUnit.SECONDS);
+            fail("The request should have timed out.");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof TimeoutException);
+        }
+    }
+}
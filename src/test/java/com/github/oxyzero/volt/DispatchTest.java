@@ -0,0 +1,127 @@
+package com.github.oxyzero.volt;
+
+import com.github.oxyzero.volt.middleware.AsyncMiddleware;
+import com.github.oxyzero.volt.middleware.Middleware;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import com.github.oxyzero.volt.support.Container;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class DispatchTest {
+
+    private UdpServer server;
+
+    private AtomicInteger executed;
+
+    @Before
+    public void setUp() {
+        this.server = new UdpServer();
+        this.executed = new AtomicInteger();
+    }
+
+    @Test
+    public void testStopShortCircuitsTheRoute() throws Exception {
+        AtomicInteger after = new AtomicInteger();
+
+        this.server.middleware("stopped", (AsyncMiddleware) (request, container) -> AsyncMiddleware.stop(),
+                new Counter(after));
+
+        CompletableFuture<Boolean> handled = this.server.dispatch(this.action(request -> this.executed.incrementAndGet()), this.request("stopped"));
+
+        assertFalse(handled.get(5, TimeUnit.SECONDS));
+        assertEquals(0, this.executed.get());
+        // The remaining middleware are skipped too.
+        assertEquals(0, after.get());
+    }
+
+    @Test
+    public void testAsyncStopShortCircuitsTheRoute() throws Exception {
+        this.server.middleware("stopped", (AsyncMiddleware) (request, container) -> this.later(false));
+
+        CompletableFuture<Boolean> handled = this.server.dispatch(this.action(request -> this.executed.incrementAndGet()), this.request("stopped"));
+
+        assertFalse(handled.get(5, TimeUnit.SECONDS));
+        assertEquals(0, this.executed.get());
+    }
+
+    @Test
+    public void testAsyncProceedRunsTheRouteInTheServer() throws Exception {
+        AtomicInteger after = new AtomicInteger();
+        AtomicReference<String> thread = new AtomicReference<>();
+
+        this.server.middleware("async", (AsyncMiddleware) (request, container) -> this.later(true), new Counter(after));
+
+        CompletableFuture<Boolean> handled = this.server.dispatch(this.action(request -> {
+            thread.set(Thread.currentThread().getName());
+            this.executed.incrementAndGet();
+        }), this.request("async"));
+
+        assertTrue(handled.get(5, TimeUnit.SECONDS));
+        assertEquals(1, this.executed.get());
+        assertEquals(1, after.get());
+        // The action does not run in the thread that completed the middleware.
+        assertTrue(thread.get(), thread.get().startsWith("volt-dispatch-"));
+    }
+
+    private Connection action(Consumer<Request> action) {
+        return new Connection() {
+            @Override
+            public void run(Request request) {
+                action.accept(request);
+            }
+        };
+    }
+
+    private Request request(String route) {
+        return new Request(route, "message", new Requester("127.0.0.1:5000", null));
+    }
+
+    /**
+     * Completes a stage in a thread of its own, after a while.
+     */
+    private CompletionStage<Boolean> later(boolean proceed) {
+        CompletableFuture<Boolean> stage = new CompletableFuture<>();
+
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            stage.complete(proceed);
+        }, "foreign").start();
+
+        return stage;
+    }
+
+    /**
+     * Counts the requests that reach it.
+     */
+    private static class Counter implements Middleware {
+
+        private final AtomicInteger count;
+
+        private Counter(AtomicInteger count) {
+            this.count = count;
+        }
+
+        @Override
+        public void before(Request request, Container container) {
+            this.count.incrementAndGet();
+        }
+
+        @Override
+        public void after(Request request, Container container) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.oxyzero.volt;
+
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DrainTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    private UdpServer server;
+
+    private UdpServer sender;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        this.server = this.servers.stream(new UdpServer());
+        this.sender = this.servers.stream(new UdpServer());
+    }
+
+    @Test
+    public void testDrainWaitsForPendingRequests() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+
+        this.server.listen("slow", request -> {
+            started.countDown();
+            this.sleep(300);
+        });
+
+        this.sender.send("slow", "127.0.0.1:" + this.server.getPort(), "work");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        DrainReport report = this.server.drain(5000);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(1, report.completed());
+        assertEquals(0, report.aborted());
+        // The drain returns as soon as the request finishes, not at the deadline.
+        assertTrue(elapsed < 2000);
+        assertFalse(this.server.isActive());
+    }
+
+    @Test
+    public void testDrainAbortsAtTheDeadline() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        this.server.listen("stuck", request -> {
+            started.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        this.sender.send("stuck", "127.0.0.1:" + this.server.getPort(), "work");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        DrainReport report = this.server.drain(200);
+
+        release.countDown();
+
+        assertEquals(0, report.completed());
+        assertEquals(1, report.aborted());
+    }
+
+    @Test
+    public void testDrainWithoutPendingRequestsReturnsAtOnce() {
+        long start = System.currentTimeMillis();
+        DrainReport report = this.server.drain(5000);
+
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(0, report.completed());
+        assertEquals(0, report.aborted());
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.oxyzero.volt;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RouteExecutorTest {
+
+    /**
+     * Runs the given number of requests at once and returns the maximum
+     * number of them that were handled at the same time.
+     */
+    private int peak(RouteExecutor executor, int requests) throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < requests; i++) {
+            final String requester = "127.0.0.1:" + (1000 + i);
+
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ignored) {}
+
+                executor.execute(requester, () -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ignored) {}
+
+                    running.decrementAndGet();
+                });
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return peak.get();
+    }
+
+    @Test
+    public void testSerial() throws InterruptedException {
+        assertEquals(1, this.peak(new RouteExecutor(Concurrency.serial()), 8));
+    }
+
+    @Test
+    public void testBounded() throws InterruptedException {
+        int peak = this.peak(new RouteExecutor(Concurrency.bounded(3)), 12);
+
+        assertTrue(peak > 1);
+        assertTrue(peak <= 3);
+    }
+
+    @Test
+    public void testUnbounded() throws InterruptedException {
+        assertTrue(this.peak(new RouteExecutor(Concurrency.unbounded()), 8) > 3);
+    }
+
+    @Test
+    public void testOrderedPerRequester() throws InterruptedException {
+        RouteExecutor executor = new RouteExecutor(Concurrency.unbounded().ordered());
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch first = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final int request = i;
+
+            Thread thread = new Thread(() -> executor.execute("127.0.0.1:1000", () -> {
+                if (request == 0) {
+                    first.countDown();
+
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException ignored) {}
+                }
+
+                handled.add(request);
+            }));
+
+            threads.add(thread);
+            thread.start();
+
+            if (i == 0) {
+                first.await();
+            } else {
+                // Gives the request time to reach the route before the next one.
+                while (executor.stats(":route").waiting() < i) {
+                    Thread.sleep(1);
+                }
+            }
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), handled);
+    }
+
+    @Test
+    public void testStats() throws InterruptedException {
+        RouteExecutor executor = new RouteExecutor(Concurrency.serial());
+
+        this.peak(executor, 4);
+
+        RouteStats stats = executor.stats(":route");
+
+        assertEquals(4, stats.handled());
+        assertEquals(0, stats.waiting());
+        assertTrue(stats.maxWait(TimeUnit.MILLISECONDS) >= 20);
+        assertTrue(stats.averageWait(TimeUnit.NANOSECONDS) <= stats.maxWait(TimeUnit.NANOSECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimit() {
+        Concurrency.bounded(0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.oxyzero.volt;
+
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RoutesTest {
+
+    private UdpServer server;
+
+    @Before
+    public void setUp() {
+        this.server = new UdpServer();
+    }
+
+    @Test
+    public void testReloadReplacesEveryRoute() {
+        Connection kept = this.action();
+        Connection added = this.action();
+
+        this.server.listen("removed", this.action(), Concurrency.serial());
+        this.server.listen("kept", this.action(), Concurrency.bounded(2));
+
+        Map<String, Connection> routes = new HashMap<>();
+        routes.put("kept", kept);
+        routes.put("added", added);
+
+        this.server.reload(routes);
+
+        // Later changes of the given map do not affect the routes.
+        routes.remove("kept");
+
+        assertEquals(new HashSet<>(Arrays.asList("kept", "added")), this.server.routes().keySet());
+        assertSame(kept, this.server.route("kept").action);
+        assertSame(added, this.server.route("added").action);
+        assertNull(this.server.route("removed"));
+
+        // The concurrency of the removed routes is dropped, the one of the kept routes stays.
+        assertNull(this.server.stats("removed"));
+        assertNotNull(this.server.stats("kept"));
+    }
+
+    @Test
+    public void testRoutesListenedAfterReloadAreKept() {
+        this.server.listen("old", this.action());
+
+        Map<String, Connection> routes = new HashMap<>();
+        routes.put("new", this.action());
+
+        this.server.reload(routes);
+        this.server.listen("late", this.action());
+
+        assertEquals(new HashSet<>(Arrays.asList("new", "late")), this.server.routes().keySet());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReloadRefusesNullActions() {
+        Map<String, Connection> routes = new HashMap<>();
+        routes.put("route", null);
+
+        this.server.reload(routes);
+    }
+
+    private Connection action() {
+        return new Connection() {
+            @Override
+            public void run(Request request) {
+            }
+        };
+    }
+}
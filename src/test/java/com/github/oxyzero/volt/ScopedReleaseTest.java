@@ -0,0 +1,100 @@
+package com.github.oxyzero.volt;
+
+import com.github.oxyzero.volt.middleware.Middleware;
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import com.github.oxyzero.volt.support.Container;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ScopedReleaseTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    private final AtomicInteger built = new AtomicInteger();
+
+    private final AtomicInteger released = new AtomicInteger();
+
+    @Test
+    public void testUdpSendsReleaseTheirInstances() throws Exception {
+        this.assertSendsReleaseTheirInstances(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpSendsReleaseTheirInstances() throws Exception {
+        this.assertSendsReleaseTheirInstances(TcpServer::new);
+    }
+
+    @Test
+    public void testUdpRepliesReleaseTheirInstances() throws Exception {
+        this.assertRepliesReleaseTheirInstances(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpRepliesReleaseTheirInstances() throws Exception {
+        this.assertRepliesReleaseTheirInstances(TcpServer::new);
+    }
+
+    private void assertSendsReleaseTheirInstances(Supplier<Server> factory) throws Exception {
+        Server server = this.servers.stream(factory);
+        Server sender = this.scoped(this.servers.stream(factory), "ping");
+
+        server.listen("ping", request -> {});
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        sender.send("ping", target, "one");
+        sender.send("ping", Arrays.asList(target, target), "two");
+
+        assertEquals(this.built.get(), this.released.get());
+        assertTrue(this.built.get() > 0);
+    }
+
+    private void assertRepliesReleaseTheirInstances(Supplier<Server> factory) throws Exception {
+        Server server = this.servers.stream(factory);
+        Server sender = this.scoped(this.servers.stream(factory), "echo");
+
+        server.listen("echo", request -> request.reply(request.message()));
+
+        Request reply = sender.request("echo", "127.0.0.1:" + server.getPort(), "hello", 5).get(5, TimeUnit.SECONDS);
+
+        assertEquals("hello", reply.message());
+
+        // The request sent and the reply received each resolved an instance.
+        Servers.await(() -> this.released.get() >= 2);
+
+        assertEquals(this.built.get(), this.released.get());
+    }
+
+    /**
+     * Resolves a request scoped service in the before middleware of a route.
+     */
+    private Server scoped(Server server, String route) {
+        server.services.scoped("scoped", container -> {
+            this.built.incrementAndGet();
+
+            return new Object();
+        }, instance -> this.released.incrementAndGet());
+
+        server.middleware(route, new Middleware() {
+            @Override
+            public void before(Request request, Container container) {
+                container.resolve("scoped", request);
+            }
+
+            @Override
+            public void after(Request request, Container container) {
+            }
+        });
+
+        return server;
+    }
+}
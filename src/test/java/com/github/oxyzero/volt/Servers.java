@@ -0,0 +1,83 @@
+package com.github.oxyzero.volt;
+
+import org.junit.rules.ExternalResource;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streams servers for a test and shuts them down once it finishes.
+ */
+public class Servers extends ExternalResource {
+
+    /**
+     * How long to wait for a server or a condition, in milliseconds.
+     */
+    private static final long TIMEOUT = 5000;
+
+    private final List<Server> servers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Streams a server on an ephemeral port.
+     *
+     * @param factory Builds the server.
+     * @return Active server.
+     */
+    public <T extends Server> T stream(Supplier<T> factory) throws InterruptedException {
+        return this.stream(factory.get(), 0);
+    }
+
+    /**
+     * Streams a server on an ephemeral port.
+     *
+     * @param server Server to stream.
+     * @return Active server.
+     */
+    public <T extends Server> T stream(T server) throws InterruptedException {
+        return this.stream(server, 0);
+    }
+
+    /**
+     * Streams a server and waits until it is active.
+     *
+     * @param server Server to stream.
+     * @param port Port to bind, or 0 for an ephemeral one.
+     * @return Active server.
+     */
+    public <T extends Server> T stream(T server, int port) throws InterruptedException {
+        this.servers.add(server);
+
+        new Thread(() -> server.stream(port)).start();
+
+        await(() -> server.getPort() > 0 && server.isActive());
+
+        return server;
+    }
+
+    /**
+     * Waits until the condition holds, failing the test after the timeout.
+     *
+     * @param condition Condition to poll.
+     */
+    public static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (! condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for the server.", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Override
+    protected void after() {
+        for (Server server : this.servers) {
+            if (server.isActive()) {
+                server.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.oxyzero.volt.middleware;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import com.github.oxyzero.volt.support.Encrypter;
+import com.github.oxyzero.volt.support.SessionKeys;
+import org.junit.Test;
+
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class MessageDecryptionMiddlewareTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    @Test
+    public void testDecryptsTheMessage() {
+        MessageDecryptionMiddleware middleware = new MessageDecryptionMiddleware(KEY, Encrypter.Mode.GCM);
+        Request request = this.request(new Encrypter(Encrypter.Mode.GCM).encrypt("hello", KEY));
+
+        assertTrue(this.proceeds(middleware, request));
+        assertEquals("hello", request.message());
+    }
+
+    @Test
+    public void testStopsTamperedMessages() {
+        MessageDecryptionMiddleware middleware = new MessageDecryptionMiddleware(KEY, Encrypter.Mode.GCM);
+        byte[] sealed = Base64.getDecoder().decode(new Encrypter(Encrypter.Mode.GCM).encrypt("hello", KEY));
+
+        sealed[sealed.length - 1] ^= 1;
+
+        assertFalse(this.proceeds(middleware, this.request(Base64.getEncoder().encodeToString(sealed))));
+    }
+
+    @Test
+    public void testStopsMessagesInTheClear() {
+        MessageDecryptionMiddleware middleware = new MessageDecryptionMiddleware(KEY, Encrypter.Mode.GCM);
+
+        assertFalse(this.proceeds(middleware, this.request("hello")));
+    }
+
+    @Test
+    public void testStopsMessagesOfUnknownSessions() {
+        MessageDecryptionMiddleware middleware = new MessageDecryptionMiddleware(new SessionKeys(new UdpServer()));
+
+        assertFalse(this.proceeds(middleware, this.request("1234.aGVsbG8=")));
+        assertFalse(this.proceeds(middleware, this.request("hello")));
+    }
+
+    private boolean proceeds(MessageDecryptionMiddleware middleware, Request request) {
+        return middleware.beforeAsync(request, null).toCompletableFuture().join();
+    }
+
+    private Request request(String message) {
+        return new Request(":secret", message, new Requester("127.0.0.1:5000", null));
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.oxyzero.volt.middleware;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Requester;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheMiddlewareTest {
+
+    private List<String> replies;
+
+    @Before
+    public void setUp() {
+        this.replies = new ArrayList<>();
+    }
+
+    /**
+     * Sends a request through the cache, replying with the given value if
+     * the request reaches the route.
+     *
+     * @return True if the request reached the route.
+     */
+    private boolean handle(ResponseCacheMiddleware cache, String route, String message, String reply) {
+        Request request = new Request(route, message, new Requester("127.0.0.1:5000", null))
+                .responder(this.replies::add);
+
+        boolean proceed = cache.beforeAsync(request, null).toCompletableFuture().join();
+
+        if (proceed) {
+            request.reply(reply);
+        }
+
+        return proceed;
+    }
+
+    @Test
+    public void testHitRepliesFromCache() {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(10, 1, TimeUnit.MINUTES);
+
+        assertTrue(this.handle(cache, ":user", "42", "renato"));
+        assertFalse(this.handle(cache, ":user", "42", "other"));
+        assertTrue(this.handle(cache, ":user", "43", "machado"));
+
+        assertEquals(2, this.replies.indexOf("machado"));
+        assertEquals("renato", this.replies.get(1));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(2, 1, TimeUnit.MINUTES);
+
+        this.handle(cache, ":user", "1", "a");
+        this.handle(cache, ":user", "2", "b");
+        this.handle(cache, ":user", "1", "a");
+        this.handle(cache, ":user", "3", "c");
+
+        assertEquals(2, cache.size());
+        assertFalse(this.handle(cache, ":user", "1", "a"));
+        assertTrue(this.handle(cache, ":user", "2", "b"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreMisses() throws InterruptedException {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(10, 20, TimeUnit.MILLISECONDS);
+
+        this.handle(cache, ":user", "1", "a");
+        Thread.sleep(40);
+
+        assertTrue(this.handle(cache, ":user", "1", "a"));
+    }
+
+    @Test
+    public void testInvalidation() {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(10, 1, TimeUnit.MINUTES);
+
+        this.handle(cache, ":user", "1", "a");
+        this.handle(cache, ":user", "2", "b");
+        this.handle(cache, ":group", "1", "g");
+
+        cache.invalidate(":user", "1");
+
+        assertTrue(this.handle(cache, ":user", "1", "a"));
+        assertFalse(this.handle(cache, ":user", "2", "b"));
+
+        cache.invalidate(":user");
+
+        assertTrue(this.handle(cache, ":user", "2", "b"));
+        assertFalse(this.handle(cache, ":group", "1", "g"));
+    }
+
+    @Test
+    public void testReplyAfterInvalidationIsNotCached() {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(10, 1, TimeUnit.MINUTES);
+        Request request = new Request(":user", "1", new Requester("127.0.0.1:5000", null))
+                .responder(this.replies::add);
+
+        assertTrue(cache.beforeAsync(request, null).toCompletableFuture().join());
+
+        cache.invalidate(":user");
+        request.reply("stale");
+
+        assertTrue(this.handle(cache, ":user", "1", "fresh"));
+    }
+
+    @Test
+    public void testMessagesWithoutReplyChannelAreIgnored() {
+        ResponseCacheMiddleware cache = new ResponseCacheMiddleware(10, 1, TimeUnit.MINUTES);
+        Request request = new Request(":user", "1", new Requester("127.0.0.1:5000", null));
+
+        assertTrue(cache.beforeAsync(request, null).toCompletableFuture().join());
+        assertEquals(0, cache.misses());
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.oxyzero.volt.protocols.dual;
+
+import com.github.oxyzero.volt.Request;
+import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.Servers;
+import com.github.oxyzero.volt.middleware.Middleware;
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import com.github.oxyzero.volt.support.Container;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DualServerTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    @Test
+    public void testFixedPortBindsBothProtocols() throws Exception {
+        int port;
+
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        DualServer server = this.servers.stream(new DualServer(), port);
+
+        assertEquals(port, server.getPort());
+        assertEquals(port, server.tcp().getPort());
+        assertEquals(port, server.udp().getPort());
+    }
+
+    @Test
+    public void testFixedPortInUseFailsTheBoot() throws IOException {
+        try (ServerSocket taken = new ServerSocket(0)) {
+            DualServer server = new DualServer();
+
+            try {
+                server.stream(taken.getLocalPort());
+                fail("The server should not run without its TCP service.");
+            } catch (IllegalArgumentException ex) {
+                assertFalse(server.isActive());
+                assertFalse(server.udp().isActive());
+            }
+        }
+    }
+
+    @Test
+    public void testProtocolsShareRoutesAndMiddleware() throws Exception {
+        DualServer server = this.servers.stream(new DualServer());
+        UdpServer udp = this.servers.stream(new UdpServer());
+        TcpServer tcp = this.servers.stream(new TcpServer());
+
+        Map<String, Boolean> overTcp = new ConcurrentHashMap<>();
+        AtomicInteger filtered = new AtomicInteger();
+        CountDownLatch received = new CountDownLatch(2);
+
+        server.listen("shared", request -> {
+            overTcp.put(request.message(), request.socket() != null);
+            received.countDown();
+        });
+        server.middleware("shared", new Counter(filtered));
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        udp.send("shared", target, "udp");
+        tcp.send("shared", target, "tcp");
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertFalse(overTcp.get("udp"));
+        assertTrue(overTcp.get("tcp"));
+        assertEquals(2, filtered.get());
+    }
+
+    @Test
+    public void testRoutesHandleOneRequestAtATime() throws Exception {
+        DualServer server = this.servers.stream(new DualServer());
+        UdpServer sender = this.servers.stream(new UdpServer());
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger most = new AtomicInteger();
+        CountDownLatch received = new CountDownLatch(3);
+
+        server.listen("serial", request -> {
+            most.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            running.decrementAndGet();
+            received.countDown();
+        });
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        for (int i = 0; i < 3; i++) {
+            sender.send("serial", target, "request " + i);
+        }
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(1, most.get());
+    }
+
+    @Test
+    public void testThresholdChoosesTheProtocol() throws Exception {
+        DualServer server = this.servers.stream(new DualServer());
+        DualServer sender = this.servers.stream(new DualServer()).threshold(16);
+
+        Map<String, Boolean> overTcp = new ConcurrentHashMap<>();
+        CountDownLatch received = new CountDownLatch(2);
+
+        server.listen("sized", request -> {
+            overTcp.put(request.message(), request.socket() != null);
+            received.countDown();
+        });
+
+        StringBuilder big = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            big.append('x');
+        }
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        sender.send("sized", target, "small");
+        sender.send("sized", target, big.toString());
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertFalse(overTcp.get("small"));
+        assertTrue(overTcp.get(big.toString()));
+    }
+
+    /**
+     * Counts the requests that reach it.
+     */
+    private static class Counter implements Middleware {
+
+        private final AtomicInteger count;
+
+        private Counter(AtomicInteger count) {
+            this.count = count;
+        }
+
+        @Override
+        public void before(Request request, Container container) {
+            this.count.incrementAndGet();
+        }
+
+        @Override
+        public void after(Request request, Container container) {
+        }
+    }
+}
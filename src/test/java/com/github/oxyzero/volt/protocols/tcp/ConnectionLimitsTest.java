@@ -0,0 +1,77 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import com.github.oxyzero.volt.Servers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConnectionLimitsTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    private TcpServer server;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        this.server = this.servers.stream(new TcpServer());
+    }
+
+    @Test
+    public void testPerAddressLimitRejectsConnections() throws IOException, InterruptedException {
+        this.server.limits().maxConnectionsPerAddress(1);
+        InetAddress local = InetAddress.getByName("127.0.0.1");
+
+        try (Socket first = new Socket(local, this.server.getPort())) {
+            Servers.await(() -> this.server.activeConnections() == 1);
+
+            try (Socket second = new Socket(local, this.server.getPort())) {
+                // The rejected connection is closed by the server.
+                assertEquals(-1, second.getInputStream().read());
+            }
+
+            assertEquals(1, this.server.rejectedConnections());
+            assertEquals(1, this.server.activeConnections(local));
+        }
+
+        Servers.await(() -> this.server.activeConnections() == 0);
+
+        assertEquals(0, this.server.activeConnections(local));
+    }
+
+    @Test
+    public void testTotalLimitDefersConnections() throws IOException, InterruptedException {
+        this.server.limits().maxConnections(1);
+
+        CountDownLatch handled = new CountDownLatch(1);
+        this.server.listen("limits", request -> handled.countDown());
+
+        Socket first = new Socket("127.0.0.1", this.server.getPort());
+        Servers.await(() -> this.server.activeConnections() == 1);
+
+        try (Socket second = new Socket("127.0.0.1", this.server.getPort())) {
+            second.getOutputStream().write(TcpFrame.encode("limits", new HashMap<>(), "hello"));
+            second.getOutputStream().flush();
+
+            // The second connection waits in the backlog instead of being rejected.
+            assertFalse(handled.await(300, TimeUnit.MILLISECONDS));
+            assertEquals(1, this.server.activeConnections());
+
+            first.close();
+
+            assertTrue(handled.await(5, TimeUnit.SECONDS));
+        }
+
+        Servers.await(() -> this.server.activeConnections() == 0);
+        assertEquals(0, this.server.rejectedConnections());
+    }
+}
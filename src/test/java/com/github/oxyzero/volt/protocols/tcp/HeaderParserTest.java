@@ -0,0 +1,125 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HeaderParserTest {
+
+    private HeaderParser parser;
+
+    @Before
+    public void setUp() {
+        this.parser = new HeaderParser(256, 4);
+    }
+
+    @Test
+    public void testParsesHeaderBlock() throws IOException {
+        ByteBuffer buffer = this.buffer(":route 5\r\nCorrelation: 42\r\nUrl: volt://host:80\r\n\r\nhello");
+
+        assertTrue(this.parser.parse(buffer));
+        assertEquals(":route", this.parser.route().toString());
+        assertEquals(5, this.parser.length());
+        assertEquals(2, this.parser.count());
+        assertEquals("42", this.parser.header("correlation").toString());
+        assertEquals("volt://host:80", this.parser.header("Url").toString());
+        assertEquals('h', buffer.get(buffer.position()));
+    }
+
+    @Test
+    public void testResumesAcrossPartialReads() throws IOException {
+        byte[] data = ":route 0\r\nReply: 7\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        for (int limit = 1; limit < data.length; limit++) {
+            buffer.limit(limit);
+            assertFalse(this.parser.parse(buffer));
+        }
+
+        buffer.limit(data.length);
+
+        assertTrue(this.parser.parse(buffer));
+        assertEquals("7", this.parser.header("Reply").toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOversizedHeaders() throws IOException {
+        StringBuilder builder = new StringBuilder(":route 0\r\nBig: ");
+
+        for (int i = 0; i < 300; i++) {
+            builder.append('x');
+        }
+
+        this.parser.parse(this.buffer(builder.toString()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTooManyHeaders() throws IOException {
+        this.parser.parse(this.buffer(":route 0\r\nA: 1\r\nB: 2\r\nC: 3\r\nD: 4\r\nE: 5\r\n\r\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsInvalidLength() throws IOException {
+        this.parser.parse(this.buffer(":route abc\r\n\r\n"));
+    }
+
+    @Test
+    public void testReaderKeepsBytesAfterTheFrame() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Correlation", "1");
+
+        byte[] first = TcpFrame.encode(":first", headers, "h\u00e9llo");
+        byte[] second = TcpFrame.encode(":second", new LinkedHashMap<>(), "world");
+        byte[] stream = new byte[first.length + second.length];
+
+        System.arraycopy(first, 0, stream, 0, first.length);
+        System.arraycopy(second, 0, stream, first.length, second.length);
+
+        TcpFrameReader reader = new TcpFrameReader(new ByteArrayInputStream(stream));
+
+        TcpFrame frame = reader.read();
+        assertEquals(":first", frame.route);
+        assertEquals("h\u00e9llo", frame.message());
+        assertEquals("1", frame.header("Correlation"));
+
+        frame = reader.read();
+        assertEquals(":second", frame.route);
+        assertEquals("world", frame.message());
+
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void testFrameHeadersOutliveTheBuffer() throws IOException {
+        ByteBuffer buffer = this.buffer(":route 0\r\nCorrelation: 1\r\nReply: 2\r\nReply: 3\r\n\r\n");
+
+        assertTrue(this.parser.parse(buffer));
+
+        TcpFrame.Headers headers = this.parser.headers();
+
+        buffer.clear();
+        buffer.put(new byte[buffer.capacity()]);
+
+        assertEquals("1", headers.get("Correlation"));
+        assertEquals("3", headers.get("Reply"));
+        assertNull(headers.get("correlation"));
+        assertEquals(2, headers.size());
+
+        headers.put("Url", "volt://host:80");
+
+        assertEquals("volt://host:80", headers.get("Url"));
+        assertEquals("[Correlation, Reply, Url]", headers.keySet().toString());
+    }
+
+    private ByteBuffer buffer(String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+    }
+}
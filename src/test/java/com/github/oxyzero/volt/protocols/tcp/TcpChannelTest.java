@@ -0,0 +1,38 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class TcpChannelTest {
+
+    @Test
+    public void testCompletedRequestsStopWaiting() throws Exception {
+        try (ServerSocket peer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            TcpChannel channel = new TcpChannel(new TcpServer(), "127.0.0.1:" + peer.getLocalPort(),
+                    new Socket(peer.getInetAddress(), peer.getLocalPort()));
+
+            try {
+                CompletableFuture<Object> answered = new CompletableFuture<>();
+                CompletableFuture<Object> expired = new CompletableFuture<>();
+
+                channel.write(1, answered, new byte[] { 0 });
+                channel.write(2, expired, new byte[] { 0 });
+                assertEquals(2, channel.pending());
+
+                answered.complete(null);
+                expired.completeExceptionally(new TimeoutException());
+
+                assertEquals(0, channel.pending());
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.oxyzero.volt.protocols.tcp;
+
+import com.github.oxyzero.volt.DrainReport;
+import com.github.oxyzero.volt.Servers;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TcpDrainTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    @Test
+    public void testOnlyDispatchedFramesAreCompleted() throws Exception {
+        TcpServer server = this.servers.stream(new TcpServer());
+        CountDownLatch started = new CountDownLatch(1);
+
+        server.listen("slow", request -> {
+            started.countDown();
+
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (Socket slow = new Socket("127.0.0.1", server.getPort());
+             Socket empty = new Socket("127.0.0.1", server.getPort());
+             Socket unknown = new Socket("127.0.0.1", server.getPort())) {
+            slow.getOutputStream().write(TcpFrame.encode("slow", new HashMap<>(), "work"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Servers.await(() -> server.activeConnections() == 3);
+
+            CompletableFuture<DrainReport> drain = CompletableFuture.supplyAsync(() -> server.drain(5000));
+            Servers.await(server::isDraining);
+
+            // Both connections end while the drain waits, without a request for a route.
+            unknown.getOutputStream().write(TcpFrame.encode("missing", new HashMap<>(), "work"));
+            unknown.shutdownOutput();
+            empty.close();
+
+            DrainReport report = drain.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, report.completed());
+            assertEquals(0, report.aborted());
+        }
+    }
+}
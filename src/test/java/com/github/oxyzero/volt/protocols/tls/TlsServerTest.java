@@ -0,0 +1,94 @@
+package com.github.oxyzero.volt.protocols.tls;
+
+import com.github.oxyzero.volt.Servers;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.net.ssl.SSLContext;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TlsServerTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    @Test
+    public void testLoopbackHandshake() throws Exception {
+        SSLContext context = Tls.build(this.keystore("dns:localhost,ip:127.0.0.1"), PASSWORD);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        TlsServer server = this.servers.stream(new TlsServer(context));
+        server.listen("tls", request -> received.add(request.message()));
+
+        TlsServer sender = this.servers.stream(new TlsServer(context));
+        sender.send("tls", "127.0.0.1:" + server.getPort(), "hello");
+
+        assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSharesTheRoutesOfItsOwner() throws Exception {
+        SSLContext context = Tls.build(this.keystore("dns:localhost,ip:127.0.0.1"), PASSWORD);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        UdpServer owner = new UdpServer();
+        owner.listen("tls", request -> received.add(request.message()));
+
+        TlsServer server = this.servers.stream(new TlsServer(owner, context));
+
+        TlsServer sender = this.servers.stream(new TlsServer(context));
+        sender.send("tls", "127.0.0.1:" + server.getPort(), "hello");
+
+        assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCertificateOfAnotherHostIsRefused() throws Exception {
+        SSLContext context = Tls.build(this.keystore("dns:example.com"), PASSWORD);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        TlsServer server = this.servers.stream(new TlsServer(context));
+        server.listen("tls", request -> received.add(request.message()));
+
+        TlsServer sender = this.servers.stream(new TlsServer(context));
+        sender.send("tls", "127.0.0.1:" + server.getPort(), "hello");
+
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Generates a self-signed keystore with keytool.
+     *
+     * @param names Subject alternative names of the certificate.
+     * @return Keystore path.
+     */
+    private String keystore(String names) throws IOException, InterruptedException {
+        File keystore = new File(this.folder.getRoot(), "volt.p12");
+        File keytool = new File(System.getProperty("java.home"), "bin" + File.separator + "keytool");
+
+        Process process = new ProcessBuilder(keytool.getPath(), "-genkeypair", "-alias", "volt",
+                "-keyalg", "EC", "-keysize", "256", "-validity", "1", "-dname", "CN=volt",
+                "-ext", "SAN=" + names, "-keystore", keystore.getPath(), "-storetype", "PKCS12",
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue());
+
+        return keystore.getPath();
+    }
+}
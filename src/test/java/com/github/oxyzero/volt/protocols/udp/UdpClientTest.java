@@ -0,0 +1,171 @@
+package com.github.oxyzero.volt.protocols.udp;
+
+import com.github.oxyzero.volt.Servers;
+import com.github.oxyzero.volt.middleware.MessageDecryptionMiddleware;
+import com.github.oxyzero.volt.middleware.MessageEncryptionMiddleware;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class UdpClientTest {
+
+    private static final String SECRET = "0123456789abcdef";
+
+    private static final byte[] KEY = "fedcba9876543210".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    private UdpClient client;
+
+    @After
+    public void tearDown() {
+        if (this.client != null) {
+            this.client.destroy();
+        }
+    }
+
+    @Test
+    public void testRequestsGoThroughTheClientMiddleware() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+        UdpServer server = this.servers.stream(new UdpServer().encryption(KEY));
+        server.middleware("secret", new MessageDecryptionMiddleware(SECRET));
+        server.listen("secret", request -> {
+            received.add(request.message());
+            request.reply("ok");
+        });
+
+        this.client = new UdpClient();
+        ((UdpServer) this.client.client()).encryption(KEY);
+        this.client.client().middleware("secret", new MessageEncryptionMiddleware(SECRET));
+
+        this.client.request("secret", "127.0.0.1:" + server.getPort(), "hello", 5).get(5, TimeUnit.SECONDS);
+
+        // The message was sealed by the middleware of the client, or the server would have stopped it.
+        assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPersistentClientReusesItsSocket() throws Exception {
+        BlockingQueue<String> senders = new LinkedBlockingQueue<>();
+
+        UdpServer server = this.servers.stream(new UdpServer());
+        server.listen("ping", request -> senders.add(request.requester().target()));
+
+        this.client = new UdpClient();
+        this.client.persistent(true);
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        this.client.send("ping", target, "first");
+        String first = senders.poll(5, TimeUnit.SECONDS);
+
+        this.client.send("ping", target, "second");
+        String second = senders.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertEquals("127.0.0.1:" + this.client.client().getPort(), first);
+        assertTrue(this.client.client().isActive());
+    }
+
+    @Test
+    public void testDestroyClosesThePersistentSocket() throws Exception {
+        this.client = this.persistentClient();
+
+        this.client.destroy();
+
+        assertFalse(this.client.client().isActive());
+    }
+
+    @Test
+    public void testStopClosesThePersistentSocket() throws Exception {
+        this.client = this.persistentClient();
+
+        this.client.stop();
+
+        Servers.await(() -> ! this.client.client().isActive());
+    }
+
+    @Test
+    public void testRepliesArriveOnThePersistentSocket() throws Exception {
+        BlockingQueue<String> senders = new LinkedBlockingQueue<>();
+
+        UdpServer server = this.servers.stream(new UdpServer());
+        server.listen("echo", request -> {
+            senders.add(request.requester().target());
+            request.reply(request.message());
+        });
+
+        this.client = new UdpClient();
+        this.client.persistent(true);
+
+        String target = "127.0.0.1:" + server.getPort();
+
+        assertEquals("first", this.client.request("echo", target, "first", 5).get(5, TimeUnit.SECONDS).message());
+        assertEquals("second", this.client.request("echo", target, "second", 5).get(5, TimeUnit.SECONDS).message());
+
+        // Both requests left from, and were answered on, the socket of the client.
+        String local = "127.0.0.1:" + this.client.client().getPort();
+
+        assertEquals(local, senders.poll(5, TimeUnit.SECONDS));
+        assertEquals(local, senders.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUnansweredRequestsMarkTheTargetUnresponsive() throws Exception {
+        UdpServer server = this.servers.stream(new UdpServer());
+        server.listen("echo", request -> request.reply(request.message()));
+
+        UdpServer silent = this.servers.stream(new UdpServer());
+        silent.listen("echo", request -> { });
+
+        this.client = new UdpClient();
+        this.client.persistent(true);
+
+        String answering = "127.0.0.1:" + server.getPort();
+        String unanswering = "127.0.0.1:" + silent.getPort();
+
+        this.client.request("echo", answering, "hello", 5).get(5, TimeUnit.SECONDS);
+
+        try {
+            this.client.request("echo", unanswering, "hello", 1).get(5, TimeUnit.SECONDS);
+            fail("The request should have timed out.");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof TimeoutException);
+        }
+
+        Servers.await(() -> ! this.client.isResponsive(unanswering));
+        assertTrue(this.client.isResponsive(answering));
+    }
+
+    /**
+     * Creates a persistent client that already sent a message.
+     */
+    private UdpClient persistentClient() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+
+        UdpServer server = this.servers.stream(new UdpServer());
+        server.listen("ping", request -> received.countDown());
+
+        UdpClient client = new UdpClient();
+        client.persistent(true);
+        client.send("ping", "127.0.0.1:" + server.getPort(), "hello");
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertTrue(client.client().isActive());
+
+        return client;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.oxyzero.volt.protocols.udp;
+
+import com.github.oxyzero.volt.Servers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class UdpEncryptionTest {
+
+    private static final byte[] KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    private UdpServer server;
+
+    private BlockingQueue<String> received;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        this.server = this.servers.stream(new UdpServer().encryption(KEY));
+        this.received = new LinkedBlockingQueue<>();
+
+        this.server.listen("secret", request -> this.received.add(request.message()));
+    }
+
+    @Test
+    public void testEncryptedMessagesAreDelivered() throws InterruptedException {
+        StringBuilder big = new StringBuilder();
+
+        // Spans many datagrams, each sealed on its own.
+        for (int i = 0; i < 2000; i++) {
+            big.append((char) ('a' + i % 26));
+        }
+
+        this.servers.stream(new UdpServer().encryption(KEY)).send("secret", this.target(), big.toString());
+
+        assertEquals(big.toString(), this.received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPlaintextDatagramsAreDropped() throws InterruptedException {
+        this.servers.stream(new UdpServer()).send("secret", this.target(), "plain");
+        this.servers.stream(new UdpServer().encryption(KEY)).send("secret", this.target(), "sealed");
+
+        assertEquals("sealed", this.received.poll(5, TimeUnit.SECONDS));
+        assertNull(this.received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private String target() {
+        return "127.0.0.1:" + this.server.getPort();
+    }
+}
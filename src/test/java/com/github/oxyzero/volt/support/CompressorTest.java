@@ -0,0 +1,51 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CompressorTest {
+
+    private Compressor compressor;
+
+    @Before
+    public void setUp() {
+        this.compressor = new Compressor().enable().threshold(64);
+    }
+
+    @Test
+    public void testCompressionRoundTrip() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"volt\"},");
+        }
+
+        byte[] data = builder.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = this.compressor.compress(data);
+
+        assertNotNull(compressed);
+        assertTrue(compressed.length < data.length);
+        assertArrayEquals(data, Compressor.decompress(compressed));
+    }
+
+    @Test
+    public void testSkipsMessagesBelowThreshold() {
+        assertNull(this.compressor.compress("hello".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSkipsWhenDisabled() {
+        this.compressor.disable();
+
+        assertNull(this.compressor.compress(new byte[1024]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressingMalformedData() {
+        Compressor.decompress(new byte[] { 1, 2, 3, 4 });
+    }
+}
@@ -1,8 +1,14 @@
 package com.github.oxyzero.volt.support;
 
+import com.github.oxyzero.volt.Request;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 public class ContainerTest {
@@ -73,4 +79,131 @@ public class ContainerTest {
     public void testResolvingNonExistentService() {
         this.container.resolve("nonExistingService");
     }
+
+    @Test
+    public void testSingletonsAreBuiltOnceWhenResolved() throws InterruptedException {
+        final AtomicInteger builds = new AtomicInteger();
+
+        this.container.singleton("lazy", c -> "built " + builds.incrementAndGet());
+
+        assertEquals(0, builds.get());
+
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                this.container.resolve("lazy");
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, builds.get());
+        assertEquals("built 1", this.container.resolve("lazy"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircularSingletonsAreRefused() {
+        this.container.singleton("loop", c -> c.resolve("loop"));
+
+        this.container.resolve("loop");
+    }
+
+    @Test
+    public void testFrozenContainerResolvesServices() {
+        for (int i = 0; i < 50; i++) {
+            final int value = i;
+            this.container.register("service" + i, c -> value);
+        }
+
+        this.container.singleton("singleton", c -> new Object());
+
+        this.container.freeze();
+
+        assertTrue(this.container.isFrozen());
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, this.container.resolve("service" + i));
+        }
+
+        assertSame(this.container.resolve("singleton"), this.container.resolve("singleton"));
+        assertFalse(this.container.has("missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFrozenContainerRefusesChanges() {
+        this.container.freeze().register("late", c -> "late");
+    }
+
+    @Test
+    public void testRequestScopedServices() {
+        final List<Object> released = new ArrayList<>();
+
+        this.container.scoped("buffer", c -> new StringBuilder(), released::add);
+
+        Request first = new Request("route", "message", null);
+        Request second = new Request("route", "message", null);
+
+        Object buffer = this.container.resolve("buffer", first);
+
+        assertSame(buffer, this.container.resolve("buffer", first));
+        assertNotSame(buffer, this.container.resolve("buffer", second));
+
+        this.container.release(first);
+
+        assertEquals(1, released.size());
+        assertSame(buffer, released.get(0));
+        assertNotSame(buffer, this.container.resolve("buffer", first));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestScopedServicesNeedTheirRequest() {
+        this.container.scoped("buffer", c -> new StringBuilder());
+
+        this.container.resolve("buffer");
+    }
+
+    @Test
+    public void testPooledServicesAreResetAndReused() {
+        final AtomicInteger builds = new AtomicInteger();
+
+        this.container.pooled("builder", c -> {
+            builds.incrementAndGet();
+            return new StringBuilder();
+        }, 1, instance -> ((StringBuilder) instance).setLength(0));
+
+        Request request = new Request("route", "message", null);
+        StringBuilder builder = (StringBuilder) this.container.resolve("builder", request);
+        builder.append("dirty");
+
+        this.container.release(request);
+
+        StringBuilder reused = (StringBuilder) this.container.resolve("builder");
+
+        assertSame(builder, reused);
+        assertEquals(0, reused.length());
+
+        // Only one idle instance is kept.
+        StringBuilder other = (StringBuilder) this.container.resolve("builder");
+
+        this.container.release("builder", reused);
+        this.container.release("builder", other);
+
+        assertSame(reused, this.container.resolve("builder"));
+        assertEquals(2, builds.get());
+        assertNotSame(reused, this.container.resolve("builder"));
+        assertEquals(3, builds.get());
+    }
 }
@@ -0,0 +1,84 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class EncrypterTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    @Test
+    public void testEcbRoundTrip() {
+        Encrypter encrypter = new Encrypter();
+        String encrypted = encrypter.encrypt("Volt \u00e9", KEY);
+
+        assertEquals("Volt \u00e9", encrypter.decrypt(encrypted, KEY));
+    }
+
+    @Test
+    public void testGcmRoundTrip() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+        String encrypted = encrypter.encrypt("Students|Students.json", KEY);
+
+        assertEquals("Students|Students.json", encrypter.decrypt(encrypted, KEY));
+        assertEquals("Students|Students.json", new Encrypter(Encrypter.Mode.GCM).decrypt(encrypted, KEY));
+    }
+
+    @Test
+    public void testGcmUsesANoncePerMessage() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+
+        assertNotEquals(encrypter.encrypt("same", KEY), encrypter.encrypt("same", KEY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGcmRefusesTamperedData() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = encrypter.encrypt("message".getBytes(StandardCharsets.UTF_8), key);
+
+        encrypted[encrypted.length - 1] ^= 1;
+
+        encrypter.decrypt(encrypted, key);
+    }
+
+    @Test
+    public void testRawBytesAreNotEncoded() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[1000];
+
+        byte[] encrypted = encrypter.encrypt(data, key);
+
+        assertEquals(data.length + Encrypter.NONCE_LENGTH + Encrypter.TAG_LENGTH / 8, encrypted.length);
+        assertArrayEquals(data, encrypter.decrypt(encrypted, key));
+    }
+
+    @Test
+    public void testKeysCanChange() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+        String other = "fedcba9876543210";
+
+        String first = encrypter.encrypt("first", KEY);
+        String second = encrypter.encrypt("second", other);
+
+        assertEquals("first", encrypter.decrypt(first, KEY));
+        assertEquals("second", encrypter.decrypt(second, other));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTamperedAssociatedDataIsRefused() {
+        Encrypter encrypter = new Encrypter(Encrypter.Mode.GCM);
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        byte[] header = "1:2:3:4:e".getBytes(StandardCharsets.US_ASCII);
+
+        byte[] encrypted = encrypter.encrypt(new byte[100], key, header);
+
+        assertArrayEquals(new byte[100], encrypter.decrypt(encrypted, key, header));
+
+        encrypter.decrypt(encrypted, key, "2:2:3:4:e".getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LocalAddressesTest {
+
+    @Test
+    public void testLoopbackIsLocal() throws Exception {
+        assertTrue(LocalAddresses.isLocal("127.0.0.1"));
+        assertTrue(LocalAddresses.isLocal(InetAddress.getByName("127.0.0.1")));
+    }
+
+    @Test
+    public void testEveryInterfaceAddressIsLocal() {
+        for (InetAddress address : LocalAddresses.addresses()) {
+            assertTrue(address.toString(), LocalAddresses.isLocal(address));
+        }
+    }
+
+    @Test
+    public void testRemoteAddressIsNotLocal() {
+        assertFalse(LocalAddresses.isLocal("192.0.2.1"));
+        assertFalse(LocalAddresses.isLocal((String) null));
+        assertFalse(LocalAddresses.isLocal("not an address"));
+    }
+
+    @Test
+    public void testOnlyLiteralsAreParsed() {
+        assertTrue(LocalAddresses.isLocal("::ffff:127.0.0.1"));
+        assertTrue(LocalAddresses.isLocal("[::ffff:127.0.0.1]"));
+
+        // Hostnames are never looked up, even when they resolve to this host.
+        assertFalse(LocalAddresses.isLocal("localhost"));
+        assertFalse(LocalAddresses.isLocal("cafe.local"));
+        assertFalse(LocalAddresses.isLocal("db1"));
+        assertFalse(LocalAddresses.isLocal("127.0.0"));
+        assertFalse(LocalAddresses.isLocal("127.0.0.256"));
+    }
+
+    @Test
+    public void testLimitedBroadcast() throws Exception {
+        assertTrue(LocalAddresses.isBroadcast(InetAddress.getByName("255.255.255.255")));
+        assertFalse(LocalAddresses.isBroadcast(InetAddress.getByName("127.0.0.1")));
+    }
+
+    @Test
+    public void testRefreshOnDemand() {
+        LocalAddresses.refresh();
+
+        assertTrue(LocalAddresses.isLocal("127.0.0.1"));
+    }
+
+    @Test
+    public void testExpiredAddressesAreLoadedAgain() throws Exception {
+        LocalAddresses.interval(1);
+
+        try {
+            Set<InetAddress> previous = LocalAddresses.addresses();
+            Thread.sleep(5);
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> lookups = new ArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+
+            // Every caller is answered, with the previous or the loaded addresses.
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+
+                    return LocalAddresses.isLocal("127.0.0.1");
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<Boolean> lookup : lookups) {
+                assertTrue(lookup.get(5, TimeUnit.SECONDS));
+            }
+
+            executor.shutdown();
+
+            assertNotSame(previous, LocalAddresses.addresses());
+        } finally {
+            LocalAddresses.interval(LocalAddresses.REFRESH_INTERVAL);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeInterval() {
+        LocalAddresses.interval(-1);
+    }
+}
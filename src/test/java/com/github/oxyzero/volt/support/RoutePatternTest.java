@@ -0,0 +1,55 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RoutePatternTest {
+
+    @Test
+    public void testCyclicVariables() {
+        RoutePattern pattern = new RoutePattern(":name|:file");
+        RoutePattern.Variables variables = pattern.match("Students|Students.json|foobar|foobar.xml");
+
+        List<CharSequence> names = variables.get("name");
+        List<CharSequence> files = variables.get("file");
+
+        assertEquals(2, names.size());
+        assertEquals("Students", names.get(0).toString());
+        assertEquals("foobar", names.get(1).toString());
+        assertEquals("Students.json", files.get(0).toString());
+        assertEquals("foobar.xml", files.get(1).toString());
+    }
+
+    @Test
+    public void testUnknownVariable() {
+        assertNull(new RoutePattern(":name").match("volt").get("file"));
+    }
+
+    @Test
+    public void testMatchesStringSplit() {
+        RoutePattern pattern = new RoutePattern(":value");
+        String[] messages = { "", "|", "a", "a|", "a||b", "|a|b||" };
+
+        for (String message : messages) {
+            String[] expected = message.split("\\|");
+            List<CharSequence> values = pattern.match(message).get("value");
+
+            assertEquals(message, expected.length, values.size());
+
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], values.get(i).toString());
+            }
+        }
+    }
+
+    @Test
+    public void testIncompleteCycleIsIgnored() {
+        RoutePattern.Variables variables = new RoutePattern(":a|:b").match("1|2|3");
+
+        assertEquals(1, variables.get("a").size());
+        assertEquals(1, variables.get("b").size());
+    }
+}
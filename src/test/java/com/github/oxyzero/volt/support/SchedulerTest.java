@@ -0,0 +1,134 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SchedulerTest {
+
+    @Test
+    public void testRunsAfterDelay() throws Exception {
+        Scheduler scheduler = new Scheduler();
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        scheduler.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotRun() throws Exception {
+        Scheduler scheduler = new Scheduler();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch last = new CountDownLatch(1);
+
+        Scheduler.Timeout timeout = scheduler.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        scheduler.schedule(last::countDown, 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(last.await(5, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertTrue(timeout.isCancelled());
+    }
+
+    @Test
+    public void testDelaysLongerThanOneTurnOfTheWheel() throws Exception {
+        Scheduler scheduler = new Scheduler(1, TimeUnit.MILLISECONDS, 8, 1);
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        scheduler.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    public void testEarlierTimeoutWakesTheWorker() throws Exception {
+        Scheduler scheduler = new Scheduler();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        // The worker sleeps until the far timeout, the near one must wake it.
+        Scheduler.Timeout far = scheduler.schedule(() -> {}, 1, TimeUnit.MINUTES);
+        Thread.sleep(20);
+
+        long start = System.nanoTime();
+        scheduler.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertTrue(far.cancel());
+    }
+
+    @Test
+    public void testTimeoutsSharingABucketExpireOnTheirTurn() throws Exception {
+        Scheduler scheduler = new Scheduler(1, TimeUnit.MILLISECONDS, 8, 1);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch ran = new CountDownLatch(3);
+
+        // The delays are multiples of 8 ticks apart, so they share a bucket of the wheel.
+        for (int delay : new int[] { 350, 30, 190 }) {
+            scheduler.schedule(() -> {
+                order.add(delay);
+                ran.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(30, 190, 350), order);
+    }
+
+    @Test
+    public void testManyTimeouts() throws Exception {
+        Scheduler scheduler = new Scheduler();
+        CountDownLatch ran = new CountDownLatch(50000);
+        List<Scheduler.Timeout> cancelled = new ArrayList<>();
+
+        for (int i = 0; i < 100000; i++) {
+            Scheduler.Timeout timeout = scheduler.schedule(ran::countDown, i % 100, TimeUnit.MILLISECONDS);
+
+            if (i % 2 == 1) {
+                cancelled.add(timeout);
+            }
+        }
+
+        for (Scheduler.Timeout timeout : cancelled) {
+            timeout.cancel();
+        }
+
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        assertEquals(0, ran.getCount());
+    }
+
+    @Test
+    public void testPeriodicTaskStopsWhenCancelled() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch runs = new CountDownLatch(2);
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                runs.countDown();
+            }
+        };
+
+        manager.every(1).fire(task);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+
+        manager.destroy();
+    }
+}
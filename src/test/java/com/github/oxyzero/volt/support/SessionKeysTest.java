@@ -0,0 +1,202 @@
+package com.github.oxyzero.volt.support;
+
+import com.github.oxyzero.volt.Requester;
+import com.github.oxyzero.volt.Server;
+import com.github.oxyzero.volt.Servers;
+import com.github.oxyzero.volt.middleware.MessageDecryptionMiddleware;
+import com.github.oxyzero.volt.middleware.MessageEncryptionMiddleware;
+import com.github.oxyzero.volt.protocols.tcp.TcpServer;
+import com.github.oxyzero.volt.protocols.udp.UdpServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SessionKeysTest {
+
+    @Rule
+    public final Servers servers = new Servers();
+
+    @Test
+    public void testUdpFanOutAgreesAKeyWithEachTarget() throws Exception {
+        this.assertFanOutAgreesAKeyWithEachTarget(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpFanOutAgreesAKeyWithEachTarget() throws Exception {
+        this.assertFanOutAgreesAKeyWithEachTarget(TcpServer::new);
+    }
+
+    @Test
+    public void testUdpFanOutSkipsADeadTarget() throws Exception {
+        this.assertFanOutSkipsADeadTarget(UdpServer::new);
+    }
+
+    @Test
+    public void testTcpFanOutSkipsADeadTarget() throws Exception {
+        this.assertFanOutSkipsADeadTarget(TcpServer::new);
+    }
+
+    @Test
+    public void testHandshakeAgreesTheSameKey() throws Exception {
+        UdpServer server = this.servers.stream(new UdpServer());
+        UdpServer peer = this.servers.stream(new UdpServer());
+        SessionKeys keys = new SessionKeys(server);
+        SessionKeys peerKeys = new SessionKeys(peer);
+
+        String sealed = peerKeys.encrypt(this.requester(server), "hello");
+
+        assertEquals("hello", keys.decrypt(this.requester(peer), sealed));
+        assertEquals("hi", peerKeys.decrypt(this.requester(server), keys.encrypt(this.requester(peer), "hi")));
+    }
+
+    @Test
+    public void testPeersOnTheSameHostKeepTheirSessions() throws Exception {
+        UdpServer server = this.servers.stream(new UdpServer());
+        SessionKeys keys = new SessionKeys(server);
+        SessionKeys first = new SessionKeys(this.servers.stream(new UdpServer()));
+        SessionKeys second = new SessionKeys(this.servers.stream(new UdpServer()));
+
+        // Both requests arrive on connections of their own, as correlated TCP requests do.
+        Requester firstConnection = new Requester("127.0.0.1:40001", InetAddress.getLoopbackAddress());
+        Requester secondConnection = new Requester("127.0.0.1:40002", InetAddress.getLoopbackAddress());
+
+        assertEquals("one", keys.decrypt(firstConnection, first.encrypt(this.requester(server), "one")));
+        assertEquals("two", keys.decrypt(secondConnection, second.encrypt(this.requester(server), "two")));
+
+        assertEquals("re: one", first.decrypt(this.requester(server), keys.encrypt(firstConnection, "re: one")));
+        assertEquals("re: two", second.decrypt(this.requester(server), keys.encrypt(secondConnection, "re: two")));
+
+        try {
+            keys.encrypt(new Requester(null, InetAddress.getLoopbackAddress()), "hello");
+            fail("A requester without a port should not pick the session of another peer.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testForgottenSessionsAreAgreedAgain() throws Exception {
+        UdpServer server = this.servers.stream(new UdpServer());
+        UdpServer peer = this.servers.stream(new UdpServer());
+        SessionKeys keys = new SessionKeys(server);
+        SessionKeys peerKeys = new SessionKeys(peer);
+
+        String old = peerKeys.encrypt(this.requester(server), "old");
+
+        peerKeys.forget(this.requester(server).target());
+
+        String renewed = peerKeys.encrypt(this.requester(server), "new");
+
+        assertNotEquals(this.session(old), this.session(renewed));
+
+        // The messages sealed with the previous session are still accepted.
+        assertEquals("old", keys.decrypt(this.requester(peer), old));
+        assertEquals("new", keys.decrypt(this.requester(peer), renewed));
+    }
+
+    @Test
+    public void testExpiredSessionsAreRefusedAndRenewed() throws Exception {
+        Duration expiry = Duration.ofMillis(200);
+        UdpServer server = this.servers.stream(new UdpServer());
+        UdpServer peer = this.servers.stream(new UdpServer());
+        SessionKeys keys = new SessionKeys(server, expiry);
+        SessionKeys peerKeys = new SessionKeys(peer, expiry);
+
+        String old = peerKeys.encrypt(this.requester(server), "old");
+
+        // Past the expiry and the grace period of the messages on their way.
+        Thread.sleep(300);
+
+        try {
+            keys.decrypt(this.requester(peer), old);
+            fail("The expired session should have been refused.");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+
+        String renewed = peerKeys.encrypt(this.requester(server), "new");
+
+        assertNotEquals(this.session(old), this.session(renewed));
+        assertEquals("new", keys.decrypt(this.requester(peer), renewed));
+    }
+
+    private void assertFanOutSkipsADeadTarget(Supplier<Server> factory) throws Exception {
+        Server sender = this.servers.stream(factory);
+        Server receiver = this.servers.stream(factory);
+
+        sender.middleware("secret", new MessageEncryptionMiddleware(new SessionKeys(sender)));
+        receiver.middleware("secret", new MessageDecryptionMiddleware(new SessionKeys(receiver)));
+
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        receiver.listen("secret", request -> received.add(request.message()));
+
+        String dead;
+
+        try (ServerSocket probe = new ServerSocket(0)) {
+            dead = "127.0.0.1:" + probe.getLocalPort();
+        }
+
+        List<String> targets = Arrays.asList(dead, "127.0.0.1:" + receiver.getPort());
+        CompletableFuture<Void> send = CompletableFuture.runAsync(() -> sender.send("secret", targets, "hello"));
+
+        // Delivered while the handshake with the dead target is still failing.
+        assertEquals("hello", received.poll(3, TimeUnit.SECONDS));
+
+        try {
+            send.get(10, TimeUnit.SECONDS);
+            fail("The dead target should have been reported.");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+            assertTrue(ex.getCause().getMessage().contains(dead));
+        }
+    }
+
+    private Requester requester(Server server) {
+        return new Requester("127.0.0.1:" + server.getPort(), InetAddress.getLoopbackAddress());
+    }
+
+    private String session(String sealed) {
+        return sealed.substring(0, sealed.indexOf('.'));
+    }
+
+    private void assertFanOutAgreesAKeyWithEachTarget(Supplier<Server> factory) throws Exception {
+        Server sender = this.servers.stream(factory);
+        Server first = this.servers.stream(factory);
+        Server second = this.servers.stream(factory);
+
+        sender.middleware("secret", new MessageEncryptionMiddleware(new SessionKeys(sender)));
+
+        Map<Integer, String> received = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(2);
+
+        for (Server receiver : Arrays.asList(first, second)) {
+            receiver.middleware("secret", new MessageDecryptionMiddleware(new SessionKeys(receiver)));
+            receiver.listen("secret", request -> {
+                received.put(receiver.getPort(), request.message());
+                latch.countDown();
+            });
+        }
+
+        sender.send("secret", Arrays.asList("127.0.0.1:" + first.getPort(), "127.0.0.1:" + second.getPort()), "hello");
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals("hello", received.get(first.getPort()));
+        assertEquals("hello", received.get(second.getPort()));
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.oxyzero.volt.support;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TaskManagerTest {
+
+    @Test
+    public void testMillisecondPeriod() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch runs = new CountDownLatch(10);
+        long start = System.nanoTime();
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                runs.countDown();
+            }
+        };
+
+        manager.every(Duration.ofMillis(20)).fixedRate().fire(task);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        manager.destroy();
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Ten executions at 20 ms are at least 180 ms apart from the first one.
+        assertTrue("elapsed " + elapsed, elapsed >= 180);
+        assertTrue(task.stats().executions() >= 10);
+    }
+
+    @Test
+    public void testFixedDelayWaitsForTheExecution() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch runs = new CountDownLatch(3);
+        List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                starts.add(System.nanoTime());
+
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                runs.countDown();
+            }
+        };
+
+        manager.every(10, TimeUnit.MILLISECONDS).fixedDelay().fire(task);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        manager.destroy();
+
+        // The period starts once each execution ends, so executions start at least 30 + 10 ms apart.
+        for (int i = 1; i < 3; i++) {
+            long gap = TimeUnit.NANOSECONDS.toMillis(starts.get(i) - starts.get(i - 1));
+
+            assertTrue("Gap of " + gap + " ms", gap >= 40);
+        }
+    }
+
+    @Test
+    public void testOnceAfterDelay() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                ran.countDown();
+            }
+        };
+
+        manager.after(50, TimeUnit.MILLISECONDS).once(task);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1, task.stats().executions());
+    }
+
+    @Test
+    public void testBlockingTasksDoNotDelayOtherTimers() throws Exception {
+        TaskManager blocking = new TaskManager();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+        // More blocking tasks than the scheduler has threads.
+        for (long i = blocked.getCount(); i > 0; i--) {
+            blocking.after(0, TimeUnit.MILLISECONDS).once(new Task() {
+                @Override
+                public void fire() {
+                    blocked.countDown();
+
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        try {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            CountDownLatch ran = new CountDownLatch(1);
+
+            new TaskManager().after(20, TimeUnit.MILLISECONDS).once(new Task() {
+                @Override
+                public void fire() {
+                    ran.countDown();
+                }
+            });
+
+            assertTrue(ran.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testBackoffWidensThePeriodWhenCongested() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch runs = new CountDownLatch(4);
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                this.congested();
+                runs.countDown();
+            }
+        };
+
+        manager.every(10, TimeUnit.MILLISECONDS).backoff(2, Duration.ofMillis(40)).fire(task);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        manager.destroy();
+
+        assertEquals(40, task.stats().period(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testBackoffNarrowsThePeriodBack() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch runs = new CountDownLatch(6);
+        AtomicInteger executions = new AtomicInteger();
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                if (executions.incrementAndGet() <= 2) {
+                    this.congested();
+                }
+
+                runs.countDown();
+            }
+        };
+
+        manager.every(10, TimeUnit.MILLISECONDS).backoff(2, Duration.ofMillis(80)).fire(task);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        manager.destroy();
+
+        assertEquals(10, task.stats().period(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRandomPhaseStartsWithinThePeriod() throws Exception {
+        TaskManager manager = new TaskManager();
+        CountDownLatch ran = new CountDownLatch(1);
+        AtomicLong scheduled = new AtomicLong();
+
+        Task task = new Task() {
+            @Override
+            public void fire() {
+                // The time the first execution was scheduled for, whatever the lag of the scheduler.
+                scheduled.set(System.nanoTime() - this.stats().lastLag(TimeUnit.NANOSECONDS));
+                ran.countDown();
+            }
+        };
+
+        long fired = System.nanoTime();
+        manager.every(200, TimeUnit.MILLISECONDS).randomPhase().jitter(0.5).fire(task);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        manager.destroy();
+
+        long phase = TimeUnit.NANOSECONDS.toMillis(scheduled.get() - fired);
+
+        assertTrue("Phase of " + phase + " ms", phase >= 0 && phase < 200);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testJitterMustBeAFraction() {
+        new TaskManager().jitter(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumPeriodCannotBeShorter() {
+        new TaskManager().every(1).backoff(2, Duration.ofMillis(10)).fire(new Task());
+    }
+}